@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import com.google.gson.stream.JsonReader;
+import org.rumbledb.api.Item;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.items.ObjectShapeCache;
+import org.rumbledb.items.parsing.ItemParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JSON Lines datasets of the test suite, used as realistic inputs by the benchmarks.
+ *
+ * They are read from the test resources of the project directory, from which the benchmarks profile runs JMH.
+ */
+public class BenchmarkFixtures {
+
+    public static final String FIXTURES_DIRECTORY = "src/test/resources/queries";
+    // flat objects with a string array (the Great Language Game).
+    public static final String CONFUSION = "confusion_sample.json";
+    // wider objects with numbers, booleans, nulls and longer strings (Reddit comments).
+    public static final String REDDIT = "Reddit.json";
+
+    public static List<String> readLines(String fixture) {
+        try {
+            List<String> result = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(FIXTURES_DIRECTORY, fixture), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) {
+                    result.add(line);
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Item parse(String line, ObjectShapeCache shapes) {
+        return ItemParser.getItemFromObject(
+            new JsonReader(new StringReader(line)),
+            ExceptionMetadata.EMPTY_METADATA,
+            shapes
+        );
+    }
+
+    public static List<Item> readItems(String fixture) {
+        ObjectShapeCache shapes = new ObjectShapeCache();
+        List<Item> result = new ArrayList<>();
+        for (String line : readLines(fixture)) {
+            result.add(parse(line, shapes));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rumbledb.api.Item;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
+import org.rumbledb.items.ItemFactory;
+import org.rumbledb.runtime.misc.ComparisonIterator;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Value comparisons with ComparisonIterator.compareItems, as used by where clauses, order by, min(), max() and
+ * distinct-values(), on pairs of items of the same or of different numeric types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompareItemsBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({ "int", "int-double", "decimal", "string", "date" })
+    public String types;
+
+    private Item[] left;
+    private Item[] right;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ItemFactory factory = ItemFactory.getInstance();
+        this.left = new Item[SIZE];
+        this.right = new Item[SIZE];
+        for (int i = 0; i < SIZE; ++i) {
+            int l = random.nextInt(1000);
+            int r = random.nextInt(1000);
+            switch (this.types) {
+                case "int":
+                    this.left[i] = factory.createIntItem(l);
+                    this.right[i] = factory.createIntItem(r);
+                    break;
+                case "int-double":
+                    this.left[i] = factory.createIntItem(l);
+                    this.right[i] = factory.createDoubleItem(r / 10.0);
+                    break;
+                case "decimal":
+                    this.left[i] = factory.createDecimalItem(BigDecimal.valueOf(l, 2));
+                    this.right[i] = factory.createDecimalItem(BigDecimal.valueOf(r, 2));
+                    break;
+                case "string":
+                    this.left[i] = factory.createStringItem("language-" + l);
+                    this.right[i] = factory.createStringItem("language-" + r);
+                    break;
+                case "date":
+                    this.left[i] = factory.createDateItem(String.format("2013-%02d-%02d", 1 + l % 12, 1 + l % 28));
+                    this.right[i] = factory.createDateItem(String.format("2013-%02d-%02d", 1 + r % 12, 1 + r % 28));
+                    break;
+                default:
+                    throw new IllegalArgumentException(this.types);
+            }
+        }
+    }
+
+    @Benchmark
+    public long compareItems() {
+        long result = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            result += ComparisonIterator.compareItems(
+                this.left[i],
+                this.right[i],
+                ComparisonOperator.VC_LT,
+                ExceptionMetadata.EMPTY_METADATA
+            );
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rumbledb.api.Item;
+import org.rumbledb.items.ItemFactory;
+import sparksoniq.jsoniq.tuple.FlworKey;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Local group by: grouping tuples into a hash map by FlworKey, as GroupByClauseSparkIterator does, with the current
+ * hashing scheme and with the former one (string-built key hashes, doubles rounded to the nearest int).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupByKeyBenchmark {
+
+    @Param({ "current", "legacy" })
+    public String hashing;
+
+    @Param({ "double", "decimal-string" })
+    public String keys;
+
+    @Param({ "100000" })
+    public int tuples;
+
+    @Param({ "1000" })
+    public int groups;
+
+    private List<FlworKey> inputKeys;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ItemFactory factory = ItemFactory.getInstance();
+        this.inputKeys = new ArrayList<>(this.tuples);
+        for (int i = 0; i < this.tuples; ++i) {
+            int group = random.nextInt(this.groups);
+            List<Item> key;
+            if (this.keys.equals("double")) {
+                // 1.1, 1.2, ... all collided under the former scheme.
+                key = Arrays.asList(factory.createDoubleItem(1 + group / 10.0));
+            } else {
+                key = Arrays.asList(
+                    factory.createDecimalItem(BigDecimal.valueOf(group, 2)),
+                    factory.createStringItem("tenant-" + (group % 10))
+                );
+            }
+            this.inputKeys.add(this.hashing.equals("legacy") ? new LegacyFlworKey(key) : new FlworKey(key));
+        }
+    }
+
+    @Benchmark
+    public Map<FlworKey, List<FlworKey>> groupBy() {
+        Map<FlworKey, List<FlworKey>> groups = new HashMap<>();
+        for (FlworKey key : this.inputKeys) {
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    /**
+     * The former FlworKey hashing, kept for comparison.
+     */
+    private static class LegacyFlworKey extends FlworKey {
+
+        private final List<Item> items;
+
+        LegacyFlworKey(List<Item> contents) {
+            super(contents);
+            this.items = contents;
+        }
+
+        @Override
+        public int hashCode() {
+            StringBuilder result = new StringBuilder();
+            for (Item key : this.items) {
+                if (key.isDouble()) {
+                    result.append((int) Math.round(key.getDoubleValue()));
+                } else if (key.isDecimal()) {
+                    BigDecimal value = key.getDecimalValue();
+                    result.append(
+                        value.stripTrailingZeros().scale() == 0 ? value.intValue() : value.hashCode()
+                    );
+                } else {
+                    result.append(key.hashCode());
+                }
+            }
+            return result.toString().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return super.equals(other);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.items.ItemFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Item construction through ItemFactory: atomic items of the most common types, and objects built from keys and
+ * values as object constructors do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemConstructionBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final ItemFactory factory = ItemFactory.getInstance();
+    private String[] strings;
+    private BigDecimal[] decimals;
+    private List<String> keys;
+
+    @Setup
+    public void setUp() {
+        this.strings = new String[SIZE];
+        this.decimals = new BigDecimal[SIZE];
+        for (int i = 0; i < SIZE; ++i) {
+            this.strings[i] = "value-" + i;
+            this.decimals[i] = BigDecimal.valueOf(i, 2);
+        }
+        this.keys = Arrays.asList("guess", "target", "country", "sample", "date");
+    }
+
+    @Benchmark
+    public void createIntItems(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; ++i) {
+            blackhole.consume(this.factory.createIntItem(i));
+        }
+    }
+
+    @Benchmark
+    public void createDoubleItems(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; ++i) {
+            blackhole.consume(this.factory.createDoubleItem(i / 10.0));
+        }
+    }
+
+    @Benchmark
+    public void createDecimalItems(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; ++i) {
+            blackhole.consume(this.factory.createDecimalItem(this.decimals[i]));
+        }
+    }
+
+    @Benchmark
+    public void createStringItems(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; ++i) {
+            blackhole.consume(this.factory.createStringItem(this.strings[i]));
+        }
+    }
+
+    @Benchmark
+    public void createObjectItems(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; ++i) {
+            List<Item> values = new ArrayList<>(this.keys.size());
+            for (int j = 0; j < this.keys.size(); ++j) {
+                values.add(this.factory.createStringItem(this.strings[(i + j) % SIZE]));
+            }
+            blackhole.consume(this.factory.createObjectItem(this.keys, values, ExceptionMetadata.EMPTY_METADATA));
+        }
+    }
+}
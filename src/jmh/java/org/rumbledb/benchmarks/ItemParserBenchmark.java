@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.items.ObjectShapeCache;
+import org.rumbledb.items.parsing.JSONLinesParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON parsing one line at a time as json-file does, with ItemParser.getItemFromObject on decoded strings or with
+ * JSONLinesParser on the UTF-8 bytes, and with object shapes shared across the lines of a partition or not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemParserBenchmark {
+
+    @Param({ BenchmarkFixtures.CONFUSION, BenchmarkFixtures.REDDIT })
+    public String fixture;
+
+    @Param({ "shared", "per-line" })
+    public String shapes;
+
+    private List<String> lines;
+    private List<byte[]> lineBytes;
+
+    @Setup
+    public void setUp() {
+        this.lines = BenchmarkFixtures.readLines(this.fixture);
+        this.lineBytes = new ArrayList<>();
+        for (String line : this.lines) {
+            this.lineBytes.add(line.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void parseLines(Blackhole blackhole) {
+        ObjectShapeCache sharedShapes = new ObjectShapeCache();
+        boolean isShared = this.shapes.equals("shared");
+        for (String line : this.lines) {
+            blackhole.consume(BenchmarkFixtures.parse(line, isShared ? sharedShapes : new ObjectShapeCache()));
+        }
+    }
+
+    @Benchmark
+    public void parseLineBytes(Blackhole blackhole) {
+        JSONLinesParser sharedParser = new JSONLinesParser(ExceptionMetadata.EMPTY_METADATA);
+        boolean isShared = this.shapes.equals("shared");
+        for (byte[] line : this.lineBytes) {
+            JSONLinesParser parser = isShared ? sharedParser : new JSONLinesParser(ExceptionMetadata.EMPTY_METADATA);
+            blackhole.consume(parser.parse(line, 0, line.length));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Item;
+import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kryo round trips of FLWOR variable values, as stored in the binary columns of DataFrame tuples: each value is
+ * serialized with FlworDataFrameUtils.serializeItemList and read back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KryoSerializationBenchmark {
+
+    @Param({ BenchmarkFixtures.CONFUSION, BenchmarkFixtures.REDDIT })
+    public String fixture;
+
+    private List<List<Item>> values;
+    private List<byte[]> serializedValues;
+    private Kryo kryo;
+    private Output output;
+    private Input input;
+
+    @Setup
+    public void setUp() {
+        this.kryo = new Kryo();
+        this.kryo.setReferences(false);
+        FlworDataFrameUtils.registerKryoClassesKryo(this.kryo);
+        this.output = new Output(128, -1);
+        this.input = new Input();
+        this.values = new ArrayList<>();
+        this.serializedValues = new ArrayList<>();
+        for (Item item : BenchmarkFixtures.readItems(this.fixture)) {
+            List<Item> value = new ArrayList<>(Collections.singletonList(item));
+            this.values.add(value);
+            this.serializedValues.add(FlworDataFrameUtils.serializeItemList(value, this.kryo, this.output));
+        }
+    }
+
+    @Benchmark
+    public void serialize(Blackhole blackhole) {
+        for (List<Item> value : this.values) {
+            blackhole.consume(FlworDataFrameUtils.serializeItemList(value, this.kryo, this.output));
+        }
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole blackhole) {
+        for (byte[] bytes : this.serializedValues) {
+            this.input.setBuffer(bytes);
+            blackhole.consume(this.kryo.readClassAndObject(this.input));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.benchmarks;
+
+import org.apache.spark.SparkConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rumbledb.api.Rumble;
+import org.rumbledb.api.SequenceOfItems;
+import org.rumbledb.config.RumbleRuntimeConfiguration;
+import sparksoniq.spark.SparkSessionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end local FLWOR queries (for, let, where, group by, order by, count), from parsing to the last item, on a
+ * local[*] Spark session. The queries produce their input themselves and are small enough to be executed locally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocalFlworBenchmark {
+
+    private static final Map<String, String> queries = new HashMap<>();
+
+    static {
+        queries.put(
+            "where",
+            "for $i in 1 to 100000 let $o := { \"k\" : $i mod 100, \"v\" : $i } where $o.k eq 7 return $o.v"
+        );
+        queries.put(
+            "group-by",
+            "for $i in 1 to 100000 let $o := { \"k\" : $i mod 100, \"v\" : $i } "
+                + "group by $k := $o.k return { \"k\" : $k, \"count\" : count($o), \"sum\" : sum($o.v) }"
+        );
+        queries.put(
+            "order-by",
+            "for $i in 1 to 100000 let $k := ($i * 7919) mod 100003 order by $k descending return $k"
+        );
+        queries.put(
+            "order-by-count",
+            "for $i in 1 to 100000 let $k := ($i * 7919) mod 100003 order by $k descending "
+                + "count $c where $c le 10 return $k"
+        );
+    }
+
+    @Param({ "where", "group-by", "order-by", "order-by-count" })
+    public String query;
+
+    private Rumble rumble;
+
+    @Setup
+    public void setUp() {
+        SparkConf sparkConfiguration = new SparkConf();
+        sparkConfiguration.setMaster("local[*]");
+        sparkConfiguration.set("spark.submit.deployMode", "client");
+        sparkConfiguration.set("spark.driver.host", "127.0.0.1");
+        sparkConfiguration.set("spark.driver.bindAddress", "127.0.0.1");
+        sparkConfiguration.set("spark.ui.enabled", "false");
+        SparkSessionManager.getInstance().initializeConfigurationAndSession(sparkConfiguration, true);
+        this.rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+    }
+
+    @Benchmark
+    public void runQuery(Blackhole blackhole) {
+        SequenceOfItems result = this.rumble.runQuery(queries.get(this.query));
+        result.open();
+        while (result.hasNext()) {
+            blackhole.consume(result.next());
+        }
+        result.close();
+    }
+}
@@ -9,6 +9,8 @@ import org.rumbledb.config.RumbleRuntimeConfiguration;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.runtime.RuntimeIterator;
 
+import sparksoniq.spark.HotKeys;
+import sparksoniq.spark.PartitionStreamingIterator;
 import sparksoniq.spark.SparkSessionManager;
 
 /**
@@ -35,6 +37,7 @@ public class SequenceOfItems {
     private DynamicContext dynamicContext;
     private RumbleRuntimeConfiguration configuration;
     private boolean isOpen;
+    private PartitionStreamingIterator<Item> streamingIterator;
 
     public SequenceOfItems(
             RuntimeIterator iterator,
@@ -55,6 +58,25 @@ public class SequenceOfItems {
         this.isOpen = true;
     }
 
+    /**
+     * Opens the iterator in streaming mode. If the sequence is available as an RDD, its items are then fetched to the
+     * driver partition by partition as they are iterated over, rather than all collected when the first item is
+     * needed. Memory use on the driver is bounded by a few partitions, the first items are available as soon as the
+     * first partition is computed, and the number of items is not capped by the materialization cap. Sequences that
+     * are not available as an RDD are streamed anyway.
+     *
+     * @param numberOfPrefetchedPartitions how many partitions are computed in advance while iterating, at least 1.
+     */
+    public void openStreaming(int numberOfPrefetchedPartitions) {
+        if (!this.availableAsRDD()) {
+            this.open();
+            return;
+        }
+        JavaRDD<Item> rdd = this.iterator.getRDD(this.dynamicContext);
+        this.streamingIterator = new PartitionStreamingIterator<>(rdd, numberOfPrefetchedPartitions);
+        this.isOpen = true;
+    }
+
     /**
      * Checks whether the iterator is open.
      *
@@ -68,26 +90,69 @@ public class SequenceOfItems {
      * Closes the iterator.
      */
     public void close() {
-        this.iterator.close();
+        if (this.streamingIterator != null) {
+            this.streamingIterator.close();
+            this.streamingIterator = null;
+        } else {
+            this.iterator.close();
+        }
         this.isOpen = false;
     }
 
+    /**
+     * Releases what the query keeps on the cluster for its execution (e.g., persisted data sets), once its output is
+     * not needed anymore. RDDs and data frames previously obtained from this sequence remain valid, but may be
+     * recomputed if used again.
+     */
+    public void release() {
+        if (this.isOpen) {
+            this.close();
+        }
+        this.dynamicContext.getCacheManager().unpersistAll();
+    }
+
+    /**
+     * Returns how much storage (memory and disk) on the executors the query has used for persisted data sets so far,
+     * including those already released.
+     *
+     * @return the size in bytes.
+     */
+    public long getPinnedStorageSize() {
+        return this.dynamicContext.getCacheManager().getPinnedStorageSize();
+    }
+
+    /**
+     * Returns the hot keys detected so far in the joins and group by clauses of the query, if skew detection is
+     * activated (see --skew-salt-buckets).
+     *
+     * @return the hot keys, clause by clause.
+     */
+    public List<HotKeys> getHotKeys() {
+        return this.dynamicContext.getCacheManager().getHotKeys();
+    }
+
     /**
      * Checks whether there are more items.
      *
      * @return true if there are more items, false otherwise.
      */
     public boolean hasNext() {
+        if (this.streamingIterator != null) {
+            return this.streamingIterator.hasNext();
+        }
         return this.iterator.hasNext();
     }
 
     /**
-     * Returns the current item and moves on to the next one. The number of items the iterator can returned is capped by
-     * Spark's settings (collect-item-limit).
+     * Returns the current item and moves on to the next one. Unless the iterator was opened in streaming mode, the
+     * number of items the iterator can returned is capped by Spark's settings (collect-item-limit).
      *
      * @return the next item.
      */
     public Item next() {
+        if (this.streamingIterator != null) {
+            return this.streamingIterator.next();
+        }
         return this.iterator.next();
     }
 
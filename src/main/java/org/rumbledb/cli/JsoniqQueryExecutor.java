@@ -32,15 +32,18 @@ import org.rumbledb.exceptions.CliException;
 import org.rumbledb.exceptions.ExceptionMetadata;
 import org.rumbledb.optimizations.Profiler;
 import org.rumbledb.runtime.functions.input.FileSystemUtil;
+import org.rumbledb.serialization.ItemWriter;
+import org.rumbledb.serialization.Serializer;
 
 import sparksoniq.spark.SparkSessionManager;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 
 public class JsoniqQueryExecutor {
@@ -63,16 +66,27 @@ public class JsoniqQueryExecutor {
         }
     }
 
-    public List<Item> runQuery() throws IOException {
-        String queryFile = this.configuration.getQueryPath();
+    private SequenceOfItems runConfiguredQuery(Rumble rumble) throws IOException {
+        if (this.configuration.getQuery() != null) {
+            if (this.configuration.getQueryPath() != null) {
+                throw new CliException(
+                        "It is not possible to specify both a --query and a --query-path. It is either or."
+                );
+            }
+            return rumble.runQuery(this.configuration.getQuery());
+        }
         URI queryUri = null;
-        if (queryFile != null) {
+        if (this.configuration.getQueryPath() != null) {
             queryUri = FileSystemUtil.resolveURIAgainstWorkingDirectory(
-                queryFile,
+                this.configuration.getQueryPath(),
                 this.configuration,
                 ExceptionMetadata.EMPTY_METADATA
             );
         }
+        return rumble.runQuery(queryUri);
+    }
+
+    public void runQuery() throws IOException {
         String outputPath = this.configuration.getOutputPath();
         URI outputUri = null;
         if (outputPath != null) {
@@ -97,22 +111,32 @@ public class JsoniqQueryExecutor {
             }
         }
 
-        List<Item> outputList = null;
-
         long startTime = System.currentTimeMillis();
         Rumble rumble = new Rumble(this.configuration);
-        SequenceOfItems sequence = null;
-        if (this.configuration.getQuery() != null) {
-            if (this.configuration.getQueryPath() != null) {
-                throw new CliException(
-                        "It is not possible to specify both a --query and a --query-path. It is either or."
-                );
-            }
-            sequence = rumble.runQuery(this.configuration.getQuery());
-        } else {
-            sequence = rumble.runQuery(queryUri);
+        SequenceOfItems sequence = runConfiguredQuery(rumble);
+
+        try {
+            writeOutput(sequence, outputPath, outputUri);
+        } finally {
+            sequence.release();
+        }
+
+        long endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        if (logPath != null) {
+            String time = "[ExecTime] " + totalTime;
+            time += "\n[ProfilerCount] " + Profiler.get();
+            time += "\n[PinnedStorage] " + sequence.getPinnedStorageSize();
+            FileSystemUtil.append(
+                logUri,
+                Collections.singletonList(time),
+                this.configuration,
+                ExceptionMetadata.EMPTY_METADATA
+            );
         }
+    }
 
+    private void writeOutput(SequenceOfItems sequence, String outputPath, URI outputUri) throws IOException {
         if (
             !(this.configuration.getOutputFormat().equals("json")
                 || this.configuration.getOutputFormat().equals("tyson")
@@ -153,24 +177,37 @@ public class JsoniqQueryExecutor {
             }
         } else if (sequence.availableAsRDD() && outputPath != null) {
             JavaRDD<Item> rdd = sequence.getAsRDD();
-            RumbleRuntimeConfiguration configuration = this.configuration;
-            JavaRDD<String> outputRDD = rdd.map(o -> configuration.getSerializer().serialize(o));
+            Serializer serializer = this.configuration.getSerializer();
+            JavaRDD<String> outputRDD = rdd.mapPartitions(items -> serializeLines(items, serializer));
             if (this.configuration.getNumberOfOutputPartitions() > 0) {
                 outputRDD = outputRDD.repartition(this.configuration.getNumberOfOutputPartitions());
             }
 
             outputRDD.saveAsTextFile(outputPath);
         } else {
-            outputList = new ArrayList<>();
-            long materializationCount = sequence.populateListWithWarningOnlyIfCapReached(outputList);
-            RumbleRuntimeConfiguration configuration = this.configuration;
-            List<String> lines = outputList.stream()
-                .map(x -> configuration.getSerializer().serialize(x))
-                .collect(Collectors.toList());
+            long materializationCount;
             if (outputPath != null) {
-                FileSystemUtil.write(outputUri, lines, this.configuration, ExceptionMetadata.EMPTY_METADATA);
+                // the file is only created once the first items are computed, so that no file is left on errors.
+                ItemWriter[] writer = new ItemWriter[1];
+                materializationCount = writeItems(sequence, () -> {
+                    OutputStream outputStream = FileSystemUtil.create(
+                        outputUri,
+                        this.configuration,
+                        ExceptionMetadata.EMPTY_METADATA
+                    );
+                    writer[0] = this.configuration.getSerializer().createItemWriter(outputStream);
+                    return writer[0];
+                });
+                if (writer[0].getNumberOfItems() > 0) {
+                    writer[0].writeRaw("\n");
+                }
+                writer[0].close();
             } else {
-                System.out.println(String.join("\n", lines));
+                // System.out must stay open, so the writer is only flushed.
+                ItemWriter writer = this.configuration.getSerializer().createItemWriter(System.out);
+                materializationCount = writeItems(sequence, () -> writer);
+                writer.writeRaw("\n");
+                writer.flush();
             }
             if (materializationCount != -1) {
                 issueMaterializationWarning(materializationCount);
@@ -181,20 +218,67 @@ public class JsoniqQueryExecutor {
                 }
             }
         }
+    }
 
-        long endTime = System.currentTimeMillis();
-        long totalTime = endTime - startTime;
-        if (logPath != null) {
-            String time = "[ExecTime] " + totalTime;
-            time += "\n[ProfilerCount] " + Profiler.get();
-            FileSystemUtil.append(
-                logUri,
-                Collections.singletonList(time),
-                this.configuration,
-                ExceptionMetadata.EMPTY_METADATA
-            );
+    /**
+     * Opens the writer into which the output of a query is written, once the query has been compiled and its first
+     * items computed.
+     */
+    public interface OutputOpener {
+        ItemWriter open() throws IOException;
+    }
+
+    /**
+     * Writes the items of a sequence into a writer. An RDD is collected with a single job, up to the materialization
+     * cap, and its items are then serialized one by one into the writer. A local sequence is written as it is
+     * computed. In both cases, the writer is only opened once the first item is available.
+     *
+     * @return -1 if all items were written, or the number of items (Long.MAX_VALUE if not known) if the output was
+     *         capped at the materialization cap.
+     */
+    private long writeItems(SequenceOfItems sequence, OutputOpener output) throws IOException {
+        if (sequence.availableAsRDD()) {
+            List<Item> items = new ArrayList<>();
+            long materializationCount = sequence.populateListWithWarningOnlyIfCapReached(items);
+            ItemWriter writer = output.open();
+            for (Item item : items) {
+                writer.write(item);
+            }
+            return materializationCount;
+        }
+        int cap = this.configuration.getResultSizeCap();
+        sequence.open();
+        boolean hasNext = sequence.hasNext();
+        ItemWriter writer = output.open();
+        while (hasNext) {
+            if (cap > 0 && writer.getNumberOfItems() >= cap) {
+                return Long.MAX_VALUE;
+            }
+            writer.write(sequence.next());
+            hasNext = sequence.hasNext();
         }
-        return outputList;
+        return -1;
+    }
+
+    /**
+     * Serializes the items of a partition lazily, one per line, with a single serializer and buffer for the whole
+     * partition.
+     */
+    private static Iterator<String> serializeLines(Iterator<Item> items, Serializer serializer) {
+        StringBuilder buffer = new StringBuilder();
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public String next() {
+                buffer.setLength(0);
+                serializer.serialize(items.next(), buffer);
+                return buffer.toString();
+            }
+        };
     }
 
     public static void issueMaterializationWarning(long materializationCount) {
@@ -219,12 +303,42 @@ public class JsoniqQueryExecutor {
     public long runInteractive(String query, List<Item> resultList) throws IOException {
         Rumble rumble = new Rumble(this.configuration);
         SequenceOfItems sequence = rumble.runQuery(query);
-        if (!sequence.availableAsRDD()) {
-            return sequence.populateList(resultList);
+        try {
+            if (!sequence.availableAsRDD()) {
+                return sequence.populateList(resultList);
+            }
+            resultList.clear();
+            JavaRDD<Item> rdd = sequence.getAsRDD();
+            return SparkSessionManager.collectRDDwithLimitWarningOnly(rdd, resultList);
+        } finally {
+            sequence.release();
+        }
+    }
+
+    /**
+     * Runs the query given with --query or --query-path, or the given query, and writes its items into a writer. The
+     * writer is only opened once the query is compiled and its first items are computed, so that errors raised until
+     * then reach the caller before anything is written.
+     *
+     * @param query the query, or null for the query of the configuration.
+     * @param output opens the writer.
+     * @return -1 if all items were written, or the number of items (Long.MAX_VALUE if not known) if the output was
+     *         capped at the materialization cap.
+     * @throws IOException if the writer fails.
+     */
+    public long runStreaming(String query, OutputOpener output) throws IOException {
+        Rumble rumble = new Rumble(this.configuration);
+        SequenceOfItems sequence;
+        if (query == null) {
+            sequence = runConfiguredQuery(rumble);
+        } else {
+            sequence = rumble.runQuery(query);
+        }
+        try {
+            return writeItems(sequence, output);
+        } finally {
+            sequence.release();
         }
-        resultList.clear();
-        JavaRDD<Item> rdd = sequence.getAsRDD();
-        return SparkSessionManager.collectRDDwithLimitWarningOnly(rdd, resultList);
     }
 
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.compiler;
+
+import org.rumbledb.context.Name;
+import org.rumbledb.expressions.AbstractNodeVisitor;
+import org.rumbledb.expressions.Expression;
+import org.rumbledb.expressions.Node;
+import org.rumbledb.expressions.arithmetic.UnaryExpression;
+import org.rumbledb.expressions.comparison.ComparisonExpression;
+import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
+import org.rumbledb.expressions.flowr.Clause;
+import org.rumbledb.expressions.flowr.ForClause;
+import org.rumbledb.expressions.flowr.LetClause;
+import org.rumbledb.expressions.flowr.OrderByClause;
+import org.rumbledb.expressions.flowr.WhereClause;
+import org.rumbledb.expressions.logic.AndExpression;
+import org.rumbledb.expressions.logic.OrExpression;
+import org.rumbledb.expressions.primary.BooleanLiteralExpression;
+import org.rumbledb.expressions.primary.DecimalLiteralExpression;
+import org.rumbledb.expressions.primary.DoubleLiteralExpression;
+import org.rumbledb.expressions.primary.IntegerLiteralExpression;
+import org.rumbledb.expressions.primary.StringLiteralExpression;
+import org.rumbledb.expressions.typing.CastExpression;
+import org.rumbledb.runtime.functions.input.ColumnPredicate;
+import org.rumbledb.types.BuiltinTypesCatalogue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This visitor translates the where clauses that filter the variable of a for clause into column predicates, which
+ * can then be applied by the data source the for clause iterates over.
+ *
+ * Only comparisons between chains of object lookups on the variable and literals (or date literals such as
+ * date("2026-10-14")), combined with and and or, are translated. A conjunction with a part that cannot be translated
+ * is translated to its other part, which is still a necessary condition. The where clauses are kept, so the translated
+ * predicates only need to be necessary conditions.
+ */
+public class ColumnPredicateVisitor extends AbstractNodeVisitor<ColumnPredicate> {
+
+    // dates with a timezone are not translated, as Spark dates have none.
+    private static final Pattern datePattern = Pattern.compile("[0-9]{4}-[0-9]{2}-[0-9]{2}");
+
+    private final Name variableName;
+
+    private ColumnPredicateVisitor(Name variableName) {
+        this.variableName = variableName;
+    }
+
+    /**
+     * Collects the predicates of the where clauses that can filter the items of a for clause before they are bound.
+     * The search stops at the first clause after which the where clauses are no longer about the same tuples, i.e.,
+     * a group by, a count or a clause that rebinds the variable.
+     *
+     * @param forClause the for clause.
+     * @return the predicates, possibly none.
+     */
+    public static List<ColumnPredicate> getPredicates(ForClause forClause) {
+        List<ColumnPredicate> result = new ArrayList<>();
+        // filtering the items changes the positions and whether the sequence is empty.
+        if (forClause.getPositionalVariableName() != null || forClause.isAllowEmpty()) {
+            return result;
+        }
+        Name variableName = forClause.getVariableName();
+        ColumnPredicateVisitor visitor = new ColumnPredicateVisitor(variableName);
+        for (Clause clause = forClause.getNextClause(); clause != null; clause = clause.getNextClause()) {
+            if (clause instanceof WhereClause) {
+                ColumnPredicate predicate = visitor.visit(((WhereClause) clause).getWhereExpression(), null);
+                if (predicate != null) {
+                    result.add(predicate);
+                }
+            } else if (clause instanceof ForClause) {
+                ForClause otherForClause = (ForClause) clause;
+                if (
+                    variableName.equals(otherForClause.getVariableName())
+                        || variableName.equals(otherForClause.getPositionalVariableName())
+                ) {
+                    break;
+                }
+            } else if (clause instanceof LetClause) {
+                if (variableName.equals(((LetClause) clause).getVariableName())) {
+                    break;
+                }
+            } else if (!(clause instanceof OrderByClause)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected ColumnPredicate defaultAction(Node node, ColumnPredicate argument) {
+        return null;
+    }
+
+    @Override
+    public ColumnPredicate visitAndExpr(AndExpression expression, ColumnPredicate argument) {
+        ColumnPredicate left = visit(expression.getChildren().get(0), null);
+        ColumnPredicate right = visit(expression.getChildren().get(1), null);
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return ColumnPredicate.and(left, right);
+    }
+
+    @Override
+    public ColumnPredicate visitOrExpr(OrExpression expression, ColumnPredicate argument) {
+        ColumnPredicate left = visit(expression.getChildren().get(0), null);
+        ColumnPredicate right = visit(expression.getChildren().get(1), null);
+        if (left == null || right == null) {
+            return null;
+        }
+        return ColumnPredicate.or(left, right);
+    }
+
+    @Override
+    public ColumnPredicate visitComparisonExpr(ComparisonExpression expression, ColumnPredicate argument) {
+        Expression left = (Expression) expression.getChildren().get(0);
+        Expression right = (Expression) expression.getChildren().get(1);
+        ComparisonOperator operator = expression.getComparisonOperator();
+        List<String> path = ObjectProjectionVisitor.getLookupPath(left, this.variableName);
+        Object value = getLiteralValue(right);
+        if (path == null || value == null) {
+            // the literal may come first, in which case the comparison is mirrored.
+            path = ObjectProjectionVisitor.getLookupPath(right, this.variableName);
+            value = getLiteralValue(left);
+            operator = mirror(operator);
+        }
+        if (path == null || value == null) {
+            return null;
+        }
+        return ColumnPredicate.comparison(path, operator, value);
+    }
+
+    private static ComparisonOperator mirror(ComparisonOperator operator) {
+        switch (operator) {
+            case VC_LT:
+                return ComparisonOperator.VC_GT;
+            case VC_LE:
+                return ComparisonOperator.VC_GE;
+            case VC_GT:
+                return ComparisonOperator.VC_LT;
+            case VC_GE:
+                return ComparisonOperator.VC_LE;
+            case GC_LT:
+                return ComparisonOperator.GC_GT;
+            case GC_LE:
+                return ComparisonOperator.GC_GE;
+            case GC_GT:
+                return ComparisonOperator.GC_LT;
+            case GC_GE:
+                return ComparisonOperator.GC_LE;
+            default:
+                return operator;
+        }
+    }
+
+    private static Object getLiteralValue(Expression expression) {
+        if (expression instanceof StringLiteralExpression) {
+            return ((StringLiteralExpression) expression).getValue();
+        }
+        if (expression instanceof BooleanLiteralExpression) {
+            return ((BooleanLiteralExpression) expression).getValue();
+        }
+        if (expression instanceof IntegerLiteralExpression) {
+            return new BigDecimal(((IntegerLiteralExpression) expression).getLexicalValue());
+        }
+        if (expression instanceof DecimalLiteralExpression) {
+            return ((DecimalLiteralExpression) expression).getValue();
+        }
+        if (expression instanceof DoubleLiteralExpression) {
+            double value = ((DoubleLiteralExpression) expression).getValue();
+            // NaN is equal to itself in Spark, but not in JSONiq.
+            return Double.isNaN(value) ? null : value;
+        }
+        if (expression instanceof UnaryExpression) {
+            Object value = getLiteralValue(((UnaryExpression) expression).getMainExpression());
+            if (!((UnaryExpression) expression).isNegated()) {
+                return value instanceof BigDecimal || value instanceof Double ? value : null;
+            }
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).negate();
+            }
+            if (value instanceof Double) {
+                return -((Double) value);
+            }
+        }
+        if (
+            expression instanceof CastExpression
+                && ((CastExpression) expression).getSequenceType()
+                    .getItemType()
+                    .equals(BuiltinTypesCatalogue.dateItem)
+                && ((CastExpression) expression).getMainExpression() instanceof StringLiteralExpression
+        ) {
+            String lexicalValue = ((StringLiteralExpression) ((CastExpression) expression).getMainExpression())
+                .getValue();
+            if (!datePattern.matcher(lexicalValue).matches()) {
+                return null;
+            }
+            try {
+                return Date.valueOf(LocalDate.parse(lexicalValue));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -20,6 +20,7 @@
 
 package org.rumbledb.compiler;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -43,13 +44,17 @@ import org.rumbledb.expressions.flowr.ForClause;
 import org.rumbledb.expressions.flowr.GroupByClause;
 import org.rumbledb.expressions.flowr.LetClause;
 import org.rumbledb.expressions.flowr.ReturnClause;
+import org.rumbledb.expressions.flowr.SimpleMapExpression;
+import org.rumbledb.expressions.miscellaneous.RangeExpression;
 import org.rumbledb.expressions.module.FunctionDeclaration;
 import org.rumbledb.expressions.module.LibraryModule;
 import org.rumbledb.expressions.module.MainModule;
 import org.rumbledb.expressions.module.Prolog;
 import org.rumbledb.expressions.module.VariableDeclaration;
+import org.rumbledb.expressions.postfix.FilterExpression;
 import org.rumbledb.expressions.primary.FunctionCallExpression;
 import org.rumbledb.expressions.primary.InlineFunctionExpression;
+import org.rumbledb.expressions.primary.IntegerLiteralExpression;
 import org.rumbledb.expressions.primary.VariableReferenceExpression;
 import org.rumbledb.expressions.typing.ValidateTypeExpression;
 import org.rumbledb.types.SequenceType;
@@ -61,6 +66,9 @@ import org.rumbledb.types.SequenceType.Arity;
 public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
 
     private VisitorConfig visitorConfig;
+    // the number of enclosing function bodies, predicates and FLWOR clauses that may be evaluated on the executors,
+    // where no Spark job can be started.
+    private int executorScopeDepth;
 
     ExecutionModeVisitor() {
         this.visitorConfig = VisitorConfig.staticContextVisitorInitialPassConfig;
@@ -163,7 +171,9 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
             );
         populateFunctionDeclarationStaticContext(expression.getStaticContext(), modes, expression);
         // visit the body first to make its execution mode available while adding the function to the catalog
+        this.executorScopeDepth++;
         this.visit(expression.getBody(), expression.getStaticContext());
+        this.executorScopeDepth--;
         expression.initHighestExecutionMode(this.visitorConfig);
         declaration.initHighestExecutionMode(this.visitorConfig);
         expression.registerUserDefinedFunctionExecutionMode(
@@ -185,7 +195,9 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
                     )
             );
         // visit the body first to make its execution mode available while adding the function to the catalog
+        this.executorScopeDepth++;
         this.visit(expression.getBody(), expression.getBody().getStaticContext());
+        this.executorScopeDepth--;
         expression.initHighestExecutionMode(this.visitorConfig);
         expression.registerUserDefinedFunctionExecutionMode(
             this.visitorConfig
@@ -262,14 +274,20 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
     @Override
     public StaticContext visitFlowrExpression(FlworExpression expression, StaticContext argument) {
         Clause clause = expression.getReturnClause().getFirstClause();
+        int depth = this.executorScopeDepth;
         while (clause != null) {
             if (clause.getNextClause() != null) {
                 this.visit(clause, clause.getNextClause().getStaticContext());
             } else {
                 this.visit(clause, null);
             }
+            if (this.executorScopeDepth == depth && !clause.getHighestExecutionMode(this.visitorConfig).isLocal()) {
+                // the expressions of the next clauses are evaluated for each tuple, possibly on the executors.
+                this.executorScopeDepth++;
+            }
             clause = clause.getNextClause();
         }
+        this.executorScopeDepth = depth;
         if (expression.alwaysReturnsAtMostOneItem()) {
             expression.setHighestExecutionMode(ExecutionMode.LOCAL);
         } else {
@@ -284,6 +302,13 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
     @Override
     public StaticContext visitForClause(ForClause clause, StaticContext argument) {
         this.visit(clause.getExpression(), clause.getExpression().getStaticContext());
+        if (
+            this.executorScopeDepth == 0
+                && clause.getPreviousClause() == null
+                && isLargeRange(clause.getExpression())
+        ) {
+            clause.getExpression().setHighestExecutionMode(ExecutionMode.DATAFRAME);
+        }
         clause.initHighestExecutionMode(this.visitorConfig);
 
         argument.setVariableStorageMode(
@@ -300,6 +325,33 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
         return argument;
     }
 
+    /**
+     * Tells whether an expression is a range with literal bounds spanning at least as many integers as the configured
+     * threshold. A for clause starting a FLWOR over such a range is better executed in parallel, with the range
+     * generated on the executors, as long as the FLWOR itself is evaluated on the driver.
+     *
+     * @param expression the expression.
+     * @return true if it is a large range.
+     */
+    private static boolean isLargeRange(Expression expression) {
+        if (!(expression instanceof RangeExpression)) {
+            return false;
+        }
+        Node left = expression.getChildren().get(0);
+        Node right = expression.getChildren().get(1);
+        if (!(left instanceof IntegerLiteralExpression) || !(right instanceof IntegerLiteralExpression)) {
+            return false;
+        }
+        long threshold = expression.getStaticContext().getRumbleConfiguration().getParallelRangeThreshold();
+        if (threshold < 0) {
+            return false;
+        }
+        BigInteger size = new BigInteger(((IntegerLiteralExpression) right).getLexicalValue()).subtract(
+            new BigInteger(((IntegerLiteralExpression) left).getLexicalValue())
+        ).add(BigInteger.ONE);
+        return size.compareTo(BigInteger.valueOf(threshold)) >= 0;
+    }
+
     @Override
     public StaticContext visitLetClause(LetClause clause, StaticContext argument) {
         this.visit(clause.getExpression(), clause.getExpression().getStaticContext());
@@ -360,6 +412,37 @@ public class ExecutionModeVisitor extends AbstractNodeVisitor<StaticContext> {
 
     // endregion
 
+    @Override
+    public StaticContext visitFilterExpression(FilterExpression expression, StaticContext argument) {
+        this.visit(expression.getMainExpression(), argument);
+        boolean isParallel = !expression.getMainExpression().getHighestExecutionMode(this.visitorConfig).isLocal();
+        if (isParallel) {
+            this.executorScopeDepth++;
+        }
+        this.visit(expression.getPredicateExpression(), argument);
+        if (isParallel) {
+            this.executorScopeDepth--;
+        }
+        expression.initHighestExecutionMode(this.visitorConfig);
+        return argument;
+    }
+
+    @Override
+    public StaticContext visitSimpleMapExpr(SimpleMapExpression expression, StaticContext argument) {
+        Node left = expression.getChildren().get(0);
+        this.visit(left, argument);
+        boolean isParallel = !left.getHighestExecutionMode(this.visitorConfig).isLocal();
+        if (isParallel) {
+            this.executorScopeDepth++;
+        }
+        this.visit(expression.getChildren().get(1), argument);
+        if (isParallel) {
+            this.executorScopeDepth--;
+        }
+        expression.initHighestExecutionMode(this.visitorConfig);
+        return argument;
+    }
+
     // region control
     @Override
     public StaticContext visitTypeSwitchExpression(TypeSwitchExpression expression, StaticContext argument) {
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.compiler;
+
+import org.rumbledb.context.Name;
+import org.rumbledb.expressions.AbstractNodeVisitor;
+import org.rumbledb.expressions.Expression;
+import org.rumbledb.expressions.Node;
+import org.rumbledb.expressions.flowr.Clause;
+import org.rumbledb.expressions.flowr.FlworExpression;
+import org.rumbledb.expressions.flowr.ForClause;
+import org.rumbledb.expressions.flowr.GroupByClause;
+import org.rumbledb.expressions.flowr.GroupByVariableDeclaration;
+import org.rumbledb.expressions.postfix.ObjectLookupExpression;
+import org.rumbledb.expressions.primary.StringLiteralExpression;
+import org.rumbledb.expressions.primary.VariableReferenceExpression;
+import org.rumbledb.items.parsing.ObjectProjection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This visitor determines which parts of the objects bound to the variable of a for clause are used by the
+ * subsequent clauses, so that the objects can be projected while they are parsed.
+ *
+ * Only chains of object lookups with literal keys on the variable, such as $e.user.id, are understood. Any other use
+ * of the variable (returning it, passing it to a function, filtering it, grouping by it, etc.) means that the objects
+ * escape and are needed entirely, in which case there is no projection.
+ *
+ * Variables of nested expressions with the same name are not told apart from the for variable: their uses only make
+ * the projection larger, which is safe.
+ */
+public class ObjectProjectionVisitor extends AbstractNodeVisitor<Void> {
+
+    private final Name variableName;
+    private final ObjectProjection projection;
+    private boolean isEscaping;
+
+    private ObjectProjectionVisitor(Name variableName) {
+        this.variableName = variableName;
+        this.projection = new ObjectProjection();
+        this.isEscaping = false;
+    }
+
+    /**
+     * Computes the projection of the objects bound to the variable of a for clause.
+     *
+     * @param forClause the for clause.
+     * @return the projection, or null if the objects are needed entirely.
+     */
+    public static ObjectProjection getProjection(ForClause forClause) {
+        ObjectProjectionVisitor visitor = new ObjectProjectionVisitor(forClause.getVariableName());
+        for (Clause clause = forClause.getNextClause(); clause != null; clause = clause.getNextClause()) {
+            visitor.visit(clause, null);
+        }
+        return visitor.isEscaping ? null : visitor.projection;
+    }
+
+    @Override
+    protected Void defaultAction(Node node, Void argument) {
+        for (Node child : node.getChildren()) {
+            if (this.isEscaping) {
+                return null;
+            }
+            if (child != null) {
+                visit(child, null);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitFlowrExpression(FlworExpression expression, Void argument) {
+        // the children of a FLWOR expression only include its return clause.
+        for (
+            Clause clause = expression.getReturnClause().getFirstClause();
+            clause != null;
+            clause = clause.getNextClause()
+        ) {
+            visit(clause, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGroupByClause(GroupByClause clause, Void argument) {
+        for (GroupByVariableDeclaration variable : clause.getGroupVariables()) {
+            // grouping by an existing variable does not go through a variable reference.
+            if (variable.getExpression() == null && variable.getVariableName().equals(this.variableName)) {
+                this.isEscaping = true;
+                return null;
+            }
+        }
+        return defaultAction(clause, argument);
+    }
+
+    @Override
+    public Void visitVariableReference(VariableReferenceExpression expression, Void argument) {
+        if (expression.getVariableName().equals(this.variableName)) {
+            this.isEscaping = true;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitObjectLookupExpression(ObjectLookupExpression expression, Void argument) {
+        List<String> path = getLookupPath(expression, this.variableName);
+        if (path != null) {
+            this.projection.addPath(path);
+            return null;
+        }
+        return defaultAction(expression, argument);
+    }
+
+    /**
+     * Recognizes a chain of object lookups with literal keys on a variable, such as $e.user.id.
+     *
+     * @param expression the expression.
+     * @param variableName the name of the variable.
+     * @return the keys looked up, from the outermost object, or null if the expression is not such a chain.
+     */
+    static List<String> getLookupPath(Expression expression, Name variableName) {
+        List<String> path = new ArrayList<>();
+        Expression current = expression;
+        while (
+            current instanceof ObjectLookupExpression
+                && ((ObjectLookupExpression) current).getLookupExpression() instanceof StringLiteralExpression
+        ) {
+            ObjectLookupExpression lookup = (ObjectLookupExpression) current;
+            path.add(((StringLiteralExpression) lookup.getLookupExpression()).getValue());
+            current = lookup.getMainExpression();
+        }
+        if (
+            path.isEmpty()
+                || !(current instanceof VariableReferenceExpression)
+                || !((VariableReferenceExpression) current).getVariableName().equals(variableName)
+        ) {
+            return null;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -55,6 +55,7 @@ import org.rumbledb.expressions.flowr.GroupByClause;
 import org.rumbledb.expressions.flowr.LetClause;
 import org.rumbledb.expressions.flowr.OrderByClause;
 import org.rumbledb.expressions.flowr.OrderByClauseSortingKey;
+import org.rumbledb.expressions.flowr.ReturnClause;
 import org.rumbledb.expressions.flowr.WhereClause;
 import org.rumbledb.expressions.logic.AndExpression;
 import org.rumbledb.expressions.logic.NotExpression;
@@ -67,6 +68,7 @@ import org.rumbledb.expressions.typing.InstanceOfExpression;
 import org.rumbledb.expressions.typing.TreatExpression;
 import org.rumbledb.expressions.typing.ValidateTypeExpression;
 import org.rumbledb.items.ItemFactory;
+import org.rumbledb.items.parsing.ObjectProjection;
 import org.rumbledb.expressions.postfix.ArrayLookupExpression;
 import org.rumbledb.expressions.postfix.ArrayUnboxingExpression;
 import org.rumbledb.expressions.postfix.DynamicFunctionCallExpression;
@@ -112,6 +114,8 @@ import org.rumbledb.runtime.functions.DynamicFunctionCallIterator;
 import org.rumbledb.runtime.functions.FunctionRuntimeIterator;
 import org.rumbledb.runtime.functions.NamedFunctionRefRuntimeIterator;
 import org.rumbledb.runtime.functions.StaticUserDefinedFunctionCallIterator;
+import org.rumbledb.runtime.functions.input.DataFrameFileFunctionIterator;
+import org.rumbledb.runtime.functions.input.JsonFileFunctionIterator;
 import org.rumbledb.runtime.logics.AndOperationIterator;
 import org.rumbledb.runtime.logics.NotOperationIterator;
 import org.rumbledb.runtime.logics.OrOperationIterator;
@@ -142,6 +146,7 @@ import org.rumbledb.types.BuiltinTypesCatalogue;
 import org.rumbledb.types.SequenceType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -151,10 +156,15 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
 
     private VisitorConfig visitorConfig;
     private RumbleRuntimeConfiguration config;
+    // order by clauses of which only the first tuples are needed, with their number.
+    private Map<OrderByClause, Long> orderByLimits;
+    // Spark only accepts limits that fit in an int; larger cuts are not worth a top-K anyway.
+    private static final long MAX_ORDER_BY_LIMIT = Integer.MAX_VALUE;
 
     public RuntimeIteratorVisitor(RumbleRuntimeConfiguration config) {
         this.visitorConfig = VisitorConfig.runtimeIteratorVisitorConfig;
         this.config = config;
+        this.orderByLimits = new HashMap<>();
     }
 
     @Override
@@ -234,12 +244,28 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
         if (clause instanceof ForClause) {
             ForClause forClause = (ForClause) clause;
             RuntimeIterator assignmentIterator = this.visit(forClause.getExpression(), argument);
+            if (assignmentIterator instanceof JsonFileFunctionIterator) {
+                ((JsonFileFunctionIterator) assignmentIterator).setProjection(
+                    ObjectProjectionVisitor.getProjection(forClause)
+                );
+                ((JsonFileFunctionIterator) assignmentIterator).setPredicates(
+                    ColumnPredicateVisitor.getPredicates(forClause)
+                );
+            }
+            if (assignmentIterator instanceof DataFrameFileFunctionIterator) {
+                ObjectProjection projection = ObjectProjectionVisitor.getProjection(forClause);
+                ((DataFrameFileFunctionIterator) assignmentIterator).setScanPushdown(
+                    projection == null ? null : projection.getKeys(),
+                    ColumnPredicateVisitor.getPredicates(forClause)
+                );
+            }
             return new ForClauseSparkIterator(
                     previousIterator,
                     forClause.getVariableName(),
                     forClause.getPositionalVariableName(),
                     forClause.isAllowEmpty(),
                     assignmentIterator,
+                    forClause.getExpression().getStaticSequenceType(),
                     forClause.getHighestExecutionMode(this.visitorConfig),
                     clause.getMetadata()
             );
@@ -295,7 +321,8 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
                             this.visit(orderExpr.getExpression(), argument),
                             orderExpr.isAscending(),
                             orderExpr.getUri(),
-                            emptyOrder
+                            emptyOrder,
+                            orderExpr.getExpression().getStaticSequenceType()
                     )
                 );
             }
@@ -303,6 +330,7 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
                     previousIterator,
                     expressionsWithIterator,
                     ((OrderByClause) clause).isStable(),
+                    getOrderByLimit((OrderByClause) clause),
                     clause.getHighestExecutionMode(this.visitorConfig),
                     clause.getMetadata()
             );
@@ -324,6 +352,118 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
         throw new OurBadException("Clause unrecognized.");
     }
 
+    /**
+     * Returns how many leading tuples of an order by clause are needed, if they are followed by a positional cut:
+     * either a count clause with a where clause bounding the count, or a call to head() or subsequence() on the
+     * FLWOR expression (see registerPositionalCut).
+     *
+     * @param clause the order by clause.
+     * @return the number of leading tuples needed, or -1 if all of them are.
+     */
+    private long getOrderByLimit(OrderByClause clause) {
+        long limit = this.orderByLimits.getOrDefault(clause, -1L);
+        if (!(clause.getNextClause() instanceof CountClause)) {
+            return limit;
+        }
+        CountClause countClause = (CountClause) clause.getNextClause();
+        if (!(countClause.getNextClause() instanceof WhereClause)) {
+            return limit;
+        }
+        Expression condition = ((WhereClause) countClause.getNextClause()).getWhereExpression();
+        if (!(condition instanceof ComparisonExpression)) {
+            return limit;
+        }
+        ComparisonExpression comparison = (ComparisonExpression) condition;
+        Node left = comparison.getChildren().get(0);
+        Node right = comparison.getChildren().get(1);
+        if (
+            !(left instanceof VariableReferenceExpression)
+                || !((VariableReferenceExpression) left).getVariableName()
+                    .equals(countClause.getCountVariable().getVariableName())
+        ) {
+            return limit;
+        }
+        long bound = getIntegerLiteralValue(right);
+        switch (comparison.getComparisonOperator()) {
+            case VC_LT:
+            case GC_LT:
+                bound = bound - 1;
+                break;
+            case VC_LE:
+            case GC_LE:
+            case VC_EQ:
+            case GC_EQ:
+                break;
+            default:
+                return limit;
+        }
+        if (bound < 0 || bound > MAX_ORDER_BY_LIMIT) {
+            return limit;
+        }
+        return limit < 0 ? bound : Math.min(limit, bound);
+    }
+
+    /**
+     * Records that only the first items of a FLWOR expression ending with an order by clause are needed, if it is
+     * the argument of head(), or of subsequence() with literal positions.
+     *
+     * @param expression the function call.
+     */
+    private void registerPositionalCut(FunctionCallExpression expression) {
+        Name functionName = expression.getFunctionName();
+        List<Expression> arguments = expression.getArguments();
+        long limit;
+        if (functionName.equals(new Name(Name.FN_NS, "fn", "head")) && arguments.size() == 1) {
+            limit = 1;
+        } else if (functionName.equals(new Name(Name.FN_NS, "fn", "subsequence")) && arguments.size() == 3) {
+            long start = getIntegerLiteralValue(arguments.get(1));
+            long length = getIntegerLiteralValue(arguments.get(2));
+            if (start == -1 || length == -1) {
+                return;
+            }
+            limit = start + length - 1;
+            if (limit < 0 || limit > MAX_ORDER_BY_LIMIT) {
+                return;
+            }
+        } else {
+            return;
+        }
+        Expression sequence = arguments.get(0);
+        while (sequence instanceof CommaExpression && ((CommaExpression) sequence).getExpressions().size() == 1) {
+            sequence = ((CommaExpression) sequence).getExpressions().get(0);
+        }
+        if (!(sequence instanceof FlworExpression)) {
+            return;
+        }
+        ReturnClause returnClause = ((FlworExpression) sequence).getReturnClause();
+        if (!(returnClause.getPreviousClause() instanceof OrderByClause)) {
+            return;
+        }
+        // The first tuples only produce the first items if every tuple produces at least one item.
+        SequenceType returnType = returnClause.getReturnExpr().getStaticSequenceType();
+        if (returnType == null || !returnType.isAritySubtypeOf(SequenceType.Arity.OneOrMore)) {
+            return;
+        }
+        this.orderByLimits.put((OrderByClause) returnClause.getPreviousClause(), limit);
+    }
+
+    /**
+     * Returns the value of a non-negative integer literal.
+     *
+     * @param node the node.
+     * @return its value, or -1 if it is not a non-negative integer literal that fits in a long.
+     */
+    private static long getIntegerLiteralValue(Node node) {
+        if (!(node instanceof IntegerLiteralExpression)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(((IntegerLiteralExpression) node).getLexicalValue());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     @Override
     public RuntimeIterator visitVariableReference(VariableReferenceExpression expression, RuntimeIterator argument) {
         RuntimeIterator runtimeIterator = new VariableReferenceIterator(
@@ -513,6 +653,7 @@ public class RuntimeIteratorVisitor extends AbstractNodeVisitor<RuntimeIterator>
 
     @Override
     public RuntimeIterator visitFunctionCall(FunctionCallExpression expression, RuntimeIterator argument) {
+        registerPositionalCut(expression);
         List<RuntimeIterator> arguments = new ArrayList<>();
         ExceptionMetadata iteratorMetadata = expression.getMetadata();
         for (Expression arg : expression.getArguments()) {
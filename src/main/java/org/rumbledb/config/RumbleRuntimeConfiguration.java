@@ -67,6 +67,11 @@ public class RumbleRuntimeConfiguration implements Serializable, KryoSerializabl
     private boolean nativeSQLPredicates;
     private boolean dataFrameExecutionModeDetection;
     private boolean thirdFeature;
+    private long broadcastJoinThreshold;
+    private int skewSaltBuckets;
+    private double skewHotKeyFraction;
+    private long parallelRangeThreshold;
+    private String schemaCachePath;
 
     private Map<String, String> shortcutMap;
     private Set<String> yesNoShortcuts;
@@ -385,6 +390,36 @@ public class RumbleRuntimeConfiguration implements Serializable, KryoSerializabl
         } else {
             this.thirdFeature = true;
         }
+
+        if (this.arguments.containsKey("broadcast-join-threshold")) {
+            this.broadcastJoinThreshold = Long.parseLong(this.arguments.get("broadcast-join-threshold"));
+        } else {
+            this.broadcastJoinThreshold = 10 * 1024 * 1024;
+        }
+
+        if (this.arguments.containsKey("skew-salt-buckets")) {
+            this.skewSaltBuckets = Integer.parseInt(this.arguments.get("skew-salt-buckets"));
+        } else {
+            this.skewSaltBuckets = 0;
+        }
+
+        if (this.arguments.containsKey("skew-hot-key-fraction")) {
+            this.skewHotKeyFraction = Double.parseDouble(this.arguments.get("skew-hot-key-fraction"));
+        } else {
+            this.skewHotKeyFraction = 0.01;
+        }
+
+        if (this.arguments.containsKey("parallel-range-threshold")) {
+            this.parallelRangeThreshold = Long.parseLong(this.arguments.get("parallel-range-threshold"));
+        } else {
+            this.parallelRangeThreshold = 1000000;
+        }
+
+        if (this.arguments.containsKey("schema-cache-path")) {
+            this.schemaCachePath = this.arguments.get("schema-cache-path");
+        } else {
+            this.schemaCachePath = null;
+        }
     }
 
     public boolean getOverwrite() {
@@ -435,6 +470,75 @@ public class RumbleRuntimeConfiguration implements Serializable, KryoSerializabl
         return this.thirdFeature;
     }
 
+    /**
+     * Gets the estimated size, in bytes, up to which the right-hand side of a join is broadcast to all executors
+     * rather than shuffled together with the left-hand side. A negative value deactivates broadcast joins.
+     *
+     * @return the threshold in bytes.
+     */
+    public long getBroadcastJoinThreshold() {
+        return this.broadcastJoinThreshold;
+    }
+
+    public void setBroadcastJoinThreshold(long value) {
+        this.broadcastJoinThreshold = value;
+    }
+
+    /**
+     * Gets the number of buckets over which the tuples with a hot key are spread in equi-joins. A value below 2
+     * deactivates the detection of hot keys.
+     *
+     * @return the number of buckets.
+     */
+    public int getSkewSaltBuckets() {
+        return this.skewSaltBuckets;
+    }
+
+    public void setSkewSaltBuckets(int value) {
+        this.skewSaltBuckets = value;
+    }
+
+    /**
+     * Gets the minimum fraction of the tuples that must share a key for this key to be considered hot.
+     *
+     * @return the fraction, between 0 and 1.
+     */
+    public double getSkewHotKeyFraction() {
+        return this.skewHotKeyFraction;
+    }
+
+    public void setSkewHotKeyFraction(double value) {
+        this.skewHotKeyFraction = value;
+    }
+
+    /**
+     * Gets the number of integers from which a range with literal bounds, iterated over by the first for clause of a
+     * FLWOR expression, is generated in parallel. A negative value deactivates parallel ranges.
+     *
+     * @return the threshold.
+     */
+    public long getParallelRangeThreshold() {
+        return this.parallelRangeThreshold;
+    }
+
+    public void setParallelRangeThreshold(long value) {
+        this.parallelRangeThreshold = value;
+    }
+
+    /**
+     * Gets the directory in which the schemas inferred by structured-json-file() are kept across runs, keyed by the
+     * input and the modification times of its files.
+     *
+     * @return the directory, or null if the schemas are only kept in memory.
+     */
+    public String getSchemaCachePath() {
+        return this.schemaCachePath;
+    }
+
+    public void setSchemaCachePath(String path) {
+        this.schemaCachePath = path;
+    }
+
     public void setLogPath(String path) {
         this.logPath = path;
     }
@@ -673,7 +777,7 @@ public class RumbleRuntimeConfiguration implements Serializable, KryoSerializabl
         }
         String encoding = "UTF-8";
         if (options.containsKey("encoding")) {
-            itemSeparator = options.get("encoding");
+            encoding = options.get("encoding");
         }
         return new Serializer(
                 encoding,
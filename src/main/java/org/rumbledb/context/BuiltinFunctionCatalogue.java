@@ -367,6 +367,17 @@ public class BuiltinFunctionCatalogue {
         StructuredJsonFileFunctionIterator.class,
         BuiltinFunction.BuiltinFunctionExecutionMode.DATAFRAME
     );
+    /**
+     * function that parses a structured JSON lines file into a DataFrame, with options for the schema inference
+     */
+    static final BuiltinFunction structured_json_file2 = createBuiltinFunction(
+        new Name(Name.JN_NS, "jn", "structured-json-file"),
+        "string",
+        "object",
+        "item*",
+        StructuredJsonFileFunctionIterator.class,
+        BuiltinFunction.BuiltinFunctionExecutionMode.DATAFRAME
+    );
     /**
      * function that parses a libSVM formatted file into a DataFrame
      */
@@ -2551,6 +2562,7 @@ public class BuiltinFunctionCatalogue {
         builtinFunctions.put(json_file1.getIdentifier(), json_file1);
         builtinFunctions.put(json_file2.getIdentifier(), json_file2);
         builtinFunctions.put(structured_json_file.getIdentifier(), structured_json_file);
+        builtinFunctions.put(structured_json_file2.getIdentifier(), structured_json_file2);
         builtinFunctions.put(libsvm_file.getIdentifier(), libsvm_file);
         builtinFunctions.put(json_doc.getIdentifier(), json_doc);
         builtinFunctions.put(unparsed_text.getIdentifier(), unparsed_text);
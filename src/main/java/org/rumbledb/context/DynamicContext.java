@@ -30,6 +30,7 @@ import org.rumbledb.api.Item;
 import org.rumbledb.config.RumbleRuntimeConfiguration;
 import org.rumbledb.exceptions.OurBadException;
 import org.rumbledb.items.structured.JSoundDataFrame;
+import sparksoniq.spark.QueryCacheManager;
 
 import java.io.Serializable;
 import java.util.List;
@@ -44,6 +45,7 @@ public class DynamicContext implements Serializable, KryoSerializable {
     private NamedFunctions namedFunctions;
     private InScopeSchemaTypes inScopeSchemaTypes;
     private DateTime currentDateTime;
+    private transient QueryCacheManager cacheManager;
 
     /**
      * The default constructor is for Kryo deserialization purposes.
@@ -69,6 +71,7 @@ public class DynamicContext implements Serializable, KryoSerializable {
         this.namedFunctions = new NamedFunctions();
         this.inScopeSchemaTypes = new InScopeSchemaTypes();
         this.currentDateTime = new DateTime();
+        this.cacheManager = new QueryCacheManager();
     }
 
     public DynamicContext(DynamicContext parent) {
@@ -191,6 +194,25 @@ public class DynamicContext implements Serializable, KryoSerializable {
         throw new OurBadException("Known functions are not set up properly in dynamic context.");
     }
 
+    public void setCacheManager(QueryCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Returns the manager of the datasets persisted by the query being executed.
+     *
+     * @return the cache manager.
+     */
+    public QueryCacheManager getCacheManager() {
+        if (this.cacheManager != null) {
+            return this.cacheManager;
+        }
+        if (this.parent != null) {
+            return this.parent.getCacheManager();
+        }
+        throw new OurBadException("Cache manager is not set up properly in dynamic context.");
+    }
+
     public DynamicContext getModuleContext() {
         if (this.parent != null) {
             return this.parent.getModuleContext();
@@ -149,8 +149,7 @@ public class NamedFunctions implements Serializable, KryoSerializable {
     }
 
     public FunctionItem getUserDefinedFunction(FunctionIdentifier identifier) {
-        FunctionItem functionItem = this.userDefinedFunctions.get(identifier);
-        return functionItem.deepCopy();
+        return this.userDefinedFunctions.get(identifier);
     }
 
     public static RuntimeIterator getBuiltInFunctionIterator(
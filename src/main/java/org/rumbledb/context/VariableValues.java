@@ -105,6 +105,9 @@ public class VariableValues implements Serializable, KryoSerializable {
         for (Name key : tuple.getDataFrameKeys()) {
             this.addVariableValue(key, tuple.getDataFrameValue(key, metadata));
         }
+        for (Name key : tuple.getCountKeys()) {
+            this.addVariableCount(key, tuple.getCount(key, metadata));
+        }
     }
 
     public Set<Name> getLocalVariableNames() {
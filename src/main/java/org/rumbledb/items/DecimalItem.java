@@ -118,10 +118,7 @@ public class DecimalItem implements Item {
     }
 
     public int hashCode() {
-        if (getDecimalValue().stripTrailingZeros().scale() == 0) {
-            return getDecimalValue().intValue();
-        }
-        return getDecimalValue().hashCode();
+        return ItemHashing.hashDecimal(getDecimalValue());
     }
 
     @Override
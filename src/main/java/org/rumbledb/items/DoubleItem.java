@@ -162,7 +162,7 @@ public class DoubleItem implements Item {
     }
 
     public int hashCode() {
-        return (int) Math.round(getDoubleValue());
+        return ItemHashing.hashDouble(getDoubleValue());
     }
 
     @Override
@@ -155,7 +155,7 @@ public class FloatItem implements Item {
     }
 
     public int hashCode() {
-        return (int) Math.round(this.value);
+        return ItemHashing.hashDouble(this.value);
     }
 
     @Override
@@ -22,7 +22,6 @@ package org.rumbledb.items;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
@@ -39,7 +38,6 @@ import org.rumbledb.context.FunctionIdentifier;
 import org.rumbledb.context.Name;
 import org.rumbledb.exceptions.ExceptionMetadata;
 import org.rumbledb.exceptions.OurBadException;
-import org.rumbledb.exceptions.RumbleException;
 import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.types.BuiltinTypesCatalogue;
@@ -286,23 +284,24 @@ public class FunctionItem implements Item {
         return BuiltinTypesCatalogue.anyFunctionItem;
     }
 
-    public FunctionItem deepCopy() {
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos);
-            oos.writeObject(this);
-            oos.flush();
-            byte[] data = bos.toByteArray();
-            ByteArrayInputStream bis = new ByteArrayInputStream(data);
-            ObjectInputStream ois = new ObjectInputStream(bis);
-            return (FunctionItem) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            RumbleException rumbleException = new OurBadException(
-                    "Error while deep copying the function body runtimeIterator"
-            );
-            rumbleException.initCause(e);
-            throw rumbleException;
-        }
+    /**
+     * Returns a copy of this function item with its own closure, which can then be populated without affecting this
+     * item. The body iterator is shared, as calls never execute it but copies of it (see
+     * {@link org.rumbledb.runtime.functions.FunctionBodyPool}).
+     *
+     * @return the copy.
+     */
+    public FunctionItem shallowCopy() {
+        return new FunctionItem(
+                this.identifier,
+                this.parameterNames,
+                this.signature,
+                this.dynamicModuleContext,
+                this.bodyIterator,
+                new HashMap<>(this.localVariablesInClosure),
+                new HashMap<>(this.RDDVariablesInClosure),
+                new HashMap<>(this.dataFrameVariablesInClosure)
+        );
     }
 
     public void populateClosureFromDynamicContext(DynamicContext dynamicContext, ExceptionMetadata metadata) {
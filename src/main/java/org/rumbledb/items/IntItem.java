@@ -139,7 +139,7 @@ public class IntItem implements Item {
     }
 
     public int hashCode() {
-        return getIntValue();
+        return ItemHashing.hashLong(getIntValue());
     }
 
     @Override
@@ -128,7 +128,7 @@ public class IntegerItem implements Item {
     }
 
     public int hashCode() {
-        return this.value.hashCode();
+        return ItemHashing.hashInteger(this.value);
     }
 
     @Override
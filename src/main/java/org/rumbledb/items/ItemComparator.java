@@ -56,7 +56,33 @@ public class ItemComparator implements Comparator<Item>, Serializable {
      * @return -1 if v1 &lt; v2; 0 if v1 == v2; 1 if v1 &gt; v2;
      */
     public int compare(Item v1, Item v2) {
-        if (this.compareMin) {
+        try {
+            return compare(v1, v2, this.compareMin);
+        } catch (RumbleException e) {
+            this.exception.initCause(e);
+            throw this.exception;
+        }
+    }
+
+    /**
+     * Compares 2 atomic items like {@link #compare(Item, Item)}, but without throwing an exception, so that
+     * aggregations computing several statistics at once can tell which of them are defined.
+     *
+     * @param v1 the first item.
+     * @param v2 the second item.
+     * @param compareMin whether NaN compares less than any other number (for min()).
+     * @return -1 if v1 &lt; v2; 0 if v1 == v2; 1 if v1 &gt; v2; null if they cannot be compared.
+     */
+    public static Integer tryCompare(Item v1, Item v2, boolean compareMin) {
+        try {
+            return compare(v1, v2, compareMin);
+        } catch (RumbleException e) {
+            return null;
+        }
+    }
+
+    private static int compare(Item v1, Item v2, boolean compareMin) {
+        if (compareMin) {
             if (
                 v2.isNumeric()
                     &&
@@ -74,30 +100,25 @@ public class ItemComparator implements Comparator<Item>, Serializable {
                 return 1;
             }
         }
-        try {
-            long comparison = ComparisonIterator.compareItems(
-                v1,
-                v2,
-                ComparisonExpression.ComparisonOperator.VC_LT,
-                ExceptionMetadata.EMPTY_METADATA
-            );
-            if (comparison == Long.MIN_VALUE) {
+        long comparison = ComparisonIterator.compareItems(
+            v1,
+            v2,
+            ComparisonExpression.ComparisonOperator.VC_LT,
+            ExceptionMetadata.EMPTY_METADATA
+        );
+        if (comparison == Long.MIN_VALUE) {
 
-                throw new UnexpectedTypeException(
-                        " \""
-                            + ComparisonExpression.ComparisonOperator.VC_LT
-                            + "\": operation not possible with parameters of type \""
-                            + v1.getDynamicType().toString()
-                            + "\" and \""
-                            + v2.getDynamicType().toString()
-                            + "\"",
-                        ExceptionMetadata.EMPTY_METADATA
-                );
-            }
-            return (int) comparison;
-        } catch (RumbleException e) {
-            this.exception.initCause(e);
-            throw this.exception;
+            throw new UnexpectedTypeException(
+                    " \""
+                        + ComparisonExpression.ComparisonOperator.VC_LT
+                        + "\": operation not possible with parameters of type \""
+                        + v1.getDynamicType().toString()
+                        + "\" and \""
+                        + v2.getDynamicType().toString()
+                        + "\"",
+                    ExceptionMetadata.EMPTY_METADATA
+            );
         }
+        return (int) comparison;
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items;
+
+import org.joda.time.Instant;
+import org.rumbledb.api.Item;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Hash codes for numeric items that are consistent with value comparison (eq) across int, integer, decimal, float
+ * and double: numbers that compare equal get the same hash code, regardless of their type.
+ *
+ * Integral values that are exactly representable as a double are hashed as longs; all other values are hashed as
+ * the double they are promoted to when compared with a double.
+ */
+public class ItemHashing {
+
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    private static final double MAX_EXACT_DOUBLE = MAX_EXACT_LONG;
+
+    public static int hashLong(long value) {
+        if (value >= -MAX_EXACT_LONG && value <= MAX_EXACT_LONG) {
+            return Long.hashCode(value);
+        }
+        return hashDouble(value);
+    }
+
+    public static int hashDouble(double value) {
+        // Also covers -0.0, which is hashed like 0. NaN and infinities are not integral.
+        if (value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_DOUBLE) {
+            return Long.hashCode((long) value);
+        }
+        return Double.hashCode(value);
+    }
+
+    public static int hashInteger(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return hashLong(value.longValue());
+        }
+        return hashDouble(value.doubleValue());
+    }
+
+    public static int hashDecimal(BigDecimal value) {
+        if (value.scale() <= 0 && value.precision() - value.scale() < 19) {
+            return hashLong(value.longValue());
+        }
+        return hashDouble(value.doubleValue());
+    }
+
+    /**
+     * Tells whether an atomic item can be looked up in a hash table together with items of other types: its hash code
+     * is then the same as that of every item it is equal to.
+     *
+     * This excludes floats (compared with other numbers after rounding these to a float), URIs (equal to strings),
+     * durations and date/time values (compared as lengths of time or instants, regardless of how they were written),
+     * as well as non-atomic items.
+     *
+     * @param item the item.
+     * @return true if the item can be hashed consistently with eq.
+     */
+    public static boolean isHashConsistent(Item item) {
+        if (item.isNumeric()) {
+            return !item.isFloat();
+        }
+        return item.isString()
+            || item.isBoolean()
+            || item.isNull()
+            || item.isHexBinary()
+            || item.isBase64Binary();
+    }
+
+    /**
+     * Tells whether an item has lookup keys (see {@link #getLookupKey} and {@link #getFloatLookupKey}), which are
+     * only defined for atomic items.
+     *
+     * @param item the item.
+     * @return true if the item can be looked up by key.
+     */
+    public static boolean hasLookupKey(Item item) {
+        return isHashConsistent(item)
+            || item.isFloat()
+            || item.isAnyURI()
+            || item.isDuration()
+            || isDateOrTime(item);
+    }
+
+    /**
+     * Returns the key under which an atomic item is looked up among the items it may be equal to (eq). Two equal
+     * items get the same key, unless one of them is a float and the other one a decimal, an integer or an int, which
+     * are compared after rounding them to a float: these two share their float key instead.
+     *
+     * URIs are keyed like the strings they are equal to, date/time values by their instant (they are only compared
+     * with values of the same type), and durations by their length from the given instant.
+     *
+     * @param item the item, for which {@link #hasLookupKey} must be true.
+     * @param reference the instant from which the length of durations is measured.
+     * @return the key.
+     */
+    public static int getLookupKey(Item item, Instant reference) {
+        if (item.isAnyURI()) {
+            return item.getStringValue().hashCode();
+        }
+        if (item.isDuration()) {
+            return Long.hashCode(item.getDurationValue().toDurationFrom(reference).getMillis());
+        }
+        if (isDateOrTime(item)) {
+            return Long.hashCode(item.getDateTimeValue().getMillis());
+        }
+        // floats are hashed as the double they are promoted to, like doubles.
+        return item.hashCode();
+    }
+
+    /**
+     * Tells whether an item also has a float key, i.e., whether it is a decimal, an integer or an int.
+     *
+     * @param item the item.
+     * @return true if the item can be equal to a float with a different key.
+     */
+    public static boolean hasFloatLookupKey(Item item) {
+        return item.isNumeric() && !item.isFloat() && !item.isDouble();
+    }
+
+    /**
+     * Returns the key of a decimal, integer or int under which the floats it is equal to are found, i.e., the key of
+     * the float it is rounded to.
+     *
+     * @param item the item, for which {@link #hasFloatLookupKey} must be true.
+     * @return the key.
+     */
+    public static int getFloatLookupKey(Item item) {
+        return hashDouble(item.castToFloatValue());
+    }
+
+    private static boolean isDateOrTime(Item item) {
+        return item.isDateTime()
+            || item.isDate()
+            || item.isTime()
+            || item.isGDay()
+            || item.isGMonth()
+            || item.isGYear()
+            || item.isGMonthDay()
+            || item.isGYearMonth();
+    }
+
+    /**
+     * Combines the hash code of a composite value with the hash code of its next component.
+     *
+     * @param hash the hash code so far.
+     * @param next the hash code of the next component.
+     * @return the combined hash code.
+     */
+    public static int combine(int hash, int next) {
+        return 31 * hash + next;
+    }
+
+    /**
+     * Spreads the bits of a hash code (MurmurHash3 finalizer), for use in tables that only look at the low bits.
+     *
+     * @param hash the hash code.
+     * @return the mixed hash code.
+     */
+    public static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
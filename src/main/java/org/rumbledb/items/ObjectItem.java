@@ -24,12 +24,11 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import org.rumbledb.api.Item;
-import org.rumbledb.exceptions.DuplicateObjectKeyException;
 import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.OurBadException;
 import org.rumbledb.types.BuiltinTypesCatalogue;
 import org.rumbledb.types.ItemType;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,19 +36,37 @@ public class ObjectItem implements Item {
 
 
     private static final long serialVersionUID = 1L;
+    // Objects deserialized by the same thread (e.g., within a UDF) share their shapes.
+    private static final ThreadLocal<ObjectShapeCache> deserializedShapes = ThreadLocal.withInitial(
+        ObjectShapeCache::new
+    );
+    private ObjectShape shape;
     private List<Item> values;
-    private List<String> keys;
 
     public ObjectItem() {
         super();
-        this.keys = new ArrayList<>();
+        this.shape = ObjectShape.EMPTY;
         this.values = new ArrayList<>();
     }
 
     public ObjectItem(List<String> keys, List<Item> values, ExceptionMetadata itemMetadata) {
         super();
-        checkForDuplicateKeys(keys, itemMetadata);
-        this.keys = keys;
+        this.shape = ObjectShape.of(keys, itemMetadata);
+        this.values = values;
+    }
+
+    /**
+     * ObjectItem constructor from a (possibly shared) shape and the values in the order of its keys.
+     *
+     * @param shape the shape of the object.
+     * @param values the values, one per key of the shape.
+     */
+    public ObjectItem(ObjectShape shape, List<Item> values) {
+        super();
+        if (shape.size() != values.size()) {
+            throw new OurBadException("Object shape and values have different sizes.");
+        }
+        this.shape = shape;
         this.values = values;
     }
 
@@ -111,13 +128,13 @@ public class ObjectItem implements Item {
             }
         }
 
-        this.keys = keyList;
+        this.shape = ObjectShape.of(keyList, ExceptionMetadata.EMPTY_METADATA);
         this.values = valueList;
     }
 
     @Override
     public List<String> getKeys() {
-        return this.keys;
+        return this.shape.getKeys();
     }
 
     @Override
@@ -125,31 +142,27 @@ public class ObjectItem implements Item {
         return this.values;
     }
 
-    private void checkForDuplicateKeys(List<String> keys, ExceptionMetadata metadata) {
-        HashMap<String, Integer> frequencies = new HashMap<>();
-        for (String key : keys) {
-            if (frequencies.containsKey(key)) {
-                throw new DuplicateObjectKeyException(key, metadata);
-            } else {
-                frequencies.put(key, 1);
-            }
-        }
+    public ObjectShape getShape() {
+        return this.shape;
     }
 
     @Override
     public Item getItemByKey(String s) {
-        if (this.keys.contains(s)) {
-            return this.values.get(this.keys.indexOf(s));
-        } else {
+        int slot = this.shape.getSlot(s);
+        if (slot == -1) {
             return null;
         }
+        return this.values.get(slot);
     }
 
     @Override
     public void putItemByKey(String s, Item value) {
-        this.keys.add(s);
+        if (!this.shape.isPrivate()) {
+            this.shape = this.shape.privateCopy();
+            this.values = new ArrayList<>(this.values);
+        }
+        this.shape.appendKey(s, ExceptionMetadata.EMPTY_METADATA);
         this.values.add(value);
-        checkForDuplicateKeys(this.keys, ExceptionMetadata.EMPTY_METADATA);
     }
 
     @Override
@@ -159,22 +172,31 @@ public class ObjectItem implements Item {
 
     @Override
     public void write(Kryo kryo, Output output) {
-        kryo.writeObject(output, this.keys);
-        kryo.writeObject(output, this.values);
+        List<String> keys = this.shape.getKeys();
+        output.writeInt(keys.size(), true);
+        for (int i = 0; i < keys.size(); ++i) {
+            output.writeString(keys.get(i));
+            kryo.writeClassAndObject(output, this.values.get(i));
+        }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void read(Kryo kryo, Input input) {
-        this.keys = kryo.readObject(input, ArrayList.class);
-        this.values = kryo.readObject(input, ArrayList.class);
+        int size = input.readInt(true);
+        List<String> keys = new ArrayList<>(size);
+        this.values = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            keys.add(input.readString());
+            this.values.add((Item) kryo.readClassAndObject(input));
+        }
+        this.shape = deserializedShapes.get().getShape(keys, ExceptionMetadata.EMPTY_METADATA);
     }
 
     public int hashCode() {
         int result = 0;
-        result += getKeys().size();
-        for (String s : getKeys()) {
-            result += getItemByKey(s).hashCode();
+        result += this.values.size();
+        for (Item value : this.values) {
+            result += value.hashCode();
         }
         return result;
     }
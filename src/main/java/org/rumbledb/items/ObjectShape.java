@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items;
+
+import org.rumbledb.exceptions.DuplicateObjectKeyException;
+import org.rumbledb.exceptions.ExceptionMetadata;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shape of an object: its ordered list of keys together with a key-to-slot table.
+ *
+ * A shape obtained with {@link #of(List, ExceptionMetadata)} is immutable and can be shared by any number of
+ * objects that have the same keys in the same order, each of which then only stores its values.
+ * An object that gets new keys appended takes a private, growable copy of its shape first.
+ */
+public class ObjectShape implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    public static final ObjectShape EMPTY = new ObjectShape(Collections.emptyList(), Collections.emptyMap(), false);
+
+    private final List<String> keys;
+    private final Map<String, Integer> slots;
+    private final boolean isPrivate;
+
+    private ObjectShape(List<String> keys, Map<String, Integer> slots, boolean isPrivate) {
+        this.keys = keys;
+        this.slots = slots;
+        this.isPrivate = isPrivate;
+    }
+
+    /**
+     * Builds an immutable shape for the given keys.
+     *
+     * @param keys the keys, in order.
+     * @param metadata exception metadata if there are duplicate keys.
+     * @return the shape.
+     */
+    public static ObjectShape of(List<String> keys, ExceptionMetadata metadata) {
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Integer> slots = new HashMap<>(keys.size() * 2);
+        int slot = 0;
+        for (String key : keys) {
+            if (slots.put(key, slot++) != null) {
+                throw new DuplicateObjectKeyException(key, metadata);
+            }
+        }
+        return new ObjectShape(Collections.unmodifiableList(new ArrayList<>(keys)), slots, false);
+    }
+
+    /**
+     * Returns the slot at which the value associated with a key is stored.
+     *
+     * @param key the key.
+     * @return the slot, or -1 if the key is absent.
+     */
+    public int getSlot(String key) {
+        Integer slot = this.slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    public List<String> getKeys() {
+        return this.keys;
+    }
+
+    public int size() {
+        return this.keys.size();
+    }
+
+    boolean isPrivate() {
+        return this.isPrivate;
+    }
+
+    /**
+     * Returns a growable copy of this shape, to be owned by a single object.
+     *
+     * @return the private copy.
+     */
+    ObjectShape privateCopy() {
+        return new ObjectShape(new ArrayList<>(this.keys), new HashMap<>(this.slots), true);
+    }
+
+    /**
+     * Appends a key to a private shape.
+     *
+     * @param key the new key.
+     * @param metadata exception metadata if the key already exists.
+     */
+    void appendKey(String key, ExceptionMetadata metadata) {
+        if (!this.isPrivate) {
+            throw new UnsupportedOperationException("Shared object shapes are immutable.");
+        }
+        if (this.slots.containsKey(key)) {
+            throw new DuplicateObjectKeyException(key, metadata);
+        }
+        this.slots.put(key, this.keys.size());
+        this.keys.add(key);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ObjectShape)) {
+            return false;
+        }
+        return this.keys.equals(((ObjectShape) other).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.keys.hashCode();
+    }
+}
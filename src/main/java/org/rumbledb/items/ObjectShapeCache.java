@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items;
+
+import org.rumbledb.exceptions.ExceptionMetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns object shapes so that objects parsed from the same source with the same keys share a single shape.
+ *
+ * A cache is meant to be used by a single parser (e.g., one per partition) and is not thread-safe. It stops
+ * accepting new shapes once it is full, so that heterogeneous inputs do not make it grow without bounds.
+ */
+public class ObjectShapeCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<List<String>, ObjectShape> shapes;
+    private final int capacity;
+
+    public ObjectShapeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ObjectShapeCache(int capacity) {
+        this.shapes = new HashMap<>();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the interned shape for the given keys, creating it if needed.
+     *
+     * @param keys the keys, in order. The list is not retained.
+     * @param metadata exception metadata if there are duplicate keys.
+     * @return the shape.
+     */
+    public ObjectShape getShape(List<String> keys, ExceptionMetadata metadata) {
+        ObjectShape shape = this.shapes.get(keys);
+        if (shape != null) {
+            return shape;
+        }
+        shape = ObjectShape.of(keys, metadata);
+        if (this.shapes.size() < this.capacity) {
+            this.shapes.put(shape.getKeys(), shape);
+        }
+        return shape;
+    }
+
+    public int size() {
+        return this.shapes.size();
+    }
+}
@@ -40,6 +40,7 @@ import org.rumbledb.exceptions.OurBadException;
 import org.rumbledb.exceptions.ParsingException;
 import org.rumbledb.exceptions.RumbleException;
 import org.rumbledb.items.ItemFactory;
+import org.rumbledb.items.ObjectShapeCache;
 
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -92,6 +93,19 @@ public class ItemParser implements Serializable {
      * @return the parsed item.
      */
     public static Item getItemFromObject(JsonReader object, ExceptionMetadata metadata) {
+        return getItemFromObject(object, metadata, new ObjectShapeCache());
+    }
+
+    /**
+     * Parses a JSON string, accessible via a reader, to an item. Objects with the same keys share their shape
+     * through the supplied cache, which can be reused across several values of the same source.
+     *
+     * @param object the JSON reader.
+     * @param metadata exception metadata is an error is thrown.
+     * @param shapes the cache of object shapes.
+     * @return the parsed item.
+     */
+    public static Item getItemFromObject(JsonReader object, ExceptionMetadata metadata, ObjectShapeCache shapes) {
         try {
             if (object.peek() == JsonToken.STRING) {
                 return ItemFactory.getInstance().createStringItem(object.nextString());
@@ -113,7 +127,7 @@ public class ItemParser implements Serializable {
                 List<Item> values = new ArrayList<>();
                 object.beginArray();
                 while (object.hasNext()) {
-                    values.add(getItemFromObject(object, metadata));
+                    values.add(getItemFromObject(object, metadata, shapes));
                 }
                 object.endArray();
                 return ItemFactory.getInstance().createArrayItem(values);
@@ -124,11 +138,11 @@ public class ItemParser implements Serializable {
                 object.beginObject();
                 while (object.hasNext()) {
                     keys.add(object.nextName());
-                    values.add(getItemFromObject(object, metadata));
+                    values.add(getItemFromObject(object, metadata, shapes));
                 }
                 object.endObject();
                 return ItemFactory.getInstance()
-                    .createObjectItem(keys, values, metadata);
+                    .createObjectItem(shapes.getShape(keys, metadata), values);
             }
             if (object.peek() == JsonToken.NULL) {
                 object.nextNull();
@@ -311,14 +325,25 @@ public class ItemParser implements Serializable {
                 return ItemFactory.getInstance().createAnnotatedItem(item, itemType);
             }
         } else if (fieldType.equals(DataTypes.LongType)) {
-            BigDecimal value;
+            long value;
             if (row != null) {
-                value = new BigDecimal(row.getLong(i));
+                value = row.getLong(i);
             } else {
-                value = new BigDecimal((Long) o);
+                value = (Long) o;
+            }
+            if (itemType != null && itemType.isSubtypeOf(BuiltinTypesCatalogue.integerItem)) {
+                // columns known to contain integers, e.g., generated ranges, are read back as integers.
+                Item item = ItemFactory.getInstance().createLongItem(value);
+                if (
+                    itemType.equals(BuiltinTypesCatalogue.integerItem)
+                        || itemType.equals(item.getDynamicType())
+                ) {
+                    return item;
+                }
+                return ItemFactory.getInstance().createAnnotatedItem(item, itemType);
             }
-            Item item = ItemFactory.getInstance().createDecimalItem(value);
-            if (itemType == null || itemType.equals(BuiltinTypesCatalogue.longItem)) {
+            Item item = ItemFactory.getInstance().createDecimalItem(new BigDecimal(value));
+            if (itemType == null) {
                 return item;
             } else {
                 return ItemFactory.getInstance().createAnnotatedItem(item, itemType);
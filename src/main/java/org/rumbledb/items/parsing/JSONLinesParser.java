@@ -0,0 +1,622 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items.parsing;
+
+import org.rumbledb.api.Item;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.ParsingException;
+import org.rumbledb.exceptions.RumbleException;
+import org.rumbledb.items.ItemFactory;
+import org.rumbledb.items.ObjectShapeCache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses JSON values directly from their UTF-8 bytes into items, one line of a JSON Lines input at a time, without
+ * decoding the lines to strings first.
+ *
+ * A parser is meant to parse all the lines of a partition. Object keys and object shapes are interned across lines,
+ * so that the objects of a homogeneous input share them, and the internal buffers are reused from line to line.
+ * Numbers are parsed from their digits, and only fall back to their lexical representation if they do not fit into
+ * a long or a double cannot be computed exactly from their digits. A parser is not thread-safe.
+ *
+ * If a projection is given, the values of the keys outside of the projection are skipped at the byte level without
+ * creating any items. Skipped values are only checked to be balanced, not to be well-formed.
+ *
+ * Additional fields, e.g., the values of the partition columns of the file being read, can be added to all top-level
+ * objects.
+ */
+public class JSONLinesParser {
+
+    // the number of distinct keys interned per parser, beyond which new keys are decoded every time.
+    private static final int keyCacheCapacity = 4096;
+    // the powers of ten that are exactly representable as doubles.
+    private static final double[] exactPowersOfTen = {
+        1e0,
+        1e1,
+        1e2,
+        1e3,
+        1e4,
+        1e5,
+        1e6,
+        1e7,
+        1e8,
+        1e9,
+        1e10,
+        1e11,
+        1e12,
+        1e13,
+        1e14,
+        1e15,
+        1e16,
+        1e17,
+        1e18,
+        1e19,
+        1e20,
+        1e21,
+        1e22 };
+    // long significands with at most this number of digits cannot overflow.
+    private static final int maximumLongDigits = 18;
+    // double significands with at most this number of digits are exactly representable.
+    private static final int maximumExactDoubleDigits = 15;
+
+    private final ExceptionMetadata metadata;
+    private final ObjectProjection projection;
+    private final ObjectShapeCache shapes;
+    private final List<List<String>> keyBuffers;
+    private final StringBuilder characters;
+
+    private final byte[][] keyCacheBytes;
+    private final String[] keyCacheStrings;
+    private int keyCacheSize;
+
+    private List<String> additionalKeys;
+    private List<Item> additionalValues;
+
+    private byte[] bytes;
+    private int position;
+    private int end;
+
+    public JSONLinesParser(ExceptionMetadata metadata) {
+        this(metadata, null);
+    }
+
+    /**
+     * Builds a parser that restricts the objects it parses to a projection.
+     *
+     * @param metadata exception metadata if the input is not well-formed.
+     * @param projection the projection, or null if the objects are needed entirely.
+     */
+    public JSONLinesParser(ExceptionMetadata metadata, ObjectProjection projection) {
+        this.metadata = metadata;
+        this.projection = projection;
+        this.shapes = new ObjectShapeCache();
+        this.keyBuffers = new ArrayList<>();
+        this.characters = new StringBuilder();
+        this.keyCacheBytes = new byte[2 * keyCacheCapacity][];
+        this.keyCacheStrings = new String[2 * keyCacheCapacity];
+        this.keyCacheSize = 0;
+        this.additionalKeys = Collections.emptyList();
+        this.additionalValues = Collections.emptyList();
+    }
+
+    /**
+     * Sets the fields added to the top-level objects parsed from now on. They replace the values of the same keys in
+     * the objects, and are subject to the projection otherwise.
+     *
+     * @param keys the keys of the fields.
+     * @param values their values, in the same order.
+     */
+    public void setAdditionalFields(List<String> keys, List<Item> values) {
+        this.additionalKeys = keys;
+        this.additionalValues = values;
+    }
+
+    /**
+     * Parses the JSON value on a line. The bytes are not retained, so that the buffer can be reused for the next
+     * line.
+     *
+     * @param input the buffer containing the line, in UTF-8.
+     * @param offset the offset of the line in the buffer.
+     * @param length the length of the line in bytes.
+     * @return the parsed item.
+     */
+    public Item parse(byte[] input, int offset, int length) {
+        this.bytes = input;
+        this.position = offset;
+        this.end = offset + length;
+        try {
+            skipByteOrderMark();
+            skipWhitespace();
+            return readValue(0, this.projection);
+        } catch (Exception e) {
+            RumbleException r = new ParsingException(
+                    "An error happened while parsing JSON. JSON is not well-formed! Hint: if you use json-file(), it must be in the JSON Lines format, with one value per line. If this is not the case, consider using json-doc().",
+                    this.metadata
+            );
+            r.initCause(e);
+            throw r;
+        } finally {
+            this.bytes = null;
+        }
+    }
+
+    private Item readValue(int depth, ObjectProjection objectProjection) {
+        switch (peek()) {
+            case '"':
+                return ItemFactory.getInstance().createStringItem(readString(false));
+            case '{':
+                return readObject(depth, objectProjection);
+            case '[':
+                return readArray(depth);
+            case 't':
+                readLiteral("true");
+                return ItemFactory.getInstance().createBooleanItem(true);
+            case 'f':
+                readLiteral("false");
+                return ItemFactory.getInstance().createBooleanItem(false);
+            case 'n':
+                readLiteral("null");
+                return ItemFactory.getInstance().createNullItem();
+            default:
+                return readNumber();
+        }
+    }
+
+    private Item readObject(int depth, ObjectProjection objectProjection) {
+        this.position++;
+        // the keys are only needed to look up the shape, so the same list is reused for all objects at this depth.
+        while (this.keyBuffers.size() <= depth) {
+            this.keyBuffers.add(new ArrayList<>());
+        }
+        List<String> keys = this.keyBuffers.get(depth);
+        keys.clear();
+        List<Item> values = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            this.position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw syntaxError("Expected a key");
+                }
+                String key = readString(true);
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (objectProjection == null) {
+                    keys.add(key);
+                    values.add(readValue(depth + 1, null));
+                } else if (objectProjection.containsKey(key)) {
+                    keys.add(key);
+                    values.add(readValue(depth + 1, objectProjection.getProjection(key)));
+                } else {
+                    skipValue();
+                }
+                skipWhitespace();
+                byte next = read();
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw syntaxError("Expected , or }");
+                }
+            }
+        }
+        if (depth == 0) {
+            addAdditionalFields(keys, values, objectProjection);
+        }
+        return ItemFactory.getInstance().createObjectItem(this.shapes.getShape(keys, this.metadata), values);
+    }
+
+    private void addAdditionalFields(List<String> keys, List<Item> values, ObjectProjection objectProjection) {
+        for (int i = 0; i < this.additionalKeys.size(); i++) {
+            String key = this.additionalKeys.get(i);
+            int index = keys.indexOf(key);
+            if (index >= 0) {
+                values.set(index, this.additionalValues.get(i));
+            } else if (objectProjection == null || objectProjection.containsKey(key)) {
+                keys.add(key);
+                values.add(this.additionalValues.get(i));
+            }
+        }
+    }
+
+    private Item readArray(int depth) {
+        this.position++;
+        List<Item> values = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            this.position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                values.add(readValue(depth + 1, null));
+                skipWhitespace();
+                byte next = read();
+                if (next == ']') {
+                    break;
+                }
+                if (next != ',') {
+                    throw syntaxError("Expected , or ]");
+                }
+            }
+        }
+        return ItemFactory.getInstance().createArrayItem(values);
+    }
+
+    private String readString(boolean isKey) {
+        int start = ++this.position;
+        boolean hasEscapes = false;
+        while (true) {
+            if (this.position >= this.end) {
+                throw syntaxError("Unterminated string");
+            }
+            byte next = this.bytes[this.position];
+            if (next == '"') {
+                break;
+            }
+            if (next == '\\') {
+                hasEscapes = true;
+                this.position += 2;
+            } else {
+                this.position++;
+            }
+        }
+        int stop = this.position++;
+        if (hasEscapes) {
+            return decodeEscapedString(start, stop);
+        }
+        if (isKey) {
+            return internKey(start, stop);
+        }
+        return new String(this.bytes, start, stop - start, StandardCharsets.UTF_8);
+    }
+
+    private void skipValue() {
+        byte first = peek();
+        if (first == '"') {
+            skipString();
+            return;
+        }
+        if (first == '{' || first == '[') {
+            int nesting = 0;
+            while (true) {
+                byte next = peek();
+                if (next == '"') {
+                    skipString();
+                    continue;
+                }
+                this.position++;
+                if (next == '{' || next == '[') {
+                    nesting++;
+                } else if (next == '}' || next == ']') {
+                    nesting--;
+                    if (nesting == 0) {
+                        return;
+                    }
+                }
+            }
+        }
+        int start = this.position;
+        while (this.position < this.end) {
+            byte next = this.bytes[this.position];
+            if (next == ',' || next == '}' || next == ']' || next == ' ' || next == '\t' || next == '\r') {
+                break;
+            }
+            this.position++;
+        }
+        if (this.position == start) {
+            throw syntaxError("Invalid value");
+        }
+    }
+
+    private void skipString() {
+        this.position++;
+        while (true) {
+            if (this.position >= this.end) {
+                throw syntaxError("Unterminated string");
+            }
+            byte next = this.bytes[this.position];
+            if (next == '"') {
+                this.position++;
+                return;
+            }
+            this.position += next == '\\' ? 2 : 1;
+        }
+    }
+
+    private String decodeEscapedString(int start, int stop) {
+        StringBuilder builder = this.characters;
+        builder.setLength(0);
+        int i = start;
+        while (i < stop) {
+            byte next = this.bytes[i];
+            if (next == '\\') {
+                byte escaped = this.bytes[i + 1];
+                i += 2;
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        builder.append((char) escaped);
+                        break;
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        if (i + 4 > stop) {
+                            throw syntaxError("Invalid unicode escape");
+                        }
+                        int codeUnit = 0;
+                        for (int j = i; j < i + 4; j++) {
+                            int digit = Character.digit((char) this.bytes[j], 16);
+                            if (digit == -1) {
+                                throw syntaxError("Invalid unicode escape");
+                            }
+                            codeUnit = codeUnit * 16 + digit;
+                        }
+                        builder.append((char) codeUnit);
+                        i += 4;
+                        break;
+                    default:
+                        throw syntaxError("Invalid escape sequence");
+                }
+            } else if (next >= 0) {
+                builder.append((char) next);
+                i++;
+            } else {
+                // a run of multi-byte UTF-8 sequences.
+                int runStart = i;
+                while (i < stop && this.bytes[i] < 0) {
+                    i++;
+                }
+                builder.append(new String(this.bytes, runStart, i - runStart, StandardCharsets.UTF_8));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the key for the given bytes, decoding it only the first time it is encountered. The cache is an
+     * open-addressing hash table on the raw bytes, which stops accepting new keys once it is half full.
+     */
+    private String internKey(int start, int stop) {
+        int hash = 0;
+        for (int i = start; i < stop; i++) {
+            hash = 31 * hash + this.bytes[i];
+        }
+        int mask = this.keyCacheBytes.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (this.keyCacheBytes[slot] != null) {
+            if (hasBytes(this.keyCacheBytes[slot], start, stop)) {
+                return this.keyCacheStrings[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String key = new String(this.bytes, start, stop - start, StandardCharsets.UTF_8);
+        if (this.keyCacheSize < keyCacheCapacity) {
+            byte[] keyBytes = new byte[stop - start];
+            System.arraycopy(this.bytes, start, keyBytes, 0, keyBytes.length);
+            this.keyCacheBytes[slot] = keyBytes;
+            this.keyCacheStrings[slot] = key;
+            this.keyCacheSize++;
+        }
+        return key;
+    }
+
+    private boolean hasBytes(byte[] candidate, int start, int stop) {
+        if (candidate.length != stop - start) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length; i++) {
+            if (candidate[i] != this.bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Item readNumber() {
+        int start = this.position;
+        boolean isNegative = false;
+        if (peek() == '-') {
+            isNegative = true;
+            this.position++;
+        }
+        long significand = 0;
+        int numberOfDigits = 0;
+        int integerStart = this.position;
+        while (this.position < this.end && isDigit(this.bytes[this.position])) {
+            if (numberOfDigits < maximumLongDigits) {
+                significand = significand * 10 + (this.bytes[this.position] - '0');
+            }
+            numberOfDigits++;
+            this.position++;
+        }
+        if (this.position == integerStart) {
+            throw syntaxError("Invalid value");
+        }
+        if (this.bytes[integerStart] == '0' && this.position - integerStart > 1) {
+            // JSON does not allow leading zeros.
+            throw syntaxError("Invalid number");
+        }
+
+        int scale = 0;
+        boolean isDecimal = false;
+        if (this.position < this.end && this.bytes[this.position] == '.') {
+            isDecimal = true;
+            this.position++;
+            int fractionStart = this.position;
+            while (this.position < this.end && isDigit(this.bytes[this.position])) {
+                if (numberOfDigits < maximumLongDigits) {
+                    significand = significand * 10 + (this.bytes[this.position] - '0');
+                    scale++;
+                }
+                numberOfDigits++;
+                this.position++;
+            }
+            if (this.position == fractionStart) {
+                throw syntaxError("Invalid number");
+            }
+        }
+
+        boolean isDouble = false;
+        int exponent = 0;
+        if (this.position < this.end && (this.bytes[this.position] == 'e' || this.bytes[this.position] == 'E')) {
+            isDouble = true;
+            this.position++;
+            boolean isNegativeExponent = false;
+            if (this.position < this.end && (this.bytes[this.position] == '-' || this.bytes[this.position] == '+')) {
+                isNegativeExponent = this.bytes[this.position] == '-';
+                this.position++;
+            }
+            int exponentStart = this.position;
+            while (this.position < this.end && isDigit(this.bytes[this.position])) {
+                // larger exponents are handled by the fallback anyway.
+                if (exponent < 10000) {
+                    exponent = exponent * 10 + (this.bytes[this.position] - '0');
+                }
+                this.position++;
+            }
+            if (this.position == exponentStart) {
+                throw syntaxError("Invalid number");
+            }
+            if (isNegativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (isDouble) {
+            int powerOfTen = exponent - scale;
+            if (
+                numberOfDigits <= maximumExactDoubleDigits
+                    && powerOfTen >= -(exactPowersOfTen.length - 1)
+                    && powerOfTen < exactPowersOfTen.length
+            ) {
+                // both operands are exact, so that the only rounding is that of the operation itself.
+                double value = powerOfTen >= 0
+                    ? significand * exactPowersOfTen[powerOfTen]
+                    : significand / exactPowersOfTen[-powerOfTen];
+                return ItemFactory.getInstance().createDoubleItem(isNegative ? -value : value);
+            }
+            return ItemFactory.getInstance().createDoubleItem(Double.parseDouble(lexicalValue(start)));
+        }
+        if (isDecimal) {
+            if (numberOfDigits <= maximumLongDigits) {
+                return ItemFactory.getInstance()
+                    .createDecimalItem(BigDecimal.valueOf(isNegative ? -significand : significand, scale));
+            }
+            return ItemFactory.getInstance().createDecimalItem(new BigDecimal(lexicalValue(start)));
+        }
+        if (numberOfDigits > maximumLongDigits) {
+            return ItemFactory.getInstance().createIntegerItem(new BigInteger(lexicalValue(start)));
+        }
+        long value = isNegative ? -significand : significand;
+        // same item classes as ItemFactory.createIntegerItem(String) on the lexical value.
+        if (this.position - start >= 10) {
+            return ItemFactory.getInstance().createIntegerItem(BigInteger.valueOf(value));
+        }
+        return ItemFactory.getInstance().createIntItem((int) value);
+    }
+
+    private String lexicalValue(int start) {
+        return new String(this.bytes, start, this.position - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private void readLiteral(String literal) {
+        if (this.position + literal.length() > this.end) {
+            throw syntaxError("Invalid value");
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (this.bytes[this.position + i] != literal.charAt(i)) {
+                throw syntaxError("Invalid value");
+            }
+        }
+        this.position += literal.length();
+    }
+
+    private void skipByteOrderMark() {
+        if (
+            this.position + 3 <= this.end
+                && this.bytes[this.position] == (byte) 0xEF
+                && this.bytes[this.position + 1] == (byte) 0xBB
+                && this.bytes[this.position + 2] == (byte) 0xBF
+        ) {
+            this.position += 3;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.end) {
+            byte next = this.bytes[this.position];
+            if (next != ' ' && next != '\t' && next != '\n' && next != '\r') {
+                return;
+            }
+            this.position++;
+        }
+    }
+
+    private byte peek() {
+        if (this.position >= this.end) {
+            throw syntaxError("Unexpected end of line");
+        }
+        return this.bytes[this.position];
+    }
+
+    private byte read() {
+        byte next = peek();
+        this.position++;
+        return next;
+    }
+
+    private void expect(char expected) {
+        if (read() != expected) {
+            throw syntaxError("Expected " + expected);
+        }
+    }
+
+    private ParsingException syntaxError(String message) {
+        return new ParsingException(message + " at byte " + this.position + ".", this.metadata);
+    }
+}
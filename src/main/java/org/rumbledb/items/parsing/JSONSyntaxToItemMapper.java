@@ -23,6 +23,7 @@ package org.rumbledb.items.parsing;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.rumbledb.api.Item;
 import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.items.ObjectShapeCache;
 import com.google.gson.stream.JsonReader;
 
 import java.io.StringReader;
@@ -39,6 +40,7 @@ public class JSONSyntaxToItemMapper implements FlatMapFunction<Iterator<String>,
 
     @Override
     public Iterator<Item> call(Iterator<String> stringIterator) throws Exception {
+        ObjectShapeCache shapes = new ObjectShapeCache();
         return new Iterator<Item>() {
             @Override
             public boolean hasNext() {
@@ -48,7 +50,7 @@ public class JSONSyntaxToItemMapper implements FlatMapFunction<Iterator<String>,
             @Override
             public Item next() {
                 JsonReader object = new JsonReader(new StringReader(stringIterator.next()));
-                return ItemParser.getItemFromObject(object, JSONSyntaxToItemMapper.this.metadata);
+                return ItemParser.getItemFromObject(object, JSONSyntaxToItemMapper.this.metadata, shapes);
             }
 
             @Override
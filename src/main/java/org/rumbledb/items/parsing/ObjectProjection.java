@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items.parsing;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The parts of objects that are needed by a query, as a tree of keys. The objects are restricted to the keys of the
+ * projection, and the values of these keys are in turn restricted to their own projection, unless they are needed
+ * entirely. Values that are not objects are always kept entirely.
+ *
+ * For example, the paths user.id and ts keep the key ts entirely and, in the value of the key user, only the key id.
+ */
+public class ObjectProjection implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // a null projection for a key means that its value is needed entirely.
+    private final Map<String, ObjectProjection> fields;
+
+    public ObjectProjection() {
+        this.fields = new TreeMap<>();
+    }
+
+    /**
+     * Adds a path of keys, the value at the end of which is needed entirely.
+     *
+     * @param path the keys, from the outermost object.
+     */
+    public void addPath(List<String> path) {
+        ObjectProjection current = this;
+        for (int i = 0; i < path.size(); i++) {
+            String key = path.get(i);
+            boolean isLast = i == path.size() - 1;
+            if (current.fields.containsKey(key) && current.fields.get(key) == null) {
+                // the value is already needed entirely.
+                return;
+            }
+            if (isLast) {
+                current.fields.put(key, null);
+                return;
+            }
+            if (!current.fields.containsKey(key)) {
+                current.fields.put(key, new ObjectProjection());
+            }
+            current = current.fields.get(key);
+        }
+    }
+
+    public Set<String> getKeys() {
+        return this.fields.keySet();
+    }
+
+    public boolean containsKey(String key) {
+        return this.fields.containsKey(key);
+    }
+
+    /**
+     * Returns the projection of the value of a key.
+     *
+     * @param key a key of the projection.
+     * @return the projection of its value, or null if it is needed entirely.
+     */
+    public ObjectProjection getProjection(String key) {
+        return this.fields.get(key);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        String separator = "";
+        for (Map.Entry<String, ObjectProjection> field : this.fields.entrySet()) {
+            sb.append(separator);
+            sb.append(field.getKey());
+            if (field.getValue() != null) {
+                sb.append(" : ");
+                sb.append(field.getValue());
+            }
+            separator = ", ";
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.items.parsing;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.spark.api.java.function.Function2;
+import org.rumbledb.api.Item;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.runtime.functions.input.PartitionedDirectory;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Parses the lines of a partition read from a directory partitioned in the Hive style, like JSONLinesToItemMapper,
+ * and adds the values of the partition columns of the file the partition belongs to to the top-level objects.
+ */
+public class PartitionedJSONLinesToItemMapper
+        implements
+            Function2<InputSplit, Iterator<Tuple2<LongWritable, Text>>, Iterator<Item>> {
+
+    private static final long serialVersionUID = 1L;
+    private final ExceptionMetadata metadata;
+    private final ObjectProjection projection;
+    private final PartitionedDirectory directory;
+
+    public PartitionedJSONLinesToItemMapper(
+            ExceptionMetadata metadata,
+            ObjectProjection projection,
+            PartitionedDirectory directory
+    ) {
+        this.metadata = metadata;
+        this.projection = projection;
+        this.directory = directory;
+    }
+
+    @Override
+    public Iterator<Item> call(InputSplit split, Iterator<Tuple2<LongWritable, Text>> lineIterator) throws Exception {
+        JSONLinesParser parser = new JSONLinesParser(this.metadata, this.projection);
+        // a split never spans several files, so the partition values are the same for all its lines.
+        Map<String, Item> fields = this.directory.getFields(((FileSplit) split).getPath());
+        parser.setAdditionalFields(new ArrayList<>(fields.keySet()), new ArrayList<>(fields.values()));
+        return new Iterator<Item>() {
+            @Override
+            public boolean hasNext() {
+                return lineIterator.hasNext();
+            }
+
+            @Override
+            public Item next() {
+                Text line = lineIterator.next()._2();
+                return parser.parse(line.getBytes(), 0, line.getLength());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -32,6 +32,7 @@ import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.parsing.RowToItemMapper;
 import org.rumbledb.items.structured.JSoundDataFrame;
 
+import sparksoniq.spark.QueryCacheManager;
 import sparksoniq.spark.SparkSessionManager;
 
 import java.util.List;
@@ -96,8 +97,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         }
         if (this.result == null) {
             this.currentResultIndex = 0;
-            JavaRDD<Item> rdd = this.getRDD(this.currentDynamicContextForLocalExecution);
-            this.result = SparkSessionManager.collectRDDwithLimit(rdd, this.getMetadata());
+            this.result = collectItems(this.currentDynamicContextForLocalExecution, -1);
             this.hasNext = !this.result.isEmpty();
         }
         return this.hasNext;
@@ -152,8 +152,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
             super.materialize(context, result);
             return;
         }
-        JavaRDD<Item> items = this.getRDD(context);
-        List<Item> collectedItems = SparkSessionManager.collectRDDwithLimit(items, this.getMetadata());
+        List<Item> collectedItems = collectItems(context, -1);
         result.clear();
         result.addAll(collectedItems);
     }
@@ -163,9 +162,9 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
             super.materializeNFirstItems(context, result, n);
             return;
         }
-        JavaRDD<Item> items = this.getRDD(context);
+        List<Item> collectedItems = collectItems(context, n);
         result.clear();
-        result.addAll(items.take(n));
+        result.addAll(collectedItems);
     }
 
     public Item materializeFirstItemOrNull(
@@ -174,8 +173,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         if (!isRDDOrDataFrame()) {
             return super.materializeFirstItemOrNull(context);
         }
-        JavaRDD<Item> items = this.getRDD(context);
-        List<Item> collectedItems = items.take(1);
+        List<Item> collectedItems = collectItems(context, 1);
         if (collectedItems.size() == 1) {
             return collectedItems.get(0);
         } else {
@@ -191,8 +189,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         if (!isRDDOrDataFrame()) {
             return super.materializeExactlyOneItem(context);
         }
-        JavaRDD<Item> items = this.getRDD(context);
-        List<Item> collectedItems = items.take(2);
+        List<Item> collectedItems = collectItems(context, 2);
         if (collectedItems.size() == 1) {
             return collectedItems.get(0);
         }
@@ -209,8 +206,7 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         if (!isRDDOrDataFrame()) {
             return super.materializeAtMostOneItemOrNull(context);
         }
-        JavaRDD<Item> items = this.getRDD(context);
-        List<Item> collectedItems = items.take(2);
+        List<Item> collectedItems = collectItems(context, 2);
         if (collectedItems.size() == 1) {
             return collectedItems.get(0);
         }
@@ -220,6 +216,23 @@ public abstract class HybridRuntimeIterator extends RuntimeIterator {
         throw new MoreThanOneItemException();
     }
 
+    /**
+     * Collects the items of this iterator, evaluated as an RDD. What is persisted to evaluate them is unpersisted once
+     * they are collected, since nothing else uses it.
+     *
+     * @param context the dynamic context.
+     * @param n the maximum number of items to collect, or -1 to collect them up to the materialization cap.
+     * @return the items.
+     */
+    private List<Item> collectItems(DynamicContext context, int n) {
+        QueryCacheManager cacheManager = context.getCacheManager();
+        long mark = cacheManager.mark();
+        JavaRDD<Item> items = this.getRDD(context);
+        List<Item> result = n < 0 ? SparkSessionManager.collectRDDwithLimit(items, this.getMetadata()) : items.take(n);
+        cacheManager.unpersistSince(mark);
+        return result;
+    }
+
     protected abstract JavaRDD<Item> getRDDAux(DynamicContext context);
 
     protected abstract void openLocal();
@@ -37,6 +37,7 @@ public class FlworDataFrameColumn implements Serializable {
         FULLY_NATIVE,
         COUNT,
         SUM,
+        AVG,
         MIN,
         MAX
     };
@@ -72,6 +73,9 @@ public class FlworDataFrameColumn implements Serializable {
                 case ".sum":
                     this.columnFormat = ColumnFormat.SUM;
                     break;
+                case ".avg":
+                    this.columnFormat = ColumnFormat.AVG;
+                    break;
                 case ".max":
                     this.columnFormat = ColumnFormat.MAX;
                     break;
@@ -100,6 +104,8 @@ public class FlworDataFrameColumn implements Serializable {
                 return this.variableName.toString() + ".count";
             case SUM:
                 return this.variableName.toString() + ".sum";
+            case AVG:
+                return this.variableName.toString() + ".avg";
             case MAX:
                 return this.variableName.toString() + ".max";
             case MIN:
@@ -128,6 +134,10 @@ public class FlworDataFrameColumn implements Serializable {
         return this.columnFormat.equals(ColumnFormat.SUM);
     }
 
+    public boolean isAvg() {
+        return this.columnFormat.equals(ColumnFormat.AVG);
+    }
+
     public boolean isMin() {
         return this.columnFormat.equals(ColumnFormat.MIN);
     }
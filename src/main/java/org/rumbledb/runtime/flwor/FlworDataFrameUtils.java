@@ -23,6 +23,7 @@ package org.rumbledb.runtime.flwor;
 import static org.apache.spark.sql.functions.col;
 import static org.apache.spark.sql.functions.count;
 import static org.apache.spark.sql.functions.first;
+import static org.apache.spark.sql.functions.grouping;
 import static org.apache.spark.sql.functions.lit;
 import static org.apache.spark.sql.functions.monotonically_increasing_id;
 import static org.apache.spark.sql.functions.spark_partition_id;
@@ -34,11 +35,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
@@ -47,6 +50,7 @@ import org.apache.spark.sql.expressions.Window;
 import org.apache.spark.sql.types.ArrayType;
 import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.DecimalType;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
@@ -88,10 +92,13 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
 import scala.collection.mutable.WrappedArray;
+import sparksoniq.spark.HotKeys;
 import sparksoniq.spark.SparkSessionManager;
 
 public class FlworDataFrameUtils {
 
+    private static final double skewSamplingFraction = 0.01;
+
     // we use UUID to escape backtick within DataFrame columns
     public static String backtickEscape = "d32a3242-b15d-46b8-b689-d2288f7f492f";
 
@@ -530,6 +537,25 @@ public class FlworDataFrameUtils {
                             + "but no appropriate column was found in the data frame."
                 );
             }
+            case AVG: {
+                if (columnNames.contains(variableName.toString() + ".avg")) {
+                    result.add(variableName.toString() + ".avg");
+                    return;
+                }
+                if (columnNames.contains(variableName.toString() + ".sequence")) {
+                    result.add(variableName.toString() + ".sequence");
+                    return;
+                }
+                if (columnNames.contains(variableName.toString())) {
+                    result.add(variableName.toString());
+                    return;
+                }
+                throw new OurBadException(
+                        "Expecting avg variable dependency on "
+                            + variableName
+                            + " but no appropriate column was found in the data frame."
+                );
+            }
             case MIN: {
                 if (columnNames.contains(variableName.toString() + ".min")) {
                     result.add(variableName.toString() + ".min");
@@ -654,6 +680,25 @@ public class FlworDataFrameUtils {
                             + "but no appropriate column was found in the data frame."
                 );
             }
+            case AVG: {
+                if (columnNames.contains(variableName.toString() + ".avg")) {
+                    result.add(new FlworDataFrameColumn(variableName, ColumnFormat.AVG));
+                    return;
+                }
+                if (columnNames.contains(variableName.toString() + ".sequence")) {
+                    result.add(new FlworDataFrameColumn(variableName, ColumnFormat.NATIVE_SEQUENCE));
+                    return;
+                }
+                if (columnNames.contains(variableName.toString())) {
+                    result.add(new FlworDataFrameColumn(variableName.toString(), inputSchema));
+                    return;
+                }
+                throw new OurBadException(
+                        "Expecting avg variable dependency on "
+                            + variableName
+                            + " but no appropriate column was found in the data frame."
+                );
+            }
             case MIN: {
                 if (columnNames.contains(variableName.toString() + ".min")) {
                     result.add(new FlworDataFrameColumn(variableName, ColumnFormat.MIN));
@@ -849,6 +894,39 @@ public class FlworDataFrameUtils {
         }
     }
 
+    /**
+     * Copies the metadata of the native columns of the input of a group by clause, which records the static type of
+     * their items, to the columns of its output that hold the same items: the grouping variables, the sequences of
+     * the other variables, and their minimums and maximums. Spark drops it in aggregations.
+     *
+     * @param grouped the output of the group by clause.
+     * @param inputSchema the schema of its input.
+     * @return the output, with the metadata of its columns.
+     */
+    public static Dataset<Row> restoreNativeColumnMetadata(Dataset<Row> grouped, StructType inputSchema) {
+        for (StructField field : grouped.schema().fields()) {
+            String columnName = field.name();
+            int pos = columnName.indexOf(".");
+            String variableName = pos == -1 ? columnName : columnName.substring(0, pos);
+            String suffix = pos == -1 ? "" : columnName.substring(pos);
+            if (
+                !(suffix.equals("") || suffix.equals(".sequence") || suffix.equals(".min") || suffix.equals(".max"))
+                    || !Arrays.asList(inputSchema.fieldNames()).contains(variableName)
+            ) {
+                continue;
+            }
+            StructField inputField = inputSchema.fields()[inputSchema.fieldIndex(variableName)];
+            if (inputField.metadata().equals(field.metadata())) {
+                continue;
+            }
+            grouped = grouped.withColumn(
+                columnName,
+                grouped.col("`" + columnName + "`").as(columnName, inputField.metadata())
+            );
+        }
+        return grouped;
+    }
+
     /**
      * Prepares a SQL projection for use in a GROUP BY query.
      * 
@@ -905,6 +983,13 @@ public class FlworDataFrameUtils {
                     // aggregate the column values for each row in the group
                     queryColumnString.append(serializerUdfName);
                     queryColumnString.append(String.format("(collect_list(%s))", column));
+                } else if (
+                    column.isFullyNative() && getPartialAggregateFormat(dependency.getValue(), dt) != null
+                ) {
+                    // only the aggregate is needed, so that Spark can compute it partially before the shuffle
+                    ColumnFormat format = getPartialAggregateFormat(dependency.getValue(), dt);
+                    queryColumnString.append(getPartialAggregate(format, column.toString(), dt));
+                    column = new FlworDataFrameColumn(column.getVariableName(), format);
                 } else {
                     // aggregate the column values for each row in the group
                     queryColumnString.append(String.format("collect_list(%s)", column));
@@ -925,6 +1010,72 @@ public class FlworDataFrameUtils {
         return queryColumnString.toString();
     }
 
+    /**
+     * Returns the format of the column in which a group by clause can aggregate a native column of the given type
+     * with a built-in Spark aggregate, rather than collecting all its values, or null if it cannot. Only
+     * aggregates whose results match those of the corresponding JSONiq functions are used.
+     *
+     * @param dependency the dependency of the next clauses on the variable
+     * @param dt the type of the native column holding the variable
+     * @return the format of the aggregated column, or null if the values must be collected
+     */
+    public static ColumnFormat getPartialAggregateFormat(DynamicContext.VariableDependency dependency, DataType dt) {
+        boolean isInt = dt.equals(DataTypes.ByteType)
+            || dt.equals(DataTypes.ShortType)
+            || dt.equals(DataTypes.IntegerType);
+        boolean isDoubleOrFloat = dt.equals(DataTypes.DoubleType) || dt.equals(DataTypes.FloatType);
+        switch (dependency) {
+            case SUM:
+                // sums of longs may overflow and sums of floats are doubles in Spark
+                return isInt || dt.equals(DataTypes.DoubleType) ? ColumnFormat.SUM : null;
+            case AVG:
+                // averages of integers are decimals in JSONiq
+                return dt.equals(DataTypes.DoubleType) ? ColumnFormat.AVG : null;
+            case MIN:
+            case MAX:
+                if (
+                    isInt
+                        || isDoubleOrFloat
+                        || dt.equals(DataTypes.LongType)
+                        || dt instanceof DecimalType
+                        || dt.equals(DataTypes.StringType)
+                ) {
+                    return dependency == DynamicContext.VariableDependency.MIN ? ColumnFormat.MIN : ColumnFormat.MAX;
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the Spark SQL aggregate computing a column of the given format from a native column. Empty groups
+     * yield null, which is read back as the empty sequence.
+     *
+     * @param format the format returned by getPartialAggregateFormat
+     * @param column the escaped name of the native column
+     * @param dt the type of the native column
+     * @return the SQL aggregate expression
+     */
+    public static String getPartialAggregate(ColumnFormat format, String column, DataType dt) {
+        switch (format) {
+            case SUM:
+                return String.format("sum(%s)", column);
+            case AVG:
+                return String.format("avg(%s)", column);
+            case MIN:
+                if (dt.equals(DataTypes.DoubleType) || dt.equals(DataTypes.FloatType)) {
+                    // Spark orders NaN after all numbers, but the minimum of values including NaN is NaN
+                    return String.format("if(max(isnan(%1$s)), max(%1$s), min(%1$s))", column);
+                }
+                return String.format("min(%s)", column);
+            case MAX:
+                return String.format("max(%s)", column);
+            default:
+                throw new OurBadException("Column format " + format + " is not an aggregate.");
+        }
+    }
+
     public static boolean isCountPreComputed(StructType schema, String columnName) {
         String[] fields = schema.fieldNames();
         for (String field : fields) {
@@ -1038,11 +1189,12 @@ public class FlworDataFrameUtils {
      *
      * @param jdf - the JSoundDataframe to perform the operation on
      * @param offset - starting offset for the first index
+     * @param context - the dynamic context, with the cache manager of the query
      * @return returns JSoundDataFrame with the added column containing indices (with some specific UUID)
      */
-    public static JSoundDataFrame zipWithIndex(JSoundDataFrame jdf, Long offset) {
+    public static JSoundDataFrame zipWithIndex(JSoundDataFrame jdf, Long offset, DynamicContext context) {
         return new JSoundDataFrame(
-                zipWithIndex(jdf.getDataFrame(), offset, SparkSessionManager.countColumnName),
+                zipWithIndex(jdf.getDataFrame(), offset, SparkSessionManager.countColumnName, context),
                 jdf.getItemType()
         );
     }
@@ -1054,14 +1206,22 @@ public class FlworDataFrameUtils {
      * @param df - df to perform the operation on
      * @param offset - starting offset for the first index
      * @param indexName - name of the index column
+     * @param context - the dynamic context, with the cache manager of the query
      * @return returns DataFrame with the added 'indexName' column containing indices
      */
-    public static Dataset<Row> zipWithIndex(Dataset<Row> df, Long offset, String indexName) {
+    public static Dataset<Row> zipWithIndex(
+            Dataset<Row> df,
+            Long offset,
+            String indexName,
+            DynamicContext context
+    ) {
         Dataset<Row> dfWithPartitionId = df
             .withColumn("partition_id", spark_partition_id())
             .withColumn("inc_id", monotonically_increasing_id());
 
-        dfWithPartitionId.persist();
+        // Persisted so that the tuples are not computed twice (for the offsets, then for the output), until they are
+        // consumed or the query is over.
+        dfWithPartitionId = context.getCacheManager().persist(dfWithPartitionId);
 
         Object partitionOffsetsObject = dfWithPartitionId
             .groupBy("partition_id")
@@ -1092,6 +1252,48 @@ public class FlworDataFrameUtils {
             .drop("partition_id", "partition_offset", "inc_id");
     }
 
+    /**
+     * Finds the keys shared by at least the configured fraction of the rows of a data frame, such as keys that would
+     * skew a shuffle on them, and reports them to the query (see HotKeys). Only a sample of the rows is looked at,
+     * in a single job, so the data frame should be persisted if it is used again afterwards.
+     *
+     * @param df the data frame.
+     * @param key the key of each row.
+     * @param clause the kind of clause that shuffles the rows on the key, "join" or "group by".
+     * @param context the dynamic context, with the configuration.
+     * @return the hot keys.
+     */
+    public static List<Object> detectHotKeys(Dataset<Row> df, Column key, String clause, DynamicContext context) {
+        double fraction = Math.max(context.getRumbleRuntimeConfiguration().getSkewHotKeyFraction(), 1e-4);
+        // The rollup also counts all the sampled rows, in the row in which the key is aggregated, which has the
+        // largest count. At most 1 / fraction keys are that frequent.
+        List<Row> counts = df.select(key.alias("key"))
+            .sample(false, skewSamplingFraction)
+            .rollup("key")
+            .agg(count(lit(1)).alias("count"), grouping("key").alias("isTotal"))
+            .orderBy(col("count").desc())
+            .limit((int) Math.ceil(1 / fraction) + 1)
+            .collectAsList();
+        long total = 0;
+        for (Row row : counts) {
+            if (((Number) row.get(2)).intValue() == 1) {
+                total = row.getLong(1);
+            }
+        }
+        List<Object> hotKeys = new ArrayList<>();
+        Map<String, Double> fractions = new LinkedHashMap<>();
+        for (Row row : counts) {
+            if (((Number) row.get(2)).intValue() == 0 && row.getLong(1) >= fraction * total) {
+                hotKeys.add(row.get(0));
+                fractions.put(String.valueOf(row.get(0)), (double) row.getLong(1) / total);
+            }
+        }
+        if (!hotKeys.isEmpty()) {
+            context.getCacheManager().reportHotKeys(new HotKeys(clause, fractions));
+        }
+        return hotKeys;
+    }
+
     public static StructType schemaUnion(StructType leftSchema, StructType rightSchema) {
         List<StructField> fieldList = new ArrayList<StructField>();
         for (StructField f : leftSchema.fields()) {
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.flwor;
+
+import org.rumbledb.api.Item;
+import org.rumbledb.context.DynamicContext.VariableDependency;
+import org.rumbledb.context.Name;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.RumbleException;
+import org.rumbledb.expressions.arithmetic.MultiplicativeExpression;
+import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
+import org.rumbledb.items.ItemFactory;
+import org.rumbledb.runtime.arithmetics.AdditiveOperationIterator;
+import org.rumbledb.runtime.arithmetics.MultiplicativeOperationIterator;
+import org.rumbledb.runtime.misc.ComparisonIterator;
+import sparksoniq.jsoniq.tuple.FlworTuple;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The running aggregate of a non-grouping variable within one group of a local group by clause.
+ *
+ * Depending on how the variable is used after the clause, it keeps all its values (FULL), only their number
+ * (COUNT), or a few items on which the downstream sum(), avg(), min() or max() call returns the same result as on
+ * all values (SUM, AVG, MIN, MAX), so that memory is proportional to the number of groups rather than of tuples.
+ *
+ * Values that cannot be folded (e.g., a string in a sum) are kept as they are, so that the downstream call raises
+ * the same error as it would have on all values, and at the same time.
+ */
+public class GroupVariableAggregate {
+
+    private final VariableDependency dependency;
+    private final ExceptionMetadata metadata;
+    private long count;
+    // running sum for SUM and AVG.
+    private Item sum;
+    // all values for FULL; the greatest (or least) value of each type for MAX (or MIN).
+    private List<Item> items;
+    // values that could not be folded, if any.
+    private List<Item> unfolded;
+
+    public GroupVariableAggregate(VariableDependency dependency, ExceptionMetadata metadata) {
+        this.dependency = dependency;
+        this.metadata = metadata;
+        this.count = 0;
+        this.sum = null;
+        this.items = new ArrayList<>();
+        this.unfolded = null;
+    }
+
+    public void add(List<Item> values) {
+        switch (this.dependency) {
+            case FULL:
+                this.items.addAll(values);
+                return;
+            case COUNT:
+                this.count += values.size();
+                return;
+            case SUM:
+            case AVG:
+                this.count += values.size();
+                for (Item value : values) {
+                    addToSum(value);
+                }
+                return;
+            case MIN:
+            case MAX:
+                for (Item value : values) {
+                    addToExtrema(value);
+                }
+                return;
+            default:
+        }
+    }
+
+    /**
+     * Adds a count of values obtained from a previous aggregation, for a variable only used in a count.
+     *
+     * @param count the count.
+     */
+    public void addCount(long count) {
+        this.count += count;
+    }
+
+    private void addToSum(Item value) {
+        if (this.unfolded != null) {
+            this.unfolded.add(value);
+            return;
+        }
+        if (this.sum == null) {
+            this.sum = value;
+            return;
+        }
+        Item result = null;
+        try {
+            result = AdditiveOperationIterator.processItem(this.sum, value, false);
+        } catch (RumbleException e) {
+            result = null;
+        }
+        if (result == null) {
+            this.unfolded = new ArrayList<>();
+            this.unfolded.add(value);
+            return;
+        }
+        this.sum = result;
+    }
+
+    private void addToExtrema(Item value) {
+        if (this.unfolded != null || !value.isAtomic()) {
+            addUnfolded(value);
+            return;
+        }
+        for (int i = 0; i < this.items.size(); ++i) {
+            Item extremum = this.items.get(i);
+            if (!extremum.getDynamicType().equals(value.getDynamicType())) {
+                continue;
+            }
+            // NaN wins over everything, in both min() and max().
+            if (extremum.isNaN()) {
+                return;
+            }
+            if (value.isNaN()) {
+                this.items.set(i, value);
+                return;
+            }
+            long comparison;
+            try {
+                comparison = ComparisonIterator.compareItems(
+                    value,
+                    extremum,
+                    ComparisonOperator.VC_GT,
+                    this.metadata
+                );
+            } catch (RumbleException e) {
+                comparison = Long.MIN_VALUE;
+            }
+            if (comparison == Long.MIN_VALUE) {
+                addUnfolded(value);
+                return;
+            }
+            if (
+                (this.dependency == VariableDependency.MAX && comparison > 0)
+                    || (this.dependency == VariableDependency.MIN && comparison < 0)
+            ) {
+                this.items.set(i, value);
+            }
+            return;
+        }
+        this.items.add(value);
+    }
+
+    private void addUnfolded(Item value) {
+        if (this.unfolded == null) {
+            this.unfolded = new ArrayList<>();
+        }
+        this.unfolded.add(value);
+    }
+
+    /**
+     * Binds the aggregated variable in an output tuple.
+     *
+     * @param tuple the output tuple.
+     * @param variable the variable name.
+     */
+    public void bindTo(FlworTuple tuple, Name variable) {
+        if (this.dependency == VariableDependency.COUNT) {
+            tuple.putCount(variable, ItemFactory.getInstance().createLongItem(this.count));
+            return;
+        }
+        if (this.dependency == VariableDependency.FULL) {
+            tuple.putValue(variable, this.items);
+            return;
+        }
+        List<Item> result = new ArrayList<>();
+        switch (this.dependency) {
+            case MIN:
+            case MAX:
+                result.addAll(this.items);
+                break;
+            case SUM:
+                if (this.sum != null) {
+                    result.add(this.sum);
+                }
+                break;
+            case AVG:
+                if (this.sum == null) {
+                    break;
+                }
+                // sums of numbers or of durations are divided by the count. Other sums (e.g., of a date and a
+                // duration) are kept as they are, so that avg() raises its type error.
+                if (
+                    this.unfolded == null
+                        && (this.sum.isNumeric() || this.sum.isDayTimeDuration() || this.sum.isYearMonthDuration())
+                ) {
+                    result.add(
+                        MultiplicativeOperationIterator.processItem(
+                            this.sum,
+                            ItemFactory.getInstance().createLongItem(this.count),
+                            MultiplicativeExpression.MultiplicativeOperator.DIV,
+                            this.metadata
+                        )
+                    );
+                } else {
+                    result.add(this.sum);
+                }
+                break;
+            default:
+        }
+        if (this.unfolded != null) {
+            result.addAll(this.unfolded);
+        }
+        tuple.putValue(variable, result);
+    }
+}
@@ -22,7 +22,6 @@ package org.rumbledb.runtime.flwor.clauses;
 
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
-import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
@@ -37,10 +36,10 @@ import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.runtime.RuntimeTupleIterator;
 import org.rumbledb.runtime.flwor.FlworDataFrameColumn;
 import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
-import org.rumbledb.runtime.flwor.udfs.LongSerializeUDF;
 import org.rumbledb.runtime.primary.VariableReferenceIterator;
 
 import sparksoniq.jsoniq.tuple.FlworTuple;
+import sparksoniq.spark.SparkSessionManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -139,16 +138,45 @@ public class CountClauseSparkIterator extends RuntimeTupleIterator {
             return df;
         }
 
-        Dataset<Row> dfWithIndex = addSerializedCountColumn(df, this.outputTupleProjection, this.variableName);
+        Dataset<Row> dfWithIndex = addCountColumn(
+            df,
+            this.outputTupleProjection,
+            this.variableName,
+            context
+        );
         return dfWithIndex;
     }
 
+    /**
+     * Returns the first tuples output by this clause, i.e., those with a count up to a given number, with a limit
+     * rather than by numbering all tuples.
+     *
+     * @param context the dynamic context.
+     * @param length the number of tuples.
+     * @param parentProjection the projection of the tuples after the clause that consumes them.
+     * @return the tuples.
+     */
+    public Dataset<Row> getDataFrameOfPrefix(
+            DynamicContext context,
+            int length,
+            Map<Name, DynamicContext.VariableDependency> parentProjection
+    ) {
+        Dataset<Row> df = this.child.getDataFrame(context);
+        if (parentProjection.containsKey(this.variableName)) {
+            return getPrefixWithCountColumn(df, length, parentProjection, this.variableName);
+        }
+        String input = FlworDataFrameUtils.createTempView(df);
+        return df.sparkSession().sql(String.format("SELECT * FROM %s LIMIT %s", input, Integer.toString(length)));
+    }
+
     // This method, which implements count semantics, is also intended for use by other clauses (e.g., for clause with
     // positional variables).
-    public static Dataset<Row> addSerializedCountColumn(
+    // The count is stored natively (LongType), so that it can be used as such in native SQL queries.
+    public static Dataset<Row> addCountColumn(
             Dataset<Row> df,
             Map<Name, DynamicContext.VariableDependency> outputDependencies,
-            Name variableName
+            Name variableName,
+            DynamicContext context
     ) {
         StructType inputSchema = df.schema();
 
@@ -161,30 +189,83 @@ public class CountClauseSparkIterator extends RuntimeTupleIterator {
 
         String selectSQL = FlworDataFrameUtils.getSQLColumnProjection(allColumns, true);
 
-        Dataset<Row> dfWithIndex = FlworDataFrameUtils.zipWithIndex(df, 1L, variableName.toString());
-
-        df.sparkSession()
-            .udf()
-            .register(
-                "serializeCountIndex",
-                new LongSerializeUDF(),
-                DataTypes.BinaryType
-            );
+        Dataset<Row> dfWithIndex = FlworDataFrameUtils.zipWithIndex(df, 1L, variableName.toString(), context);
 
         String viewName = FlworDataFrameUtils.createTempView(dfWithIndex);
         dfWithIndex = dfWithIndex.sparkSession()
             .sql(
                 String.format(
-                    "select %s serializeCountIndex(`%s`) as `%s` from %s",
+                    "select %s `%s` from %s",
                     selectSQL,
                     variableName,
-                    variableName,
                     viewName
                 )
             );
         return dfWithIndex;
     }
 
+    /**
+     * Returns the first tuples of a tuple stream with the count column. The tuples are numbered before the limit, in
+     * their order across partitions, so that the first tuples and their counts do not depend on how the limit is
+     * executed. The few tuples kept are then counted in a single partition, which avoids the job that computes the
+     * offsets of each partition.
+     *
+     * @param df the tuples, in their order.
+     * @param length the number of tuples.
+     * @param outputDependencies the projection of the tuples after the count clause.
+     * @param variableName the count variable.
+     * @return the first tuples with the count column.
+     */
+    public static Dataset<Row> getPrefixWithCountColumn(
+            Dataset<Row> df,
+            int length,
+            Map<Name, DynamicContext.VariableDependency> outputDependencies,
+            Name variableName
+    ) {
+        StructType inputSchema = df.schema();
+
+        List<FlworDataFrameColumn> allColumns = FlworDataFrameUtils.getColumns(
+            inputSchema,
+            outputDependencies,
+            null,
+            Collections.singletonList(variableName)
+        );
+
+        String selectSQL = FlworDataFrameUtils.getSQLColumnProjection(allColumns, true);
+
+        // The identifiers increase with the partition and the position within it, and the smallest ones are kept.
+        String viewName = FlworDataFrameUtils.createTempView(df);
+        Dataset<Row> dfWithIds = df.sparkSession()
+            .sql(
+                String.format(
+                    "select *, monotonically_increasing_id() as `%s` from %s",
+                    SparkSessionManager.temporaryColumnName,
+                    viewName
+                )
+            );
+        String viewWithIds = FlworDataFrameUtils.createTempView(dfWithIds);
+        Dataset<Row> prefix = dfWithIds.sparkSession()
+            .sql(
+                String.format(
+                    "select * from %s order by `%s` limit %s",
+                    viewWithIds,
+                    SparkSessionManager.temporaryColumnName,
+                    Integer.toString(length)
+                )
+            );
+        String prefixViewName = FlworDataFrameUtils.createTempView(prefix);
+        return prefix.sparkSession()
+            .sql(
+                String.format(
+                    "select %s cast(row_number() over (order by `%s`) as bigint) as `%s` from %s",
+                    selectSQL,
+                    SparkSessionManager.temporaryColumnName,
+                    variableName,
+                    prefixViewName
+                )
+            );
+    }
+
     public Map<Name, DynamicContext.VariableDependency> getDynamicContextVariableDependencies() {
         Map<Name, DynamicContext.VariableDependency> result =
             new TreeMap<Name, DynamicContext.VariableDependency>();
@@ -25,6 +25,7 @@ import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
@@ -43,13 +44,14 @@ import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.runtime.RuntimeTupleIterator;
 import org.rumbledb.runtime.flwor.FlworDataFrameColumn;
+import org.rumbledb.runtime.flwor.FlworDataFrameColumn.ColumnFormat;
 import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
 import org.rumbledb.runtime.flwor.NativeClauseContext;
 import org.rumbledb.runtime.flwor.closures.ItemsToBinaryColumn;
+import org.rumbledb.runtime.flwor.closures.ItemsToNativeColumn;
 import org.rumbledb.runtime.flwor.udfs.DataFrameContext;
 import org.rumbledb.runtime.flwor.udfs.ForClauseUDF;
 import org.rumbledb.runtime.flwor.udfs.GenericForClauseUDF;
-import org.rumbledb.runtime.flwor.udfs.IntegerSerializeUDF;
 import org.rumbledb.runtime.navigation.PredicateIterator;
 import org.rumbledb.types.BuiltinTypesCatalogue;
 import org.rumbledb.types.ItemType;
@@ -79,6 +81,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
     private Name variableName; // for efficient use in local iteration
     private Name positionalVariableName; // for efficient use in local iteration
     private RuntimeIterator assignmentIterator;
+    private SequenceType assignmentStaticType;
     private boolean allowingEmpty;
     private DataFrameContext dataFrameContext;
 
@@ -95,6 +98,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
             Name positionalVariableName,
             boolean allowingEmpty,
             RuntimeIterator assignmentIterator,
+            SequenceType assignmentStaticType,
             ExecutionMode executionMode,
             ExceptionMetadata iteratorMetadata
     ) {
@@ -102,6 +106,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
         this.variableName = variableName;
         this.positionalVariableName = positionalVariableName;
         this.assignmentIterator = assignmentIterator;
+        this.assignmentStaticType = assignmentStaticType;
         this.allowingEmpty = allowingEmpty;
         this.assignmentIterator.getVariableDependencies();
         this.dataFrameContext = new DataFrameContext();
@@ -418,6 +423,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
 
             expressionDF = getDataFrameStartingClause(
                 sequenceIterator,
+                null,
                 Name.CONTEXT_ITEM,
                 Name.CONTEXT_POSITION,
                 false,
@@ -429,6 +435,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
             startingClauseDependencies.put(Name.CONTEXT_ITEM, DynamicContext.VariableDependency.FULL);
             expressionDF = getDataFrameStartingClause(
                 sequenceIterator,
+                null,
                 Name.CONTEXT_ITEM,
                 null,
                 false,
@@ -440,19 +447,12 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
         // If the join criterion uses the context count, then we need to add it to the expression side (it is a
         // constant).
         if (predicateDependencies.containsKey(Name.CONTEXT_COUNT)) {
-            expressionDF.sparkSession()
-                .udf()
-                .register(
-                    "serializeIntegerIndex",
-                    new IntegerSerializeUDF(),
-                    DataTypes.BinaryType
-                );
             long size = expressionDF.count();
             expressionDFTableName = FlworDataFrameUtils.createTempView(expressionDF);
             expressionDF = expressionDF.sparkSession()
                 .sql(
                     String.format(
-                        "SELECT *, serializeIntegerIndex(%s) AS `%s` FROM %s",
+                        "SELECT *, CAST(%s AS BIGINT) AS `%s` FROM %s",
                         Long.toString(size),
                         Name.CONTEXT_COUNT.getLocalName(),
                         expressionDFTableName
@@ -530,7 +530,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
 
             // We then get the (singleton) input tuple as a data frame
 
-            List<byte[]> serializedRowColumns = new ArrayList<>();
+            List<Object> serializedRowColumns = new ArrayList<>();
             for (Name columnName : this.inputTuple.getLocalKeys()) {
                 serializedRowColumns.add(
                     FlworDataFrameUtils.serializeItemList(
@@ -540,6 +540,11 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
                     )
                 );
             }
+            for (Name columnName : this.inputTuple.getCountKeys()) {
+                serializedRowColumns.add(
+                    this.inputTuple.getCount(columnName, getMetadata()).castToDecimalValue().longValue()
+                );
+            }
 
             Row row = RowFactory.create(serializedRowColumns.toArray());
 
@@ -658,19 +663,11 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
                     );
             }
         } else {
-            df.sparkSession()
-                .udf()
-                .register(
-                    "serializePositionIndex",
-                    new IntegerSerializeUDF(),
-                    DataTypes.BinaryType
-                );
-
             if (this.allowingEmpty) {
                 df = df.sparkSession()
                     .sql(
                         String.format(
-                            "SELECT %s for_vars.`%s`, serializePositionIndex(IF(for_vars.`%s` IS NULL, 0, for_vars.`%s` + 1)) AS `%s` "
+                            "SELECT %s for_vars.`%s`, CAST(IF(for_vars.`%s` IS NULL, 0, for_vars.`%s` + 1) AS BIGINT) AS `%s` "
                                 + "FROM %s "
                                 + "LATERAL VIEW OUTER posexplode(forClauseUDF(%s)) for_vars AS `%s`, `%s` ",
                             projectionVariables,
@@ -688,7 +685,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
                 df = df.sparkSession()
                     .sql(
                         String.format(
-                            "SELECT %s for_vars.`%s`, serializePositionIndex(for_vars.`%s` + 1) AS `%s` "
+                            "SELECT %s for_vars.`%s`, CAST(for_vars.`%s` + 1 AS BIGINT) AS `%s` "
                                 + "FROM %s "
                                 + "LATERAL VIEW posexplode(forClauseUDF(%s)) for_vars AS `%s`, `%s` ",
                             projectionVariables,
@@ -713,6 +710,11 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
             StructField field = DataTypes.createStructField(columnName.toString(), DataTypes.BinaryType, true);
             fields.add(field);
         }
+        for (Name columnName : this.inputTuple.getCountKeys()) {
+            // variables for which only the count is available, e.g., after a local group by clause
+            FlworDataFrameColumn column = new FlworDataFrameColumn(columnName, ColumnFormat.COUNT);
+            fields.add(DataTypes.createStructField(column.getColumnName(), DataTypes.LongType, true));
+        }
         return DataTypes.createStructType(fields);
     }
 
@@ -729,6 +731,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
     ) {
         return getDataFrameStartingClause(
             this.assignmentIterator,
+            this.assignmentStaticType == null ? null : this.assignmentStaticType.getItemType(),
             this.variableName,
             this.positionalVariableName,
             this.allowingEmpty,
@@ -742,6 +745,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
      * Starting clause and the expression is parallelizable.
      * 
      * @param iterator the expression iterator
+     * @param itemType the static type of the items returned by the expression (or null if unknown)
      * @param variableName the name of the for variable
      * @param positionalVariableName the name of the positional variable (or null if none)
      * @param allowingEmpty whether the allowing empty option is present
@@ -751,6 +755,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
      */
     public static Dataset<Row> getDataFrameStartingClause(
             RuntimeIterator iterator,
+            ItemType itemType,
             Name variableName,
             Name positionalVariableName,
             boolean allowingEmpty,
@@ -790,7 +795,7 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
         } else {
             // create initial RDD from expression
             JavaRDD<Item> expressionRDD = iterator.getRDD(context);
-            df = getDataFrameFromItemRDD(variableName, expressionRDD);
+            df = getDataFrameFromItemRDD(variableName, itemType, expressionRDD);
         }
         if (positionalVariableName == null && !allowingEmpty) {
             return df;
@@ -809,27 +814,21 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
             return df;
         }
         // Add column for positional variable, similar to count clause.
-        Dataset<Row> dfWithIndex = CountClauseSparkIterator.addSerializedCountColumn(
+        Dataset<Row> dfWithIndex = CountClauseSparkIterator.addCountColumn(
             df,
             outputDependencies,
-            positionalVariableName
+            positionalVariableName,
+            context
         );
         if (!allowingEmpty) {
             return dfWithIndex;
         }
         String inputWithIndex = FlworDataFrameUtils.createTempView(dfWithIndex);
-        dfWithIndex.sparkSession()
-            .udf()
-            .register(
-                "serializeCountIndex",
-                new IntegerSerializeUDF(),
-                DataTypes.BinaryType
-            );
 
         dfWithIndex = dfWithIndex.sparkSession()
             .sql(
                 String.format(
-                    "SELECT %s.`%s`, IF(%s.`%s` IS NULL, serializeCountIndex(0), %s.`%s`) AS `%s` FROM VALUES(1) FULL OUTER JOIN %s",
+                    "SELECT %s.`%s`, IF(%s.`%s` IS NULL, CAST(0 AS BIGINT), %s.`%s`) AS `%s` FROM VALUES(1) FULL OUTER JOIN %s",
                     inputWithIndex,
                     variableName,
                     inputWithIndex,
@@ -843,14 +842,31 @@ public class ForClauseSparkIterator extends RuntimeTupleIterator {
         return dfWithIndex;
     }
 
-    private static Dataset<Row> getDataFrameFromItemRDD(Name variableName, JavaRDD<Item> expressionRDD) {
+    private static Dataset<Row> getDataFrameFromItemRDD(
+            Name variableName,
+            ItemType itemType,
+            JavaRDD<Item> expressionRDD
+    ) {
+        // items of a suitable static type are stored natively, so that they need not be deserialized downstream
+        // and can be used in native SQL queries; all others are serialized.
+        DataType nativeType = ItemsToNativeColumn.getNativeColumnType(itemType);
+
         // define a schema
         List<StructField> fields = Collections.singletonList(
-            DataTypes.createStructField(variableName.toString(), DataTypes.BinaryType, true)
+            nativeType != null
+                ? DataTypes.createStructField(
+                    variableName.toString(),
+                    nativeType,
+                    true,
+                    ItemsToNativeColumn.getNativeColumnMetadata(itemType)
+                )
+                : DataTypes.createStructField(variableName.toString(), DataTypes.BinaryType, true)
         );
         StructType schema = DataTypes.createStructType(fields);
 
-        JavaRDD<Row> rowRDD = expressionRDD.map(new ItemsToBinaryColumn());
+        JavaRDD<Row> rowRDD = nativeType != null
+            ? expressionRDD.map(new ItemsToNativeColumn(nativeType))
+            : expressionRDD.map(new ItemsToBinaryColumn());
 
         // apply the schema to row RDD
         return SparkSessionManager.getInstance().getOrCreateSession().createDataFrame(rowRDD, schema);
@@ -20,8 +20,11 @@
 
 package org.rumbledb.runtime.flwor.clauses;
 
+import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.ArrayType;
 import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
@@ -42,6 +45,7 @@ import org.rumbledb.runtime.RuntimeTupleIterator;
 import org.rumbledb.runtime.flwor.FlworDataFrameColumn;
 import org.rumbledb.runtime.flwor.FlworDataFrameColumn.ColumnFormat;
 import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
+import org.rumbledb.runtime.flwor.GroupVariableAggregate;
 import org.rumbledb.runtime.flwor.expression.GroupByClauseSparkIteratorExpression;
 import org.rumbledb.runtime.flwor.udfs.GroupClauseArrayMergeAggregateResultsUDF;
 import org.rumbledb.runtime.flwor.udfs.GroupClauseCreateColumnsUDF;
@@ -50,9 +54,8 @@ import sparksoniq.jsoniq.tuple.FlworKey;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -142,110 +145,165 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
 
     /**
      * All local results need to be calculated for grouping to be performed.
+     * Non-grouping variables are aggregated within each group as tuples come in, according to how they are used
+     * after this clause, so that tuples do not need to be buffered.
      */
     private void setAllLocalResults() {
-        Map<FlworKey, List<FlworTuple>> keyTuplePairs = mapTuplesToPairs();
-        keyTuplePairs.forEach((key, tupleList) -> linearizeTuples(tupleList));
-
-        this.child.close();
-        this.hasNext = this.localTupleResults.size() != 0;
-    }
-
-
-    private HashMap<FlworKey, List<FlworTuple>> mapTuplesToPairs() {
-        HashMap<FlworKey, List<FlworTuple>> keyValuePairs = new HashMap<>();
+        Map<FlworKey, LocalGroup> groups = new LinkedHashMap<>();
 
         // assign current context as parent. re-use the same context object for efficiency
         DynamicContext tupleContext = new DynamicContext(this.currentDynamicContext);
         while (this.child.hasNext()) {
             FlworTuple inputTuple = this.child.next();
+            FlworKey key = computeGroupingKey(inputTuple, tupleContext);
+            LocalGroup group = groups.get(key);
+            if (group == null) {
+                group = new LocalGroup(inputTuple);
+                groups.put(key, group);
+            }
+            group.add(inputTuple);
+        }
+        for (LocalGroup group : groups.values()) {
+            this.localTupleResults.add(group.toTuple());
+        }
+
+        this.child.close();
+        this.hasNext = this.localTupleResults.size() != 0;
+    }
+
+    private FlworKey computeGroupingKey(FlworTuple inputTuple, DynamicContext tupleContext) {
+        List<Item> results = new ArrayList<>();
+        for (GroupByClauseSparkIteratorExpression expression : this.groupingExpressions) {
+            tupleContext.getVariableValues().removeAllVariables(); // clear the previous variables
+            tupleContext.getVariableValues().setBindingsFromTuple(inputTuple, getMetadata()); // assign new
+                                                                                              // variables from new
+                                                                                              // tuple
+
+            // if grouping on an expression
+            RuntimeIterator groupVariableExpression = expression.getExpression();
+            if (groupVariableExpression != null) {
+                if (inputTuple.contains(expression.getVariableName())) {
+                    throw new InvalidGroupVariableException(
+                            "Group by variable redeclaration is illegal",
+                            getMetadata()
+                    );
+                }
 
-            List<Item> results = new ArrayList<>();
-            for (GroupByClauseSparkIteratorExpression expression : this.groupingExpressions) {
-                tupleContext.getVariableValues().removeAllVariables(); // clear the previous variables
-                tupleContext.getVariableValues().setBindingsFromTuple(inputTuple, getMetadata()); // assign new
-                                                                                                  // variables from new
-                                                                                                  // tuple
-
-                // if grouping on an expression
-                RuntimeIterator groupVariableExpression = expression.getExpression();
-                if (groupVariableExpression != null) {
-                    if (inputTuple.contains(expression.getVariableName())) {
-                        throw new InvalidGroupVariableException(
-                                "Group by variable redeclaration is illegal",
+                List<Item> newVariableResults = new ArrayList<>();
+                groupVariableExpression.open(tupleContext);
+                while (groupVariableExpression.hasNext()) {
+                    Item resultItem = groupVariableExpression.next();
+                    if (!resultItem.isAtomic()) {
+                        throw new NonAtomicKeyException(
+                                "Group by keys must be atomics",
                                 getMetadata()
                         );
                     }
+                    newVariableResults.add(resultItem);
+                }
+                groupVariableExpression.close();
 
-                    List<Item> newVariableResults = new ArrayList<>();
-                    groupVariableExpression.open(tupleContext);
-                    while (groupVariableExpression.hasNext()) {
-                        Item resultItem = groupVariableExpression.next();
-                        if (!resultItem.isAtomic()) {
-                            throw new NonAtomicKeyException(
-                                    "Group by keys must be atomics",
-                                    getMetadata()
-                            );
-                        }
-                        newVariableResults.add(resultItem);
-                    }
-                    groupVariableExpression.close();
-
-                    // if a new variable is declared inside the group by clause, insert value in tuple
-                    inputTuple.putValue(expression.getVariableName(), newVariableResults);
-                    results.addAll(newVariableResults);
-
-                } else { // if grouping on a variable reference
-                    Name groupVariableName = expression.getVariableName();
-                    if (!inputTuple.contains(groupVariableName)) {
-                        throw new InvalidGroupVariableException(
-                                "Variable "
-                                    + groupVariableName
-                                    + " cannot be used in group clause",
-                                this.getMetadata()
-                        );
-                    }
+                // if a new variable is declared inside the group by clause, insert value in tuple
+                inputTuple.putValue(expression.getVariableName(), newVariableResults);
+                results.addAll(newVariableResults);
 
-                    results.addAll(
-                        tupleContext.getVariableValues()
-                            .getLocalVariableValue(
-                                groupVariableName,
-                                getMetadata()
-                            )
+            } else { // if grouping on a variable reference
+                Name groupVariableName = expression.getVariableName();
+                if (!inputTuple.contains(groupVariableName)) {
+                    throw new InvalidGroupVariableException(
+                            "Variable "
+                                + groupVariableName
+                                + " cannot be used in group clause",
+                            this.getMetadata()
                     );
                 }
+
+                results.addAll(
+                    tupleContext.getVariableValues()
+                        .getLocalVariableValue(
+                            groupVariableName,
+                            getMetadata()
+                        )
+                );
             }
-            FlworKey key = new FlworKey(results);
-            List<FlworTuple> values = keyValuePairs.get(key); // all values for a single matching key are held in a list
-            if (values == null) {
-                values = new ArrayList<>();
-                keyValuePairs.put(key, values);
-            }
-            values.add(inputTuple);
         }
-        return keyValuePairs;
+        return new FlworKey(results);
     }
 
-    private void linearizeTuples(List<FlworTuple> keyTuplePairs) {
-        Iterator<FlworTuple> iterator = keyTuplePairs.iterator();
-        FlworTuple oldFirstTuple = iterator.next();
-        FlworTuple newTuple = new FlworTuple(oldFirstTuple.getLocalKeys().size());
-        for (Name tupleVariable : oldFirstTuple.getLocalKeys()) {
-            iterator = keyTuplePairs.iterator();
-            if (
-                this.groupingExpressions.stream()
-                    .anyMatch(v -> v.getVariableName().equals(tupleVariable))
-            ) {
-                newTuple.putValue(tupleVariable, oldFirstTuple.getLocalValue(tupleVariable, getMetadata()));
-            } else {
-                List<Item> allValues = new ArrayList<>();
-                while (iterator.hasNext()) {
-                    allValues.addAll(iterator.next().getLocalValue(tupleVariable, getMetadata()));
+    private boolean isGroupingVariable(Name variable) {
+        return this.groupingExpressions.stream().anyMatch(v -> v.getVariableName().equals(variable));
+    }
+
+    /**
+     * Returns how a non-grouping variable is used after this clause.
+     *
+     * @param variable the variable.
+     * @return its dependency, or null if it is not used.
+     */
+    private DynamicContext.VariableDependency getOutputDependency(Name variable) {
+        if (this.outputTupleProjection == null) {
+            return DynamicContext.VariableDependency.FULL;
+        }
+        return this.outputTupleProjection.get(variable);
+    }
+
+    /**
+     * A group being built: the grouping variables of its first tuple and the running aggregates of the other
+     * variables.
+     */
+    private class LocalGroup {
+
+        private final FlworTuple firstTuple;
+        private final Map<Name, GroupVariableAggregate> aggregates;
+
+        LocalGroup(FlworTuple firstTuple) {
+            this.firstTuple = firstTuple;
+            this.aggregates = new LinkedHashMap<>();
+            for (Name variable : firstTuple.getLocalKeys()) {
+                addAggregate(variable);
+            }
+            for (Name variable : firstTuple.getCountKeys()) {
+                addAggregate(variable);
+            }
+        }
+
+        private void addAggregate(Name variable) {
+            if (isGroupingVariable(variable)) {
+                return;
+            }
+            DynamicContext.VariableDependency dependency = getOutputDependency(variable);
+            if (dependency != null) {
+                this.aggregates.put(variable, new GroupVariableAggregate(dependency, getMetadata()));
+            }
+        }
+
+        void add(FlworTuple tuple) {
+            for (Map.Entry<Name, GroupVariableAggregate> entry : this.aggregates.entrySet()) {
+                if (tuple.getCountKeys().contains(entry.getKey())) {
+                    entry.getValue()
+                        .addCount(tuple.getCount(entry.getKey(), getMetadata()).castToDecimalValue().longValue());
+                } else {
+                    entry.getValue().add(tuple.getLocalValue(entry.getKey(), getMetadata()));
+                }
+            }
+        }
+
+        FlworTuple toTuple() {
+            FlworTuple newTuple = new FlworTuple(this.firstTuple.getLocalKeys().size());
+            for (Name variable : this.firstTuple.getLocalKeys()) {
+                if (isGroupingVariable(variable)) {
+                    newTuple.putValue(variable, this.firstTuple.getLocalValue(variable, getMetadata()));
+                } else if (this.aggregates.containsKey(variable)) {
+                    this.aggregates.get(variable).bindTo(newTuple, variable);
                 }
-                newTuple.putValue(tupleVariable, allValues);
             }
+            for (Name variable : this.firstTuple.getCountKeys()) {
+                if (this.aggregates.containsKey(variable)) {
+                    this.aggregates.get(variable).bindTo(newTuple, variable);
+                }
+            }
+            return newTuple;
         }
-        this.localTupleResults.add(newTuple);
     }
 
     @Override
@@ -308,6 +366,10 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
 
         inputSchema = df.schema();
 
+        if (context.getRumbleRuntimeConfiguration().getSkewSaltBuckets() > 1) {
+            df = detectHotGroupingKeys(df, variableAccessNames, inputSchema, context);
+        }
+
         String input = FlworDataFrameUtils.createTempView(df);
 
         Dataset<Row> nativeQueryResult = tryNativeQuery(
@@ -320,7 +382,7 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
         );
         if (nativeQueryResult != null) {
 
-            return nativeQueryResult;
+            return FlworDataFrameUtils.restoreNativeColumnMetadata(nativeQueryResult, inputSchema);
         }
 
         Map<Name, DynamicContext.VariableDependency> groupingVariables = new TreeMap<>();
@@ -417,7 +479,7 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
                     appendedGroupingColumnsName
                 )
             );
-        return result;
+        return FlworDataFrameUtils.restoreNativeColumnMetadata(result, inputSchema);
     }
 
     public Map<Name, DynamicContext.VariableDependency> getDynamicContextVariableDependencies() {
@@ -497,6 +559,38 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
         return projection;
     }
 
+    /**
+     * Samples the tuples to detect grouping keys shared by a large fraction of them, and reports them to the query
+     * (see HotKeys). The tuples are persisted, so that they are only computed once for the sample and the grouping.
+     * This is only done if all grouping variables are stored natively, the values of which are then the keys.
+     *
+     * @param df the input tuples, with all grouping variables bound.
+     * @param groupingVariables the grouping variables.
+     * @param inputSchema the schema of the input tuples.
+     * @param context the dynamic context, with the configuration.
+     * @return the input tuples, persisted if they were sampled.
+     */
+    private static Dataset<Row> detectHotGroupingKeys(
+            Dataset<Row> df,
+            List<Name> groupingVariables,
+            StructType inputSchema,
+            DynamicContext context
+    ) {
+        List<Column> groupingColumns = new ArrayList<>();
+        for (Name groupingVariable : groupingVariables) {
+            if (!FlworDataFrameUtils.isVariableAvailableAsNativeItem(inputSchema, groupingVariable)) {
+                return df;
+            }
+            groupingColumns.add(functions.col("`" + groupingVariable + "`"));
+        }
+        Column key = groupingColumns.size() == 1
+            ? groupingColumns.get(0).cast(DataTypes.StringType)
+            : functions.to_json(functions.struct(groupingColumns.toArray(new Column[0])));
+        df = context.getCacheManager().persist(df);
+        FlworDataFrameUtils.detectHotKeys(df, key, "group by", context);
+        return df;
+    }
+
     /**
      * Try to generate the native query for the group by clause and run it, if successful return the resulting
      * dataframe,
@@ -524,11 +618,20 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
                 // we got a non-native type for grouping, switch to udf version
                 return null;
             }
+            DataType groupingType = inputSchema.fields()[inputSchema.fieldIndex(groupingVar.toString())].dataType();
+            if (groupingType instanceof StructType || groupingType instanceof ArrayType) {
+                // objects and arrays cannot be grouped on, the udf version reports the error
+                return null;
+            }
 
             groupByString.append(sep);
             sep = ", ";
             groupByString.append(groupingVar.toString());
         }
+        if (dependencies.isEmpty()) {
+            // nothing to select, the udf version handles empty tuples
+            return null;
+        }
         StringBuilder selectString = new StringBuilder();
         sep = " ";
         for (Map.Entry<Name, DynamicContext.VariableDependency> entry : dependencies.entrySet()) {
@@ -579,6 +682,23 @@ public class GroupByClauseSparkIterator extends RuntimeTupleIterator {
                 if (field.dataType().equals(DataTypes.BinaryType)) {
                     return null;
                 }
+                ColumnFormat aggregateFormat = FlworDataFrameUtils.getPartialAggregateFormat(
+                    entry.getValue(),
+                    field.dataType()
+                );
+                if (aggregateFormat != null) {
+                    // only the aggregate is needed, so that Spark can compute it partially before the shuffle
+                    selectString.append(
+                        FlworDataFrameUtils.getPartialAggregate(
+                            aggregateFormat,
+                            "`" + columnName + "`",
+                            field.dataType()
+                        )
+                    );
+                    selectString.append(" as ");
+                    selectString.append(new FlworDataFrameColumn(entry.getKey(), aggregateFormat));
+                    continue;
+                }
                 selectString.append("collect_list(");
                 selectString.append(columnName);
                 selectString.append(") as ");
@@ -20,10 +20,15 @@
 
 package org.rumbledb.runtime.flwor.clauses;
 
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.InternalRow;
+import org.apache.spark.sql.catalyst.expressions.UnsafeRow;
+import org.apache.spark.sql.functions;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructType;
+import org.apache.spark.util.SizeEstimator;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.context.DynamicContext.VariableDependency;
 import org.rumbledb.context.Name;
@@ -45,6 +50,7 @@ import org.rumbledb.runtime.primary.ArrayRuntimeIterator;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 import sparksoniq.spark.SparkSessionManager;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -119,6 +125,12 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
             Name newRightSideVariableName, // really needed?
             ExceptionMetadata metadata
     ) {
+        boolean broadcastRightInputTuple = isSmallEnoughToBroadcast(rightInputTuple, context);
+        if (broadcastRightInputTuple) {
+            System.err.println(
+                "[INFO] Rumble detected that the right-hand side of a join is small and will broadcast it."
+            );
+        }
         Dataset<Row> result = tryNativeQueryStatically(
             context,
             leftInputTuple,
@@ -127,6 +139,7 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
             predicateIterator,
             isLeftOuterJoin,
             newRightSideVariableName,
+            broadcastRightInputTuple,
             metadata
         );
         if (result != null) {
@@ -149,10 +162,6 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
             variablesInRightInputTuple
         );
 
-        if (isLeftOuterJoin) {
-            optimizableJoin = false;
-        }
-
         // for (RuntimeIterator r : rightHandSideEqualityCriteria) {
         // StringBuffer sb = new StringBuffer();
         // r.print(sb, 2);
@@ -252,14 +261,58 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
 
 
 
-        // Now we prepare the two views that we want to compute the Cartesian product of.
-        leftInputDFTableName = FlworDataFrameUtils.createTempView(leftInputTuple);
-        rightInputDFTableName = FlworDataFrameUtils.createTempView(rightInputTuple);
-
         StructType leftSchema = leftInputTuple.schema();
         StructType rightSchema = rightInputTuple.schema();
         StructType jointSchema = FlworDataFrameUtils.schemaUnion(leftSchema, rightSchema);
 
+        // Tuples that share a hot key would all end up in the same task. We spread the left tuples with such a key over
+        // several buckets and copy the matching right tuples to each of them.
+        boolean saltJoin = optimizableJoin
+            && !broadcastRightInputTuple
+            && context.getRumbleRuntimeConfiguration().getSkewSaltBuckets() > 1;
+        if (saltJoin) {
+            // the left tuples are persisted, so that they are only computed once for the sample and the join.
+            leftInputTuple = context.getCacheManager().persist(leftInputTuple);
+            List<Object> hotKeys = FlworDataFrameUtils.detectHotKeys(
+                leftInputTuple,
+                functions.col(SparkSessionManager.leftHandSideHashColumnName),
+                "join",
+                context
+            );
+            saltJoin = !hotKeys.isEmpty();
+            if (saltJoin) {
+                int buckets = context.getRumbleRuntimeConfiguration().getSkewSaltBuckets();
+                leftInputTuple = leftInputTuple.withColumn(
+                    SparkSessionManager.leftHandSideSaltColumnName,
+                    functions.when(
+                        functions.col(SparkSessionManager.leftHandSideHashColumnName).isin(hotKeys.toArray()),
+                        functions.pmod(functions.monotonically_increasing_id(), functions.lit((long) buckets))
+                    ).otherwise(functions.lit(0L))
+                );
+                rightInputTuple = rightInputTuple.withColumn(
+                    SparkSessionManager.rightHandSideSaltColumnName,
+                    functions.explode(
+                        functions.when(
+                            functions.col(SparkSessionManager.rightHandSideHashColumnName).isin(hotKeys.toArray()),
+                            functions.sequence(functions.lit(0L), functions.lit(buckets - 1L))
+                        ).otherwise(functions.array(functions.lit(0L)))
+                    )
+                );
+            }
+        }
+        String saltCondition = saltJoin
+            ? String.format(
+                " AND `%s` = `%s`",
+                SparkSessionManager.rightHandSideSaltColumnName,
+                SparkSessionManager.leftHandSideSaltColumnName
+            )
+            : "";
+
+        // Now we prepare the two views that we want to compute the Cartesian product of.
+        leftInputDFTableName = FlworDataFrameUtils.createTempView(leftInputTuple);
+        rightInputDFTableName = FlworDataFrameUtils.createTempView(rightInputTuple);
+        String hint = getJoinHint(rightInputDFTableName, broadcastRightInputTuple);
+
         // We gather the columns to select from the previous clause.
         // We need to project away the clause's variables from the previous clause.
         // One variable gets renamed. We need to remove it from the projection.
@@ -306,12 +359,31 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
 
         String UDFParameters = FlworDataFrameUtils.getUDFParameters(joinCriterionUDFcolumns);
 
-        // If we allow empty, we need a LEFT OUTER JOIN.
+        // If we allow empty, we need a LEFT OUTER JOIN. The whole predicate goes into the join condition, so that
+        // left tuples without a match are kept. Like the inner join, it does not keep the order of the tuples.
+        if (isLeftOuterJoin && optimizableJoin) {
+            Dataset<Row> resultDF = leftInputTuple.sparkSession()
+                .sql(
+                    String.format(
+                        "SELECT %s%s FROM %s LEFT OUTER JOIN %s ON `%s` = `%s`%s AND joinUDF(%s) = 'true'",
+                        hint,
+                        projectionVariables,
+                        leftInputDFTableName,
+                        rightInputDFTableName,
+                        SparkSessionManager.rightHandSideHashColumnName,
+                        SparkSessionManager.leftHandSideHashColumnName,
+                        saltCondition,
+                        UDFParameters
+                    )
+                );
+            return resultDF;
+        }
         if (isLeftOuterJoin) {
             Dataset<Row> resultDF = leftInputTuple.sparkSession()
                 .sql(
                     String.format(
-                        "SELECT %s FROM %s LEFT OUTER JOIN %s ON joinUDF(%s) = 'true'",
+                        "SELECT %s%s FROM %s LEFT OUTER JOIN %s ON joinUDF(%s) = 'true'",
+                        hint,
                         projectionVariables,
                         leftInputDFTableName,
                         rightInputDFTableName,
@@ -326,12 +398,14 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
             Dataset<Row> resultDF = leftInputTuple.sparkSession()
                 .sql(
                     String.format(
-                        "SELECT %s FROM %s JOIN %s ON `%s` = `%s` WHERE joinUDF(%s) = 'true'",
+                        "SELECT %s%s FROM %s JOIN %s ON `%s` = `%s`%s WHERE joinUDF(%s) = 'true'",
+                        hint,
                         projectionVariables,
                         leftInputDFTableName,
                         rightInputDFTableName,
                         SparkSessionManager.rightHandSideHashColumnName,
                         SparkSessionManager.leftHandSideHashColumnName,
+                        saltCondition,
                         UDFParameters
                     )
                 );
@@ -341,7 +415,8 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
         Dataset<Row> resultDF = leftInputTuple.sparkSession()
             .sql(
                 String.format(
-                    "SELECT %s FROM %s JOIN %s ON joinUDF(%s) = 'true'",
+                    "SELECT %s%s FROM %s JOIN %s ON joinUDF(%s) = 'true'",
+                    hint,
                     projectionVariables,
                     leftInputDFTableName,
                     rightInputDFTableName,
@@ -351,6 +426,87 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
         return resultDF;
     }
 
+    /**
+     * Tells whether the right-hand side of a join should be broadcast to all executors, so that the left-hand side
+     * does not need to be shuffled. This is the case if its size is below the configured threshold. Spark only knows
+     * the size of some data sources (e.g., Parquet files), not that of data frames created from RDDs, such as
+     * parallelized sequences or JSON Lines inputs. The rows of the right-hand side are then measured, a few partitions
+     * at a time, until their size exceeds the threshold. Nothing is persisted, and a large right-hand side is only
+     * computed as far as needed to tell that it is too large.
+     *
+     * @param rightInputTuple the right-hand side.
+     * @param context the dynamic context, with the configuration.
+     * @return true if it should be broadcast.
+     */
+    public static boolean isSmallEnoughToBroadcast(
+            Dataset<Row> rightInputTuple,
+            DynamicContext context
+    ) {
+        long threshold = context.getRumbleRuntimeConfiguration().getBroadcastJoinThreshold();
+        if (threshold < 0) {
+            return false;
+        }
+        BigInteger estimatedSize = rightInputTuple.queryExecution()
+            .optimizedPlan()
+            .stats()
+            .sizeInBytes()
+            .bigInteger();
+        // Spark estimates the size of data frames it knows nothing about from the largest long, possibly scaled down by
+        // projections, which is far beyond the size of any actual input.
+        boolean isSizeKnown = estimatedSize.bitLength() < 62;
+        if (isSizeKnown) {
+            return estimatedSize.compareTo(BigInteger.valueOf(threshold)) <= 0;
+        }
+        return measureUpTo(rightInputTuple, threshold) <= threshold;
+    }
+
+    /**
+     * Measures the rows of a data frame as Spark holds them in a broadcast relation, scanning its partitions in
+     * batches of growing size, as Spark does for a limit, and stopping as soon as the size exceeds a bound. Within a
+     * partition, rows are not read further once the bound is exceeded.
+     *
+     * @param dataFrame the data frame.
+     * @param bound the bound.
+     * @return the size of the rows in bytes, or a value above the bound if it is exceeded.
+     */
+    private static long measureUpTo(Dataset<Row> dataFrame, long bound) {
+        JavaRDD<Long> partitionSizes = dataFrame.queryExecution()
+            .toRdd()
+            .toJavaRDD()
+            .mapPartitions(rows -> {
+                long size = 0;
+                while (size <= bound && rows.hasNext()) {
+                    InternalRow row = rows.next();
+                    size += row instanceof UnsafeRow
+                        ? ((UnsafeRow) row).getSizeInBytes()
+                        : SizeEstimator.estimate(row);
+                }
+                return Collections.singletonList(size).iterator();
+            });
+        int numberOfPartitions = partitionSizes.getNumPartitions();
+        long size = 0;
+        int nextPartition = 0;
+        int batchSize = 1;
+        while (nextPartition < numberOfPartitions && size <= bound) {
+            int[] batch = new int[Math.min(batchSize, numberOfPartitions - nextPartition)];
+            for (int i = 0; i < batch.length; ++i) {
+                batch[i] = nextPartition++;
+            }
+            for (List<Long> partitionSize : partitionSizes.collectPartitions(batch)) {
+                size += partitionSize.get(0);
+            }
+            batchSize *= 4;
+        }
+        return size;
+    }
+
+    private static String getJoinHint(String rightInputTupleView, boolean broadcastRightInputTuple) {
+        if (!broadcastRightInputTuple) {
+            return "";
+        }
+        return String.format("/*+ BROADCAST(%s) */ ", rightInputTupleView);
+    }
+
     private static boolean extractEqualityComparisonsForHashing(
             RuntimeIterator predicateIterator,
             List<RuntimeIterator> leftTupleSideEqualityCriteria,
@@ -447,6 +603,7 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
             RuntimeIterator predicateIterator,
             boolean isLeftOuterJoin,
             Name newRightSideVariableName, // really needed?
+            boolean broadcastRightInputTuple,
             ExceptionMetadata metadata
     ) {
         if (isLeftOuterJoin) {
@@ -481,7 +638,8 @@ public class JoinClauseSparkIterator extends RuntimeTupleIterator {
         return leftInputTuple.sparkSession()
             .sql(
                 String.format(
-                    "SELECT %s FROM %s JOIN %s ON %s",
+                    "SELECT %s%s FROM %s JOIN %s ON %s",
+                    getJoinHint(right, broadcastRightInputTuple),
                     projectionVariables,
                     left,
                     right,
@@ -317,6 +317,7 @@ public class LetClauseSparkIterator extends RuntimeTupleIterator {
         sequenceDependencies.put(Name.CONTEXT_ITEM, DynamicContext.VariableDependency.FULL);
         Dataset<Row> expressionDF = ForClauseSparkIterator.getDataFrameStartingClause(
             sequenceIterator,
+            null,
             Name.CONTEXT_ITEM,
             null,
             false,
@@ -46,29 +46,50 @@ import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
 import org.rumbledb.runtime.flwor.NativeClauseContext;
 import org.rumbledb.runtime.flwor.expression.OrderByClauseAnnotatedChildIterator;
 import org.rumbledb.runtime.flwor.udfs.OrderClauseCreateColumnsUDF;
-import org.rumbledb.runtime.flwor.udfs.OrderClauseDetermineTypeUDF;
 import org.rumbledb.types.BuiltinTypesCatalogue;
+import org.rumbledb.types.ItemType;
+import org.rumbledb.types.SequenceType;
 
 import sparksoniq.jsoniq.tuple.FlworKey;
 import sparksoniq.jsoniq.tuple.FlworKeyComparator;
 import sparksoniq.jsoniq.tuple.FlworTuple;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeMap;
 
-import static org.rumbledb.items.parsing.ItemParser.decimalType;
-
 public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
 
-    public static final String StringFlagForEmptySequence = "empty-sequence";
     private static final long serialVersionUID = 1L;
+    // types whose values can be ordered on a single value column, most specific first.
+    private static final List<ItemType> staticallySortableTypes = Arrays.asList(
+        BuiltinTypesCatalogue.booleanItem,
+        BuiltinTypesCatalogue.stringItem,
+        BuiltinTypesCatalogue.integerItem,
+        BuiltinTypesCatalogue.decimalItem,
+        BuiltinTypesCatalogue.doubleItem,
+        BuiltinTypesCatalogue.floatItem,
+        BuiltinTypesCatalogue.durationItem,
+        BuiltinTypesCatalogue.dateTimeItem,
+        BuiltinTypesCatalogue.dateItem,
+        BuiltinTypesCatalogue.timeItem
+    );
+    private static final DataType orderingDecimalType = DataTypes.createDecimalType(
+        OrderClauseCreateColumnsUDF.decimalPrecision,
+        OrderClauseCreateColumnsUDF.decimalScale
+    );
     private final List<OrderByClauseAnnotatedChildIterator> expressionsWithIterator;
     private Map<Name, DynamicContext.VariableDependency> dependencies;
+    // number of leading tuples actually consumed downstream, or -1 if all of them are.
+    private final long limit;
 
     private List<FlworTuple> localTupleResults;
     private int resultIndex;
@@ -79,9 +100,33 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
             boolean stable,
             ExecutionMode executionMode,
             ExceptionMetadata iteratorMetadata
+    ) {
+        this(child, expressionsWithIterator, stable, -1, executionMode, iteratorMetadata);
+    }
+
+    /**
+     * Creates an order by clause of which only the first tuples are needed, e.g., because the FLWOR expression is
+     * followed by a positional cut such as subsequence($flwor, 1, 100), head($flwor), or count $c where $c le 100.
+     * Only the top tuples are then kept while sorting, instead of all of them.
+     *
+     * @param child the previous clause.
+     * @param expressionsWithIterator the ordering expressions.
+     * @param stable whether the order by is stable.
+     * @param limit the number of leading tuples needed, or -1 if all are needed.
+     * @param executionMode the execution mode.
+     * @param iteratorMetadata the metadata.
+     */
+    public OrderByClauseSparkIterator(
+            RuntimeTupleIterator child,
+            List<OrderByClauseAnnotatedChildIterator> expressionsWithIterator,
+            boolean stable,
+            long limit,
+            ExecutionMode executionMode,
+            ExceptionMetadata iteratorMetadata
     ) {
         super(child, executionMode, iteratorMetadata);
         this.expressionsWithIterator = expressionsWithIterator;
+        this.limit = limit;
         this.dependencies = new TreeMap<>();
         for (OrderByClauseAnnotatedChildIterator e : this.expressionsWithIterator) {
             this.dependencies.putAll(e.getIterator().getVariableDependencies());
@@ -143,6 +188,12 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
      * All local results need to be calculated for sorting/ordering to be performed.
      */
     private void setAllLocalResults() {
+        if (this.limit >= 0) {
+            this.localTupleResults.addAll(getTopTuples());
+            this.child.close();
+            this.hasNext = this.localTupleResults.size() != 0;
+            return;
+        }
         TreeMap<FlworKey, List<FlworTuple>> keyValuePairs = mapExpressionsToOrderedPairs();
         // get only the values(ordered tuples) and save them in a list for next() calls
         keyValuePairs.forEach((key, valueList) -> this.localTupleResults.addAll(valueList));
@@ -169,33 +220,7 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
         DynamicContext tupleContext = new DynamicContext(this.currentDynamicContext);
         while (this.child.hasNext()) {
             FlworTuple inputTuple = this.child.next();
-
-            List<Item> results = new ArrayList<>(); // results from the expressions will become a key
-            for (OrderByClauseAnnotatedChildIterator expressionWithIterator : this.expressionsWithIterator) {
-                tupleContext.getVariableValues().removeAllVariables(); // clear the previous variables
-                tupleContext.getVariableValues().setBindingsFromTuple(inputTuple, getMetadata()); // assign new
-                                                                                                  // variables from new
-                                                                                                  // tuple
-
-                RuntimeIterator iterator = expressionWithIterator.getIterator();
-                try {
-                    Item resultItem = iterator.materializeAtMostOneItemOrNull(tupleContext);
-                    if (resultItem != null && !resultItem.isAtomic()) {
-                        throw new NoTypedValueException(
-                                "Order by keys must be atomics",
-                                expressionWithIterator.getIterator().getMetadata()
-                        );
-                    }
-                    // possibly null for empty sequence.
-                    results.add(resultItem);
-                } catch (MoreThanOneItemException e) {
-                    throw new UnexpectedTypeException(
-                            "Order by keys must be at most one item",
-                            expressionWithIterator.getIterator().getMetadata()
-                    );
-                }
-            }
-            FlworKey key = new FlworKey(results);
+            FlworKey key = computeOrderingKey(inputTuple, tupleContext);
             List<FlworTuple> values = keyValuePairs.get(key); // all values for a single matching key are held in a list
             if (values == null) {
                 values = new ArrayList<>();
@@ -206,6 +231,83 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
         return keyValuePairs;
     }
 
+    /**
+     * Keeps the first tuples in a bounded heap, the top of which is the last tuple kept so far.
+     * Ties are broken by arrival order, so that the result is the same as a prefix of the full (stable) sort.
+     * Requires child iterator to be opened.
+     *
+     * @return the first tuples, in order.
+     */
+    private List<FlworTuple> getTopTuples() {
+        FlworKeyComparator keyComparator = new FlworKeyComparator(this.expressionsWithIterator);
+        Comparator<RankedTuple> comparator = (first, second) -> {
+            int result = keyComparator.compare(first.key, second.key);
+            return result != 0 ? result : Long.compare(first.rank, second.rank);
+        };
+        PriorityQueue<RankedTuple> heap = new PriorityQueue<>(comparator.reversed());
+
+        // assign current context as parent. re-use the same context object for efficiency
+        DynamicContext tupleContext = new DynamicContext(this.currentDynamicContext);
+        long rank = 0;
+        while (this.child.hasNext()) {
+            FlworTuple inputTuple = this.child.next();
+            RankedTuple candidate = new RankedTuple(computeOrderingKey(inputTuple, tupleContext), rank++, inputTuple);
+            if (heap.size() < this.limit) {
+                heap.add(candidate);
+            } else if (!heap.isEmpty() && comparator.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        List<FlworTuple> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().tuple);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private FlworKey computeOrderingKey(FlworTuple inputTuple, DynamicContext tupleContext) {
+        List<Item> results = new ArrayList<>(); // results from the expressions will become a key
+        for (OrderByClauseAnnotatedChildIterator expressionWithIterator : this.expressionsWithIterator) {
+            tupleContext.getVariableValues().removeAllVariables(); // clear the previous variables
+            tupleContext.getVariableValues().setBindingsFromTuple(inputTuple, getMetadata()); // assign new
+                                                                                              // variables from new
+                                                                                              // tuple
+
+            RuntimeIterator iterator = expressionWithIterator.getIterator();
+            try {
+                Item resultItem = iterator.materializeAtMostOneItemOrNull(tupleContext);
+                if (resultItem != null && !resultItem.isAtomic()) {
+                    throw new NoTypedValueException(
+                            "Order by keys must be atomics",
+                            expressionWithIterator.getIterator().getMetadata()
+                    );
+                }
+                // possibly null for empty sequence.
+                results.add(resultItem);
+            } catch (MoreThanOneItemException e) {
+                throw new UnexpectedTypeException(
+                        "Order by keys must be at most one item",
+                        expressionWithIterator.getIterator().getMetadata()
+                );
+            }
+        }
+        return new FlworKey(results);
+    }
+
+    private static class RankedTuple {
+        private final FlworKey key;
+        private final long rank;
+        private final FlworTuple tuple;
+
+        RankedTuple(FlworKey key, long rank, FlworTuple tuple) {
+            this.key = key;
+            this.rank = rank;
+            this.tuple = tuple;
+        }
+    }
+
     @Override
     public Dataset<Row> getDataFrame(
             DynamicContext context
@@ -241,7 +343,8 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
             this.expressionsWithIterator,
             allColumns,
             inputSchema,
-            context
+            context,
+            this.limit
         );
         if (nativeQueryResult != null) {
             return nativeQueryResult;
@@ -250,210 +353,362 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
         df.sparkSession()
             .udf()
             .register(
-                "determineOrderingDataType",
-                new OrderClauseDetermineTypeUDF(this.expressionsWithIterator, context, inputSchema, UDFcolumns),
-                DataTypes.createArrayType(DataTypes.StringType)
+                "createOrderingColumns",
+                new OrderClauseCreateColumnsUDF(this.expressionsWithIterator, context, inputSchema, UDFcolumns),
+                getOrderingColumnsType(numberOfOrderingKeys)
             );
 
-
         String UDFParameters = FlworDataFrameUtils.getUDFParameters(UDFcolumns);
+        String selectSQL = FlworDataFrameUtils.getSQLColumnProjection(allColumns, true);
+        String projectSQL = selectSQL.substring(0, selectSQL.length() - 1); // remove trailing comma
+        String appendedOrderingColumnsName = "ordering_columns";
 
-        df.createOrReplaceTempView("input");
-        df.sparkSession().table("input").cache();
-        Dataset<Row> columnTypesDf = df.sparkSession()
+        // The sorting keys are evaluated only once, into self-describing columns (see OrderClauseCreateColumnsUDF).
+        String input = FlworDataFrameUtils.createTempView(df);
+        Dataset<Row> keyedDf = df.sparkSession()
             .sql(
                 String.format(
-                    "select distinct(determineOrderingDataType(%s)) as `distinct-types` from input",
-                    UDFParameters
+                    "select %s createOrderingColumns(%s) as `%s` from %s",
+                    selectSQL,
+                    UDFParameters,
+                    appendedOrderingColumnsName,
+                    input
                 )
             );
-        Object columnTypesObject = columnTypesDf.collect();
-        Row[] columnTypesOfRows = ((Row[]) columnTypesObject);
 
-        if (columnTypesOfRows.length == 0) {
-            // The input is empty, so we output this empty DF again.
-            return df;
-        }
-
-        // Every column represents an order by expression
-        // Check that every column contains a matching atomic type in all rows (nulls and empty-sequences are allowed)
-        Map<Integer, Name> typesForAllColumns = new LinkedHashMap<>();
-        for (Row columnTypesOfRow : columnTypesOfRows) {
-            List<Object> columnsTypesOfRowAsList = columnTypesOfRow.getList(0);
+        Map<Integer, Name> typesForAllColumns = getStaticSortingKeyTypes();
+        if (typesForAllColumns == null) {
+            // The types of the keys are read from their type columns, so the keys are kept for the ordering. They
+            // are released once the ordered tuples are consumed, as the cache manager releases what was persisted
+            // while computing a collected result, or right away if there is nothing to order.
+            keyedDf = context.getCacheManager().persist(keyedDf);
+            String keyed = FlworDataFrameUtils.createTempView(keyedDf);
+            StringBuilder typeColumnsSQL = new StringBuilder();
             for (int columnIndex = 0; columnIndex < numberOfOrderingKeys; columnIndex++) {
-                String typeString = (String) columnsTypesOfRowAsList.get(columnIndex);
-                boolean isEmptySequence = typeString.contentEquals(StringFlagForEmptySequence);
-                if (!isEmptySequence) {
-                    Name columnType = BuiltinTypesCatalogue.getItemTypeByName(
-                        Name.createVariableInDefaultTypeNamespace(typeString)
-                    ).getName();
-                    if (
-                        !columnType.equals(BuiltinTypesCatalogue.nullItem.getName())
-                    ) {
-                        Name currentColumnType = typesForAllColumns.get(columnIndex);
-                        if (currentColumnType == null) {
-                            typesForAllColumns.put(columnIndex, columnType);
-                        } else if (
-                            (currentColumnType.equals(BuiltinTypesCatalogue.integerItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.intItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.floatItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.decimalItem.getName()))
-                                && (columnType.equals(BuiltinTypesCatalogue.integerItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.intItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.floatItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.decimalItem.getName()))
-                        ) {
-                            // the numeric type calculation is identical to Item::getNumericResultType()
-                            if (
-                                currentColumnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
-                            ) {
-                                typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.floatItem.getName());
-                            } else if (
-                                currentColumnType.equals(BuiltinTypesCatalogue.floatItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.floatItem.getName())
-                            ) {
-                                typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.doubleItem.getName());
-                            } else if (
-                                currentColumnType.equals(BuiltinTypesCatalogue.decimalItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.decimalItem.getName())
-                            ) {
-                                typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.decimalItem.getName());
-                            } else {
-                                // do nothing, type is already set to integer
-                            }
-                        } else if (
-                            (currentColumnType.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
-                                || currentColumnType.equals(BuiltinTypesCatalogue.durationItem.getName()))
-                                && (columnType.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
-                                    || columnType.equals(BuiltinTypesCatalogue.durationItem.getName()))
-                        ) {
-                            typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.durationItem.getName());
-                        } else if (!currentColumnType.equals(columnType)) {
-                            throw new UnexpectedTypeException(
-                                    "Order by variable must contain values of a single type.",
-                                    getMetadata()
-                            );
-                        }
-                    }
+                if (columnIndex > 0) {
+                    typeColumnsSQL.append(", ");
+                }
+                typeColumnsSQL.append("`");
+                typeColumnsSQL.append(appendedOrderingColumnsName);
+                typeColumnsSQL.append("`.`");
+                typeColumnsSQL.append(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.typeField)
+                );
+                typeColumnsSQL.append("`");
+            }
+            Dataset<Row> columnTypesDf = df.sparkSession()
+                .sql(
+                    String.format(
+                        "select distinct(array(%s)) as `distinct-types` from %s",
+                        typeColumnsSQL,
+                        keyed
+                    )
+                );
+            try {
+                Object columnTypesObject = columnTypesDf.collect();
+                Row[] columnTypesOfRows = ((Row[]) columnTypesObject);
+
+                if (columnTypesOfRows.length == 0) {
+                    // The input is empty, so we output this empty DF again.
+                    context.getCacheManager().unpersist(keyedDf);
+                    return df;
                 }
+                typesForAllColumns = getDynamicSortingKeyTypes(columnTypesOfRows, numberOfOrderingKeys);
+            } catch (RuntimeException e) {
+                // e.g., keys of incompatible types: there is no ordering to keep the keys for.
+                context.getCacheManager().unpersist(keyedDf);
+                throw e;
             }
         }
 
-
-        List<StructField> typedFields = new ArrayList<>(); // Determine the return type for ordering UDF
         StringBuilder orderingSQL = new StringBuilder(); // Prepare the SQL statement for the order by query
-        String appendedOrderingColumnsName = "ordering_columns";
         for (int columnIndex = 0; columnIndex < numberOfOrderingKeys; columnIndex++) {
-            Name columnTypeString = typesForAllColumns.get(columnIndex);
-            String columnName;
-            DataType columnType;
-
-            // every expression contains an int column for null/empty check
-            columnName = columnIndex + "-nullEmptyCheckField";
-            typedFields.add(DataTypes.createStructField(columnName, DataTypes.IntegerType, false));
-
-            // create fields for the given value types
-            columnName = columnIndex + "-valueField";
-            if (columnTypeString == null) {
-                columnType = DataTypes.BooleanType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.booleanItem.getName())) {
-                columnType = DataTypes.BooleanType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.stringItem.getName())) {
-                columnType = DataTypes.StringType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.integerItem.getName())) {
-                columnType = DataTypes.IntegerType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.intItem.getName())) {
-                columnType = DataTypes.IntegerType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.doubleItem.getName())) {
-                columnType = DataTypes.DoubleType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.floatItem.getName())) {
-                columnType = DataTypes.FloatType;
-            } else if (columnTypeString.equals(BuiltinTypesCatalogue.decimalItem.getName())) {
-                columnType = decimalType;
-                // columnType = DataTypes.createDecimalType();
-            } else if (
-                columnTypeString.equals(BuiltinTypesCatalogue.durationItem.getName())
-                    || columnTypeString.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
-                    || columnTypeString.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
-                    || columnTypeString.equals(BuiltinTypesCatalogue.dateTimeItem.getName())
-                    || columnTypeString.equals(BuiltinTypesCatalogue.dateItem.getName())
-                    || columnTypeString.equals(BuiltinTypesCatalogue.timeItem.getName())
-            ) {
-                columnType = DataTypes.LongType;
-            } else {
-                throw new OurBadException(
-                        "Unexpected ordering type found while determining UDF return type."
-                );
-            }
-
-            typedFields.add(DataTypes.createStructField(columnName, columnType, true));
-
             OrderByClauseAnnotatedChildIterator expressionWithIterator = this.expressionsWithIterator.get(columnIndex);
-            // accessing the created ordering row as "`ordering_columns`.`0-nullEmptyCheckField` (desc)"
-            // prepare sql for expression's 1st column
-            orderingSQL.append("`");
-            orderingSQL.append(appendedOrderingColumnsName);
-            orderingSQL.append("`.`");
-            orderingSQL.append(columnIndex);
-            orderingSQL.append("-nullEmptyCheckField`");
-            if (expressionWithIterator.isAscending()) {
+            String direction = expressionWithIterator.isAscending() ? "" : " desc";
+            if (columnIndex > 0) {
                 orderingSQL.append(", ");
-            } else {
-                orderingSQL.append(" desc, ");
             }
-
-            // prepare sql for expression's 2nd column
+            // accessing the created ordering row as "`ordering_columns`.`0-nullEmptyCheckField` (desc)"
             orderingSQL.append("`");
             orderingSQL.append(appendedOrderingColumnsName);
             orderingSQL.append("`.`");
-            orderingSQL.append(columnIndex);
-            orderingSQL.append("-valueField`");
-            if (columnIndex != numberOfOrderingKeys - 1) {
-                if (expressionWithIterator.isAscending()) {
-                    orderingSQL.append(", ");
-                } else {
-                    orderingSQL.append(" desc, ");
-                }
-            } else {
-                if (!expressionWithIterator.isAscending()) {
-                    orderingSQL.append(" desc");
-                }
+            orderingSQL.append(
+                OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.nullEmptyCheckField)
+            );
+            orderingSQL.append("`");
+            orderingSQL.append(direction);
+            for (String valueField : getValueFields(typesForAllColumns.get(columnIndex))) {
+                orderingSQL.append(", `");
+                orderingSQL.append(appendedOrderingColumnsName);
+                orderingSQL.append("`.`");
+                orderingSQL.append(OrderClauseCreateColumnsUDF.getColumnName(columnIndex, valueField));
+                orderingSQL.append("`");
+                orderingSQL.append(direction);
             }
         }
 
-        df.sparkSession()
-            .udf()
-            .register(
-                "createOrderingColumns",
-                new OrderClauseCreateColumnsUDF(
-                        this.expressionsWithIterator,
-                        context,
-                        inputSchema,
-                        typesForAllColumns,
-                        UDFcolumns
-                ),
-                DataTypes.createStructType(typedFields)
-            );
-
-        String selectSQL = FlworDataFrameUtils.getSQLColumnProjection(allColumns, true);
-        String projectSQL = selectSQL.substring(0, selectSQL.length() - 1); // remove trailing comma
-
+        String keyed = FlworDataFrameUtils.createTempView(keyedDf);
         return df.sparkSession()
             .sql(
                 String.format(
-                    "select %s from (select %s createOrderingColumns(%s) as `%s` from input order by %s)",
+                    "select %s from (select * from %s order by %s%s)",
                     projectSQL,
-                    selectSQL,
-                    UDFParameters,
-                    appendedOrderingColumnsName,
-                    orderingSQL
+                    keyed,
+                    orderingSQL,
+                    getLimitSQL(this.limit)
+                )
+            );
+    }
+
+    private static StructType getOrderingColumnsType(int numberOfOrderingKeys) {
+        List<StructField> typedFields = new ArrayList<>();
+        for (int columnIndex = 0; columnIndex < numberOfOrderingKeys; columnIndex++) {
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(
+                        columnIndex,
+                        OrderClauseCreateColumnsUDF.nullEmptyCheckField
+                    ),
+                    DataTypes.IntegerType,
+                    false
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.typeField),
+                    DataTypes.StringType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.booleanField),
+                    DataTypes.BooleanType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.stringField),
+                    DataTypes.StringType,
+                    true
                 )
             );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.integerField),
+                    DataTypes.LongType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.decimalField),
+                    orderingDecimalType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.doubleField),
+                    DataTypes.DoubleType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(
+                        columnIndex,
+                        OrderClauseCreateColumnsUDF.millisecondsField
+                    ),
+                    DataTypes.LongType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.bigIntegerField),
+                    DataTypes.StringType,
+                    true
+                )
+            );
+            typedFields.add(
+                DataTypes.createStructField(
+                    OrderClauseCreateColumnsUDF.getColumnName(columnIndex, OrderClauseCreateColumnsUDF.bigDecimalField),
+                    DataTypes.StringType,
+                    true
+                )
+            );
+        }
+        return DataTypes.createStructType(typedFields);
+    }
+
+    /**
+     * Returns the types of the sorting keys if static type inference proves them, in which case the keys do not need
+     * to be inspected before ordering.
+     *
+     * @return the type of each sorting key, or null if one of them is not known statically.
+     */
+    private Map<Integer, Name> getStaticSortingKeyTypes() {
+        Map<Integer, Name> typesForAllColumns = new LinkedHashMap<>();
+        for (int columnIndex = 0; columnIndex < this.expressionsWithIterator.size(); columnIndex++) {
+            SequenceType staticType = this.expressionsWithIterator.get(columnIndex).getStaticType();
+            if (staticType == null || !staticType.isAritySubtypeOf(SequenceType.Arity.OneOrZero)) {
+                return null;
+            }
+            ItemType itemType = staticType.getItemType();
+            Name columnType = null;
+            for (ItemType sortableType : staticallySortableTypes) {
+                if (itemType.isSubtypeOf(sortableType)) {
+                    columnType = sortableType.getName();
+                    break;
+                }
+            }
+            if (columnType == null) {
+                return null;
+            }
+            typesForAllColumns.put(columnIndex, columnType);
+        }
+        return typesForAllColumns;
+    }
+
+    /**
+     * Determines the type of each sorting key from the distinct combinations of key types found in the input, and
+     * checks that every key contains a matching atomic type in all rows (nulls and empty sequences are allowed).
+     *
+     * @param columnTypesOfRows the distinct combinations of key types.
+     * @param numberOfOrderingKeys the number of sorting keys.
+     * @return the type of each sorting key that has non-null values.
+     */
+    private Map<Integer, Name> getDynamicSortingKeyTypes(Row[] columnTypesOfRows, int numberOfOrderingKeys) {
+        Map<Integer, Name> typesForAllColumns = new LinkedHashMap<>();
+        for (Row columnTypesOfRow : columnTypesOfRows) {
+            List<Object> columnsTypesOfRowAsList = columnTypesOfRow.getList(0);
+            for (int columnIndex = 0; columnIndex < numberOfOrderingKeys; columnIndex++) {
+                String typeString = (String) columnsTypesOfRowAsList.get(columnIndex);
+                if (typeString == null) {
+                    // null or empty sequence
+                    continue;
+                }
+                Name columnType = BuiltinTypesCatalogue.getItemTypeByName(
+                    Name.createVariableInDefaultTypeNamespace(typeString)
+                ).getName();
+                Name currentColumnType = typesForAllColumns.get(columnIndex);
+                if (currentColumnType == null) {
+                    typesForAllColumns.put(columnIndex, columnType);
+                } else if (
+                    (currentColumnType.equals(BuiltinTypesCatalogue.integerItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.intItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.floatItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.decimalItem.getName()))
+                        && (columnType.equals(BuiltinTypesCatalogue.integerItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.intItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.floatItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.decimalItem.getName()))
+                ) {
+                    // the numeric type calculation is identical to Item::getNumericResultType()
+                    if (
+                        currentColumnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
+                    ) {
+                        typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.doubleItem.getName());
+                    } else if (
+                        currentColumnType.equals(BuiltinTypesCatalogue.floatItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.floatItem.getName())
+                    ) {
+                        typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.floatItem.getName());
+                    } else if (
+                        currentColumnType.equals(BuiltinTypesCatalogue.decimalItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.decimalItem.getName())
+                    ) {
+                        typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.decimalItem.getName());
+                    } else {
+                        // do nothing, type is already set to integer
+                    }
+                } else if (
+                    (currentColumnType.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
+                        || currentColumnType.equals(BuiltinTypesCatalogue.durationItem.getName()))
+                        && (columnType.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
+                            || columnType.equals(BuiltinTypesCatalogue.durationItem.getName()))
+                ) {
+                    typesForAllColumns.put(columnIndex, BuiltinTypesCatalogue.durationItem.getName());
+                } else if (!currentColumnType.equals(columnType)) {
+                    throw new UnexpectedTypeException(
+                            "Order by variable must contain values of a single type.",
+                            getMetadata()
+                    );
+                }
+            }
+        }
+        return typesForAllColumns;
+    }
+
+    /**
+     * Returns the fields of the ordering columns on which keys of a given type are ordered, in order.
+     *
+     * Integers at the bounds of the long range or beyond are clamped in the integer field, so integer keys are then
+     * ordered on their encoded digits, which are only set for these integers. Likewise, decimals that do not fit in
+     * the decimal field are clamped or rounded down there, so decimal keys are then ordered on their encoded digits.
+     *
+     * @param columnType the type of the key, or null if it only has nulls and empty sequences.
+     * @return the field names.
+     */
+    private static List<String> getValueFields(Name columnType) {
+        if (columnType == null || columnType.equals(BuiltinTypesCatalogue.booleanItem.getName())) {
+            return Collections.singletonList(OrderClauseCreateColumnsUDF.booleanField);
+        }
+        if (columnType.equals(BuiltinTypesCatalogue.stringItem.getName())) {
+            return Collections.singletonList(OrderClauseCreateColumnsUDF.stringField);
+        }
+        if (
+            columnType.equals(BuiltinTypesCatalogue.integerItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.intItem.getName())
+        ) {
+            return Arrays.asList(OrderClauseCreateColumnsUDF.integerField, OrderClauseCreateColumnsUDF.bigIntegerField);
+        }
+        if (columnType.equals(BuiltinTypesCatalogue.decimalItem.getName())) {
+            return Arrays.asList(OrderClauseCreateColumnsUDF.decimalField, OrderClauseCreateColumnsUDF.bigDecimalField);
+        }
+        if (
+            columnType.equals(BuiltinTypesCatalogue.doubleItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.floatItem.getName())
+        ) {
+            return Collections.singletonList(OrderClauseCreateColumnsUDF.doubleField);
+        }
+        if (
+            columnType.equals(BuiltinTypesCatalogue.durationItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.dateTimeItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.dateItem.getName())
+                || columnType.equals(BuiltinTypesCatalogue.timeItem.getName())
+        ) {
+            return Collections.singletonList(OrderClauseCreateColumnsUDF.millisecondsField);
+        }
+        throw new OurBadException(
+                "Unexpected ordering type found while determining UDF return type."
+        );
+    }
+
+    /**
+     * Returns the limit to append to an ordered query, if only the first tuples are needed.
+     * Spark plans an order by followed by a limit as a top-K on each partition followed by a merge of the partial
+     * results on a single partition (TakeOrderedAndProject), which avoids a global sort of the input.
+     *
+     * Spark rejects limits that do not fit in an int, in which case the whole input is sorted.
+     *
+     * @param limit the number of leading tuples needed, or -1 if all are needed.
+     * @return the limit clause, or an empty string.
+     */
+    private static String getLimitSQL(long limit) {
+        if (limit < 0 || limit > Integer.MAX_VALUE) {
+            return "";
+        }
+        return " limit " + limit;
     }
 
     public Map<Name, DynamicContext.VariableDependency> getDynamicContextVariableDependencies() {
@@ -517,6 +772,7 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
      * @param allColumns other columns required in following clauses
      * @param inputSchema input schema of the dataframe
      * @param context current dynamic context of the dataframe
+     * @param limit number of leading tuples needed, or -1 if all are needed
      * @return resulting dataframe of the order by clause if successful, null otherwise
      */
     public static Dataset<Row> tryNativeQuery(
@@ -524,7 +780,8 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
             List<OrderByClauseAnnotatedChildIterator> expressionsWithIterator,
             List<FlworDataFrameColumn> allColumns,
             StructType inputSchema,
-            DynamicContext context
+            DynamicContext context,
+            long limit
     ) {
         NativeClauseContext orderContext = new NativeClauseContext(FLWOR_CLAUSES.ORDER_BY, inputSchema, context);
         StringBuilder orderSql = new StringBuilder();
@@ -570,9 +827,10 @@ public class OrderByClauseSparkIterator extends RuntimeTupleIterator {
         return dataFrame.sparkSession()
             .sql(
                 String.format(
-                    "select %s from input order by %s",
+                    "select %s from input order by %s%s",
                     selectSQL,
-                    orderSql
+                    orderSql,
+                    getLimitSQL(limit)
                 )
             );
     }
@@ -92,7 +92,7 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
                 );
 
             this.child.open(context);
-            JavaRDD<Item> result = null;
+            List<JavaRDD<Item>> intermediateResults = new ArrayList<>();
             while (this.child.hasNext()) {
                 FlworTuple tuple = this.child.next();
                 // We need a fresh context every time, because the evaluation of RDD is lazy.
@@ -100,17 +100,18 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
                 dynamicContext.getVariableValues().setBindingsFromTuple(tuple, getMetadata()); // assign new variables
                                                                                                // from new tuple
 
-                JavaRDD<Item> intermediateResult = this.expression.getRDD(dynamicContext);
-                if (result == null) {
-                    result = intermediateResult;
-                } else {
-                    result = result.union(intermediateResult);
-                }
+                intermediateResults.add(this.expression.getRDD(dynamicContext));
             }
-            if (result == null) {
+            if (intermediateResults.isEmpty()) {
                 return SparkSessionManager.getInstance().getJavaSparkContext().emptyRDD();
             }
-            return result;
+            if (intermediateResults.size() == 1) {
+                return intermediateResults.get(0);
+            }
+            // A single union of all RDDs, rather than a chain of binary unions as deep as the number of tuples.
+            @SuppressWarnings("unchecked")
+            JavaRDD<Item>[] intermediateResultsArray = intermediateResults.toArray(new JavaRDD[0]);
+            return SparkSessionManager.getInstance().getJavaSparkContext().union(intermediateResultsArray);
         }
         Dataset<Row> df = this.child.getDataFrame(context);
         StructType oldSchema = df.schema();
@@ -123,6 +124,29 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
         return df.toJavaRDD().flatMap(new ReturnFlatMapClosure(expression, context, oldSchema, UDFcolumns));
     }
 
+    /**
+     * Unions data frames pairwise, level by level, so that the plan is a balanced tree of logarithmic depth. Spark
+     * analyzes each intermediate plan recursively, which is quadratic and may overflow the stack for a chain of
+     * unions as long as the number of tuples.
+     *
+     * @param dataFrames the data frames, at least one.
+     * @return their union, in order.
+     */
+    private static JSoundDataFrame unionBalanced(List<JSoundDataFrame> dataFrames) {
+        while (dataFrames.size() > 1) {
+            List<JSoundDataFrame> unions = new ArrayList<>();
+            for (int i = 0; i < dataFrames.size(); i += 2) {
+                if (i + 1 < dataFrames.size()) {
+                    unions.add(dataFrames.get(i).union(dataFrames.get(i + 1)));
+                } else {
+                    unions.add(dataFrames.get(i));
+                }
+            }
+            dataFrames = unions;
+        }
+        return dataFrames.get(0);
+    }
+
     private void setInputAndOutputTupleVariableDependencies() {
         Map<Name, VariableDependency> dependencies = this.expression.getVariableDependencies();
         Set<Name> allTupleNames = this.child.getOutputTupleVariableNames();
@@ -151,7 +175,7 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
                 );
             // context
             this.child.open(context);
-            JSoundDataFrame result = null;
+            List<JSoundDataFrame> intermediateResults = new ArrayList<>();
             while (this.child.hasNext()) {
                 FlworTuple tuple = this.child.next();
                 // We need a fresh context every time, because the evaluation of RDD is lazy.
@@ -159,17 +183,12 @@ public class ReturnClauseSparkIterator extends HybridRuntimeIterator {
                 dynamicContext.getVariableValues().setBindingsFromTuple(tuple, getMetadata()); // assign new variables
                                                                                                // from new tuple
 
-                JSoundDataFrame intermediateResult = this.expression.getDataFrame(dynamicContext);
-                if (result == null) {
-                    result = intermediateResult;
-                } else {
-                    result = result.union(intermediateResult);
-                }
+                intermediateResults.add(this.expression.getDataFrame(dynamicContext));
             }
-            if (result == null) {
+            if (intermediateResults.isEmpty()) {
                 return JSoundDataFrame.emptyDataFrame();
             }
-            return result;
+            return unionBalanced(intermediateResults);
         }
         if (!this.child.isDataFrame()) {
             throw new OurBadException(
@@ -45,6 +45,7 @@ import org.rumbledb.runtime.primary.VariableReferenceIterator;
 
 import sparksoniq.jsoniq.tuple.FlworTuple;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -225,11 +226,19 @@ public class WhereClauseSparkIterator extends RuntimeTupleIterator {
             return null;
         }
         ComparisonIterator comparisonIterator = (ComparisonIterator) this.expression;
+        ComparisonExpression.ComparisonOperator operator = comparisonIterator.getComparisonOperator();
+        boolean isStrict;
         if (
-            !comparisonIterator.getComparisonOperator().equals(ComparisonExpression.ComparisonOperator.VC_LE)
-                &&
-                !comparisonIterator.getComparisonOperator().equals(ComparisonExpression.ComparisonOperator.GC_LE)
+            operator.equals(ComparisonExpression.ComparisonOperator.VC_LE)
+                || operator.equals(ComparisonExpression.ComparisonOperator.GC_LE)
         ) {
+            isStrict = false;
+        } else if (
+            operator.equals(ComparisonExpression.ComparisonOperator.VC_LT)
+                || operator.equals(ComparisonExpression.ComparisonOperator.GC_LT)
+        ) {
+            isStrict = true;
+        } else {
             return null;
         }
         RuntimeIterator left = comparisonIterator.getLeftIterator();
@@ -256,12 +265,24 @@ public class WhereClauseSparkIterator extends RuntimeTupleIterator {
         if (!item.isInteger()) {
             return null;
         }
+        BigInteger length = item.getIntegerValue();
+        if (isStrict) {
+            length = length.subtract(BigInteger.ONE);
+        }
+        if (length.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+            return null;
+        }
+        if (length.signum() < 0) {
+            length = BigInteger.ZERO;
+        }
         System.err.println(
             "[INFO] Rumble detected a LIMIT in a count and where clause."
         );
-        Dataset<Row> df = this.child.getChildIterator().getDataFrame(context);
-        String input = FlworDataFrameUtils.createTempView(df);
-        return df.sparkSession().sql(String.format("SELECT * FROM %s LIMIT %s", input, item.getStringValue()));
+        return countClauseIterator.getDataFrameOfPrefix(
+            context,
+            length.intValue(),
+            this.outputTupleProjection
+        );
     }
 
     private Dataset<Row> getDataFrameIfJoinPossible(DynamicContext context) {
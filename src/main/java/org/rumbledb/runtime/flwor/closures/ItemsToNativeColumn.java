@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.flwor.closures;
+
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.ArrayType;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.Metadata;
+import org.apache.spark.sql.types.MetadataBuilder;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.api.Item;
+import org.rumbledb.context.DynamicContext;
+import org.rumbledb.context.Name;
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.runtime.typing.ValidateTypeIterator;
+import org.rumbledb.types.BuiltinTypesCatalogue;
+import org.rumbledb.types.ItemType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores items in a native Spark column rather than in a serialized binary column, for items whose static type is
+ * known to map to a native type without any loss.
+ */
+public class ItemsToNativeColumn implements Function<Item, Row> {
+
+    private static final long serialVersionUID = 1L;
+
+    // the metadata of a native column records the name of the static type of its items, to annotate them when they
+    // are read back.
+    private static final String typeNamespaceKey = "rumbleTypeNamespace";
+    private static final String typeLocalNameKey = "rumbleTypeLocalName";
+
+    // these integer types have values that all fit in a long.
+    private static final List<ItemType> longColumnTypes = Arrays.asList(
+        BuiltinTypesCatalogue.longItem,
+        BuiltinTypesCatalogue.intItem,
+        BuiltinTypesCatalogue.shortItem,
+        BuiltinTypesCatalogue.byteItem,
+        BuiltinTypesCatalogue.unsignedIntItem,
+        BuiltinTypesCatalogue.unsignedShortItem,
+        BuiltinTypesCatalogue.unsignedByteItem
+    );
+
+    private DataType dataType;
+
+    public ItemsToNativeColumn(DataType dataType) {
+        this.dataType = dataType;
+    }
+
+    /**
+     * Returns the native type of the column in which items of a given static type can be stored.
+     *
+     * Only types whose values are read back without loss are stored natively:
+     * - booleans, doubles, floats and strings;
+     * - integer types whose values fit in a long (xs:long, xs:int and their subtypes down to xs:byte), in a long
+     * column. They are read back annotated with the static type, so that an xs:short stored in a column of xs:int
+     * items is read back as an xs:int;
+     * - closed object types and array types whose structure is known, in struct and array columns, as for validated
+     * DataFrames. They are read back annotated with the static type too.
+     * xs:integer is not stored natively, as its values may not fit in a long, and neither are decimals, as the
+     * decimal column type has a fixed precision: they fall back to a serialized binary column.
+     *
+     * @param itemType the static type of the items, or null if unknown.
+     * @return the native column type, or null if the items must be serialized.
+     */
+    public static DataType getNativeColumnType(ItemType itemType) {
+        if (itemType == null) {
+            return null;
+        }
+        if (itemType.equals(BuiltinTypesCatalogue.booleanItem)) {
+            return DataTypes.BooleanType;
+        }
+        if (itemType.equals(BuiltinTypesCatalogue.doubleItem)) {
+            return DataTypes.DoubleType;
+        }
+        if (itemType.equals(BuiltinTypesCatalogue.floatItem)) {
+            return DataTypes.FloatType;
+        }
+        if (itemType.equals(BuiltinTypesCatalogue.stringItem)) {
+            return DataTypes.StringType;
+        }
+        if (longColumnTypes.contains(itemType)) {
+            return DataTypes.LongType;
+        }
+        if (
+            (itemType.isObjectItemType() || itemType.isArrayItemType())
+                && itemType.getName() != null
+                && itemType.isResolved()
+                && itemType.isCompatibleWithDataFrames()
+        ) {
+            DataType dataType = ValidateTypeIterator.convertToDataType(itemType);
+            if (dataType instanceof ArrayType && ((ArrayType) dataType).elementType().equals(DataTypes.BinaryType)) {
+                // such columns hold sequences of serialized items.
+                return null;
+            }
+            return dataType;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the metadata of a native column holding items of a given static type.
+     *
+     * @param itemType the static type of the items, which must have a native column type.
+     * @return the metadata, which records the name of the type.
+     */
+    public static Metadata getNativeColumnMetadata(ItemType itemType) {
+        if (
+            itemType.equals(BuiltinTypesCatalogue.booleanItem)
+                || itemType.equals(BuiltinTypesCatalogue.doubleItem)
+                || itemType.equals(BuiltinTypesCatalogue.floatItem)
+                || itemType.equals(BuiltinTypesCatalogue.stringItem)
+        ) {
+            // the column type alone determines the items.
+            return Metadata.empty();
+        }
+        return new MetadataBuilder()
+            .putString(typeNamespaceKey, itemType.getName().getNamespace())
+            .putString(typeLocalNameKey, itemType.getName().getLocalName())
+            .build();
+    }
+
+    /**
+     * Returns the static type of the items stored in a native column, as recorded in its metadata.
+     *
+     * @param field the column.
+     * @param context a dynamic context, in which user-defined types are in scope.
+     * @return the static type, or null if none is recorded.
+     */
+    public static ItemType getNativeColumnItemType(StructField field, DynamicContext context) {
+        Metadata metadata = field.metadata();
+        if (!metadata.contains(typeLocalNameKey)) {
+            return null;
+        }
+        Name name = new Name(metadata.getString(typeNamespaceKey), "", metadata.getString(typeLocalNameKey));
+        ItemType itemType = context.getInScopeSchemaTypes().getInScopeSchemaType(name);
+        if (itemType == null) {
+            throw new OurBadException("Type of native column " + field.name() + " not in scope: " + name);
+        }
+        return itemType;
+    }
+
+    /**
+     * @param item the item to store.
+     * @return Row object, containing the native value of the given item
+     */
+    @Override
+    public Row call(Item item) {
+        if (this.dataType.equals(DataTypes.BooleanType)) {
+            return RowFactory.create(item.getBooleanValue());
+        }
+        if (this.dataType.equals(DataTypes.DoubleType)) {
+            return RowFactory.create(item.getDoubleValue());
+        }
+        if (this.dataType.equals(DataTypes.FloatType)) {
+            return RowFactory.create(item.getFloatValue());
+        }
+        if (this.dataType.equals(DataTypes.StringType)) {
+            return RowFactory.create(item.getStringValue());
+        }
+        if (this.dataType.equals(DataTypes.LongType)) {
+            return RowFactory.create(item.castToIntegerValue().longValue());
+        }
+        if (this.dataType instanceof StructType || this.dataType instanceof ArrayType) {
+            Object value = ValidateTypeIterator.getRowColumnFromItemUsingDataType(item, this.dataType);
+            return RowFactory.create(new Object[] { value });
+        }
+        throw new OurBadException("Unexpected native column type: " + this.dataType);
+    }
+}
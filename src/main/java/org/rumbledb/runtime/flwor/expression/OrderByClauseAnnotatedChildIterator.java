@@ -22,6 +22,7 @@ package org.rumbledb.runtime.flwor.expression;
 
 import org.rumbledb.expressions.flowr.OrderByClauseSortingKey;
 import org.rumbledb.runtime.RuntimeIterator;
+import org.rumbledb.types.SequenceType;
 
 import java.io.Serializable;
 
@@ -32,6 +33,7 @@ public class OrderByClauseAnnotatedChildIterator implements Serializable {
     private final boolean ascending;
     private final String uri;
     private final OrderByClauseSortingKey.EMPTY_ORDER emptyOrder;
+    private final SequenceType staticType;
 
 
     public OrderByClauseAnnotatedChildIterator(
@@ -39,11 +41,22 @@ public class OrderByClauseAnnotatedChildIterator implements Serializable {
             boolean ascending,
             String uri,
             OrderByClauseSortingKey.EMPTY_ORDER empty_order
+    ) {
+        this(iterator, ascending, uri, empty_order, null);
+    }
+
+    public OrderByClauseAnnotatedChildIterator(
+            RuntimeIterator iterator,
+            boolean ascending,
+            String uri,
+            OrderByClauseSortingKey.EMPTY_ORDER empty_order,
+            SequenceType staticType
     ) {
         this.iterator = iterator;
         this.ascending = ascending;
         this.uri = uri;
         this.emptyOrder = empty_order;
+        this.staticType = staticType;
     }
 
     public RuntimeIterator getIterator() {
@@ -62,4 +75,13 @@ public class OrderByClauseAnnotatedChildIterator implements Serializable {
         return this.emptyOrder;
     }
 
+    /**
+     * Returns the statically inferred type of the sorting key.
+     *
+     * @return the static type, or null if it is not known.
+     */
+    public SequenceType getStaticType() {
+        return this.staticType;
+    }
+
 }
@@ -28,6 +28,7 @@ import org.apache.spark.sql.Row;
 import org.apache.spark.sql.types.ArrayType;
 import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
@@ -37,13 +38,16 @@ import org.rumbledb.items.ItemFactory;
 import org.rumbledb.items.parsing.ItemParser;
 import org.rumbledb.runtime.flwor.FlworDataFrameColumn;
 import org.rumbledb.runtime.flwor.FlworDataFrameUtils;
+import org.rumbledb.runtime.flwor.closures.ItemsToNativeColumn;
 import org.rumbledb.types.ItemType;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class exposes a reusable context that is dynamically populated from the input tuples stored in DataFrames.
@@ -62,6 +66,7 @@ public class DataFrameContext implements Serializable {
     private transient Kryo kryo;
     private transient Output output;
     private transient Input input;
+    private transient Map<String, ItemType> columnItemTypes;
 
     /**
      * Builds a new data frame context that only serves to pool Kryo objects.
@@ -222,10 +227,22 @@ public class DataFrameContext implements Serializable {
         this.input = new Input();
     }
 
+    private ItemType getColumnItemType(StructField field) {
+        if (this.columnItemTypes == null) {
+            this.columnItemTypes = new HashMap<>();
+        }
+        if (!this.columnItemTypes.containsKey(field.name())) {
+            this.columnItemTypes.put(field.name(), ItemsToNativeColumn.getNativeColumnItemType(field, this.context));
+        }
+        return this.columnItemTypes.get(field.name());
+    }
+
     @SuppressWarnings("unchecked")
     private List<Item> readColumnAsSequenceOfItems(Row row, ItemType itemType, int columnIndex) {
         Object o = row.get(columnIndex);
         DataType dt = row.schema().fields()[columnIndex].dataType();
+        // native columns of tuples record the static type of their items, e.g., xs:int for a long column.
+        ItemType columnItemType = getColumnItemType(row.schema().fields()[columnIndex]);
         // There are three special cases:
         // - NULL: this is an empty sequence
         // - A binary value: this is a serialized sequence
@@ -269,18 +286,32 @@ public class DataFrameContext implements Serializable {
                 List<Object> objects = row.getList(columnIndex);
                 List<Item> items = new ArrayList<>();
                 for (Object object : objects) {
+                    if (object instanceof Long && itemType == null && columnItemType == null) {
+                        // collected from a native long column of tuples
+                        items.add(ItemFactory.getInstance().createLongItem((Long) object));
+                        continue;
+                    }
                     Item item = ItemParser.convertValueToItem(
                         object,
                         ((ArrayType) dt).elementType(),
                         ExceptionMetadata.EMPTY_METADATA,
-                        itemType == null ? null : itemType.getArrayContentFacet()
+                        itemType == null ? columnItemType : itemType.getArrayContentFacet()
                     );
                     items.add(item);
                 }
                 return items;
             }
         }
-        Item item = ItemParser.convertValueToItem(o, dt, ExceptionMetadata.EMPTY_METADATA, itemType);
+        if (o instanceof Long && itemType == null && columnItemType == null) {
+            // Native long columns of tuples hold integers, e.g., counts and positions.
+            return Collections.singletonList(ItemFactory.getInstance().createLongItem((Long) o));
+        }
+        Item item = ItemParser.convertValueToItem(
+            o,
+            dt,
+            ExceptionMetadata.EMPTY_METADATA,
+            itemType == null ? columnItemType : itemType
+        );
         return Collections.singletonList(item);
     }
 }
@@ -27,26 +27,50 @@ import org.apache.spark.sql.types.StructType;
 import org.joda.time.Instant;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
-import org.rumbledb.context.Name;
-import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.exceptions.MoreThanOneItemException;
+import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.flowr.OrderByClauseSortingKey;
-import org.rumbledb.items.NullItem;
 import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.runtime.flwor.expression.OrderByClauseAnnotatedChildIterator;
-import org.rumbledb.types.BuiltinTypesCatalogue;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Evaluates the sorting keys of a tuple once, into self-describing columns: for each key, an int column for the
+ * ordering of nulls and empty sequences, a column with the name of the dynamic type of the key, one value column
+ * per family of comparable types (boolean, string, integer, decimal, double, and date, time or duration as
+ * milliseconds), the encoded digits of integers at the bounds of the long range or beyond, and the encoded digits of
+ * decimals that do not fit in the decimal column. Only the columns that apply to the key are set, so that the actual
+ * type of each key can be determined on these columns once they are computed, and the tuples ordered on the right
+ * value columns.
+ */
 public class OrderClauseCreateColumnsUDF implements UDF1<Row, Row> {
 
     private static final long serialVersionUID = 1L;
+
+    public static final String nullEmptyCheckField = "nullEmptyCheckField";
+    public static final String typeField = "typeField";
+    public static final String booleanField = "booleanField";
+    public static final String stringField = "stringField";
+    public static final String integerField = "integerField";
+    public static final String decimalField = "decimalField";
+    public static final String doubleField = "doubleField";
+    public static final String millisecondsField = "millisecondsField";
+    public static final String bigIntegerField = "bigIntegerField";
+    public static final String bigDecimalField = "bigDecimalField";
+    // the number of columns created for each sorting key, in the order above.
+    public static final int numberOfColumnsPerKey = 10;
+    // the type of the decimal column, wider than the decimal type of items.
+    public static final int decimalPrecision = 38;
+    public static final int decimalScale = 15;
+
     private DataFrameContext dataFrameContext;
     private List<OrderByClauseAnnotatedChildIterator> expressionsWithIterator;
 
-    private Map<Integer, Name> sortingKeyTypes;
-
     private List<Object> results;
 
     // nulls and empty sequences have special ordering captured in the first sorting column
@@ -57,110 +81,178 @@ public class OrderClauseCreateColumnsUDF implements UDF1<Row, Row> {
     private static int nullOrderIndex = 2; // null is the smallest value except empty sequence(default)
     private static int valueOrderIndex = 3; // values are larger than null and empty sequence(default)
 
+    private static final BigDecimal minLong = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal maxLong = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal maxDecimal = BigDecimal.TEN.pow(decimalPrecision - decimalScale)
+        .subtract(BigDecimal.ONE.movePointLeft(decimalScale));
+    private static final BigDecimal minDecimal = maxDecimal.negate();
+    private static final long maxNumberOfDigits = 9999999999L;
+    // added to the position of the first significant digit of a decimal, so that it is positive.
+    private static final long digitPositionOffset = 1L << 32;
+
 
     public OrderClauseCreateColumnsUDF(
             List<OrderByClauseAnnotatedChildIterator> expressionsWithIterator,
             DynamicContext context,
             StructType schema,
-            Map<Integer, Name> sortingKeyTypes,
             List<String> columnNames
     ) {
         this.dataFrameContext = new DataFrameContext(context, schema, columnNames);
         this.expressionsWithIterator = expressionsWithIterator;
-        this.sortingKeyTypes = sortingKeyTypes;
 
         this.results = new ArrayList<>();
     }
 
+    public static String getColumnName(int expressionIndex, String field) {
+        return expressionIndex + "-" + field;
+    }
+
     @Override
     public Row call(Row row) {
         this.dataFrameContext.setFromRow(row);
 
         this.results.clear();
 
-        for (int expressionIndex = 0; expressionIndex < this.expressionsWithIterator.size(); expressionIndex++) {
-            OrderByClauseAnnotatedChildIterator expressionWithIterator = this.expressionsWithIterator.get(
-                expressionIndex
-            );
-
+        for (OrderByClauseAnnotatedChildIterator expressionWithIterator : this.expressionsWithIterator) {
             // apply expression in the dynamic context
             RuntimeIterator iterator = expressionWithIterator.getIterator();
-            iterator.open(this.dataFrameContext.getContext());
-            if (!iterator.hasNext()) {
+            Item nextItem;
+            try {
+                nextItem = iterator.materializeAtMostOneItemOrNull(this.dataFrameContext.getContext());
+            } catch (MoreThanOneItemException e) {
+                throw new UnexpectedTypeException(
+                        "Can not order by variables with sequences of multiple items.",
+                        iterator.getMetadata()
+                );
+            }
+            int firstColumn = this.results.size();
+            for (int i = 0; i < numberOfColumnsPerKey; ++i) {
+                this.results.add(null);
+            }
+            if (nextItem == null) {
                 if (expressionWithIterator.getEmptyOrder() == OrderByClauseSortingKey.EMPTY_ORDER.GREATEST) {
-                    this.results.add(emptySequenceOrderIndexLast);
+                    this.results.set(firstColumn, emptySequenceOrderIndexLast);
                 } else {
-                    this.results.add(emptySequenceOrderIndexFirst);
+                    this.results.set(firstColumn, emptySequenceOrderIndexFirst);
                 }
-                this.results.add(null); // placeholder for valueColumn(2nd column)
-                iterator.close();
                 continue;
             }
-            while (iterator.hasNext()) {
-                Item nextItem = iterator.next();
-                createColumnsForItem(nextItem, expressionIndex);
+            checkSortable(nextItem, iterator);
+            if (nextItem.isNull()) {
+                this.results.set(firstColumn, nullOrderIndex);
+                continue;
             }
-            iterator.close();
-
+            this.results.set(firstColumn, valueOrderIndex);
+            this.results.set(firstColumn + 1, nextItem.getDynamicType().getName().getLocalName());
+            createValueColumnsForItem(nextItem, firstColumn);
         }
         return RowFactory.create(this.results.toArray());
     }
 
+    private static void checkSortable(Item item, RuntimeIterator iterator) {
+        if (item.isArray() || item.isObject()) {
+            throw new UnexpectedTypeException(
+                    "Order by variable can not contain arrays or objects.",
+                    iterator.getMetadata()
+            );
+        }
+        if (item.isBinary()) {
+            String itemType = item.getDynamicType().toString();
+            throw new UnexpectedTypeException(
+                    "\""
+                        + itemType
+                        + "\": invalid type: can not compare for equality to type \""
+                        + itemType
+                        + "\"",
+                    iterator.getMetadata()
+            );
+        }
+    }
 
-
-    private void createColumnsForItem(Item nextItem, int expressionIndex) {
-        if (nextItem instanceof NullItem) {
-            this.results.add(nullOrderIndex);
-            this.results.add(null); // placeholder for valueColumn(2nd column)
-        } else {
-            // any other atomic type
-            this.results.add(valueOrderIndex);
-
-            // extract type information for the sorting column
-            Name typeName = this.sortingKeyTypes.get(expressionIndex);
-            try {
-                if (typeName.equals(BuiltinTypesCatalogue.booleanItem.getName())) {
-                    this.results.add(nextItem.getBooleanValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.stringItem.getName())) {
-                    this.results.add(nextItem.getStringValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.integerItem.getName())) {
-                    this.results.add(nextItem.castToIntValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.intItem.getName())) {
-                    this.results.add(nextItem.castToIntValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.doubleItem.getName())) {
-                    this.results.add(nextItem.castToDoubleValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.floatItem.getName())) {
-                    this.results.add(nextItem.castToFloatValue());
-                } else if (typeName.equals(BuiltinTypesCatalogue.decimalItem.getName())) {
-                    this.results.add(nextItem.castToDecimalValue());
-                } else if (
-                    typeName.equals(BuiltinTypesCatalogue.durationItem.getName())
-                        || typeName.equals(BuiltinTypesCatalogue.yearMonthDurationItem.getName())
-                        || typeName.equals(BuiltinTypesCatalogue.dayTimeDurationItem.getName())
-                ) {
-                    this.results.add(
-                        nextItem.getDurationValue().toDurationFrom(Instant.now()).getMillis()
-                    );
-                } else if (
-                    typeName.equals(BuiltinTypesCatalogue.dateTimeItem.getName())
-                        || typeName.equals(BuiltinTypesCatalogue.dateItem.getName())
-                        || typeName.equals(BuiltinTypesCatalogue.timeItem.getName())
-                ) {
-                    this.results.add(nextItem.getDateTimeValue().getMillis());
-                } else {
-                    throw new OurBadException(
-                            "Unexpected ordering type found while creating columns."
-                    );
+    private void createValueColumnsForItem(Item item, int firstColumn) {
+        if (item.isBoolean()) {
+            this.results.set(firstColumn + 2, item.getBooleanValue());
+        } else if (item.isString()) {
+            this.results.set(firstColumn + 3, item.getStringValue());
+        } else if (item.isNumeric()) {
+            // integers also fill the decimal and double columns, and decimals the double column, so that a key
+            // mixing numeric types can be ordered on the column of their common type. Integers at or beyond the
+            // bounds of the long range are clamped to them, and ordered among themselves on their encoded digits.
+            // Decimals are likewise clamped to the range of the decimal column and rounded down to its scale. Those
+            // that do not fit exactly are then ordered on their encoded digits among the decimals they were clamped
+            // or rounded to, which only ever precede them as their digits are not set.
+            if (!item.isDouble() && !item.isFloat()) {
+                BigDecimal decimal = item.castToDecimalValue();
+                if (decimal.scale() <= 0) {
+                    this.results.set(firstColumn + 4, decimal.max(minLong).min(maxLong).longValue());
+                    if (decimal.compareTo(minLong) <= 0 || decimal.compareTo(maxLong) >= 0) {
+                        this.results.set(firstColumn + 8, getSortableDigits(decimal.toBigInteger()));
+                    }
                 }
-            } catch (RuntimeException e) {
-                throw new OurBadException(
-                        "Invalid sort key: cannot compare item of type "
-                            + typeName
-                            + " with item of type "
-                            + nextItem.getDynamicType().toString()
-                            + "."
+                this.results.set(
+                    firstColumn + 5,
+                    decimal.max(minDecimal).min(maxDecimal).setScale(decimalScale, RoundingMode.FLOOR)
                 );
+                if (
+                    decimal.compareTo(minDecimal) <= 0
+                        || decimal.compareTo(maxDecimal) >= 0
+                        || decimal.stripTrailingZeros().scale() > decimalScale
+                ) {
+                    this.results.set(firstColumn + 9, getSortableDigits(decimal));
+                }
             }
+            this.results.set(firstColumn + 6, item.castToDoubleValue());
+        } else if (item.isDuration()) {
+            this.results.set(firstColumn + 7, item.getDurationValue().toDurationFrom(Instant.now()).getMillis());
+        } else if (item.isDateTime() || item.isDate() || item.isTime()) {
+            this.results.set(firstColumn + 7, item.getDateTimeValue().getMillis());
+        }
+    }
+
+    /**
+     * Encodes an integer as a string that orders like the integer: the sign, then the number of digits (reversed
+     * for negative integers), then the digits (complemented to 9 for negative integers).
+     *
+     * @param integer the integer.
+     * @return the string to order on.
+     */
+    private static String getSortableDigits(BigInteger integer) {
+        String digits = integer.abs().toString();
+        if (integer.signum() >= 0) {
+            return "1" + String.format("%010d", digits.length()) + digits;
+        }
+        StringBuilder result = new StringBuilder("0");
+        result.append(String.format("%010d", maxNumberOfDigits - digits.length()));
+        for (int i = 0; i < digits.length(); i++) {
+            result.append((char) ('9' - digits.charAt(i) + '0'));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Encodes a decimal as a string that orders like the decimal: the sign, then the position of the first significant
+     * digit (reversed for negative decimals), then the significant digits (complemented to 9 and terminated by a
+     * character above all digits for negative decimals, so that a longer one with the same leading digits comes first).
+     *
+     * @param decimal the decimal.
+     * @return the string to order on.
+     */
+    private static String getSortableDigits(BigDecimal decimal) {
+        if (decimal.signum() == 0) {
+            return "1";
+        }
+        BigDecimal normalized = decimal.stripTrailingZeros();
+        String digits = normalized.unscaledValue().abs().toString();
+        long position = (long) normalized.precision() - normalized.scale() + digitPositionOffset;
+        if (decimal.signum() > 0) {
+            return "2" + String.format("%010d", position) + digits;
+        }
+        StringBuilder result = new StringBuilder("0");
+        result.append(String.format("%010d", maxNumberOfDigits - position));
+        for (int i = 0; i < digits.length(); i++) {
+            result.append((char) ('9' - digits.charAt(i) + '0'));
         }
+        result.append(':');
+        return result.toString();
     }
 }
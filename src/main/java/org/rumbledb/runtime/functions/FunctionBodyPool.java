@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions;
+
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.exceptions.RumbleException;
+import org.rumbledb.runtime.RuntimeIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The executable copies of the body of a function.
+ *
+ * The body iterator of a function item is only a plan and is never executed itself: since iterators hold the state
+ * of their evaluation, each call that is in progress (e.g., in a recursion) needs its own copy. A call borrows a copy
+ * that is not in use, and gives it back once it is closed, so that copies are only made up to the number of calls
+ * in progress at the same time (e.g., the recursion depth) rather than on every call.
+ *
+ * There is one pool per body plan, shared by all function items with that body (e.g., the items returned by each
+ * evaluation of the same inline function expression, or partial applications).
+ */
+public class FunctionBodyPool {
+
+    // the maximum number of copies kept for reuse.
+    public static final int MAX_IDLE_BODIES = 256;
+
+    private static final Map<RuntimeIterator, FunctionBodyPool> pools = Collections.synchronizedMap(
+        new WeakHashMap<>()
+    );
+
+    private final byte[] serializedBody;
+    private final Deque<RuntimeIterator> idleBodies;
+
+    private FunctionBodyPool(RuntimeIterator body) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(body);
+            oos.flush();
+            this.serializedBody = bos.toByteArray();
+        } catch (IOException e) {
+            RumbleException rumbleException = new OurBadException(
+                    "Error while serializing the function body runtimeIterator"
+            );
+            rumbleException.initCause(e);
+            throw rumbleException;
+        }
+        this.idleBodies = new ArrayDeque<>();
+    }
+
+    /**
+     * Returns the pool of a function body.
+     *
+     * @param body the body iterator of the function, as found in the function item.
+     * @return the pool.
+     */
+    public static FunctionBodyPool of(RuntimeIterator body) {
+        return pools.computeIfAbsent(body, FunctionBodyPool::new);
+    }
+
+    /**
+     * Borrows a copy of the body that is not in use, making a new one if needed.
+     *
+     * @return the copy.
+     */
+    public RuntimeIterator acquire() {
+        synchronized (this.idleBodies) {
+            if (!this.idleBodies.isEmpty()) {
+                return this.idleBodies.pop();
+            }
+        }
+        try {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(this.serializedBody));
+            return (RuntimeIterator) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            RumbleException rumbleException = new OurBadException(
+                    "Error while deep copying the function body runtimeIterator"
+            );
+            rumbleException.initCause(e);
+            throw rumbleException;
+        }
+    }
+
+    /**
+     * Gives back a copy obtained with {@link #acquire()}, which must be closed and not be used anymore by the caller.
+     *
+     * @param body the copy.
+     */
+    public void release(RuntimeIterator body) {
+        synchronized (this.idleBodies) {
+            if (this.idleBodies.size() < MAX_IDLE_BODIES) {
+                this.idleBodies.push(body);
+            }
+        }
+    }
+}
@@ -60,6 +60,7 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
     private RuntimeIterator functionBodyIterator;
     private Item nextResult;
     private transient DynamicContext dynamicContextForCalls;
+    private transient FunctionBodyPool functionBodyPool;
 
 
     public FunctionItemCallIterator(
@@ -169,7 +170,7 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
             this.functionBodyIterator = generatePartiallyAppliedFunction(this.currentDynamicContextForLocalExecution);
         } else {
             if (this.functionBodyIterator == null) {
-                this.functionBodyIterator = this.functionItem.getBodyIterator().deepCopy();
+                this.functionBodyIterator = getFunctionBodyPool().acquire();
             }
             this.populateDynamicContextWithArguments(
                 this.currentDynamicContextForLocalExecution
@@ -179,6 +180,13 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
         setNextResult();
     }
 
+    private FunctionBodyPool getFunctionBodyPool() {
+        if (this.functionBodyPool == null) {
+            this.functionBodyPool = FunctionBodyPool.of(this.functionItem.getBodyIterator());
+        }
+        return this.functionBodyPool;
+    }
+
     /**
      * Partial application generates a new function:
      * - Supplied parameters are set as NonLocalVariables
@@ -283,7 +291,17 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
 
     @Override
     protected void resetLocal() {
-        this.functionBodyIterator.reset(this.currentDynamicContextForLocalExecution);
+        if (this.isPartialApplication) {
+            this.functionBodyIterator.reset(this.currentDynamicContextForLocalExecution);
+        } else {
+            if (this.functionBodyIterator == null) {
+                this.functionBodyIterator = getFunctionBodyPool().acquire();
+            }
+            this.populateDynamicContextWithArguments(
+                this.currentDynamicContextForLocalExecution
+            );
+            this.functionBodyIterator.reset(this.dynamicContextForCalls);
+        }
         setNextResult();
     }
 
@@ -294,6 +312,11 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
         if (this.functionBodyIterator != null && this.functionBodyIterator.isOpen()) {
             this.functionBodyIterator.close();
         }
+        // the copy of the body can now be used by another call
+        if (!this.isPartialApplication && this.functionBodyIterator != null) {
+            getFunctionBodyPool().release(this.functionBodyIterator);
+            this.functionBodyIterator = null;
+        }
     }
 
     public void setNextResult() {
@@ -319,8 +342,7 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
         }
 
         this.populateDynamicContextWithArguments(dynamicContext);
-        this.functionBodyIterator = this.functionItem.getBodyIterator();
-        return this.functionBodyIterator.getRDD(this.dynamicContextForCalls);
+        return getBodyIteratorForRDDOrDataFrame().getRDD(this.dynamicContextForCalls);
     }
 
     @Override
@@ -337,7 +359,15 @@ public class FunctionItemCallIterator extends HybridRuntimeIterator {
         }
 
         populateDynamicContextWithArguments(dynamicContext);
-        this.functionBodyIterator = this.functionItem.getBodyIterator();
-        return this.functionBodyIterator.getDataFrame(this.dynamicContextForCalls);
+        return getBodyIteratorForRDDOrDataFrame().getDataFrame(this.dynamicContextForCalls);
+    }
+
+    private RuntimeIterator getBodyIteratorForRDDOrDataFrame() {
+        // machine learning estimators and transformers are applied as they are
+        if (this.functionItem.isEstimator() || this.functionItem.isTransformer()) {
+            return this.functionItem.getBodyIterator();
+        }
+        // the copy is not given back, as the RDD or DataFrame refers to it
+        return getFunctionBodyPool().acquire();
     }
 }
@@ -58,7 +58,7 @@ public class NamedFunctionRefRuntimeIterator extends AtMostOneItemLocalRuntimeIt
         }
         FunctionItem function = dynamicContext.getNamedFunctions()
             .getUserDefinedFunction(this.functionIdentifier);
-        FunctionItem result = ((FunctionItem) function).deepCopy();
+        FunctionItem result = function.shallowCopy();
         result.populateClosureFromDynamicContext(dynamicContext, getMetadata());
         return result;
     }
@@ -31,7 +31,6 @@ import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.ObjectItem;
 import org.rumbledb.items.structured.JSoundDataFrame;
-import org.rumbledb.runtime.DataFrameRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 
 import sparksoniq.spark.SparkSessionManager;
@@ -39,7 +38,7 @@ import sparksoniq.spark.SparkSessionManager;
 import java.net.URI;
 import java.util.List;
 
-public class AvroFileFunctionIterator extends DataFrameRuntimeIterator {
+public class AvroFileFunctionIterator extends DataFrameFileFunctionIterator {
 
     private static final long serialVersionUID = 1L;
 
@@ -96,7 +95,7 @@ public class AvroFileFunctionIterator extends DataFrameRuntimeIterator {
                 }
             }
             Dataset<Row> dataFrame = dfr.format("avro").load(uri.toString());
-            return new JSoundDataFrame(dataFrame);
+            return new JSoundDataFrame(applyScanPushdown(dataFrame));
         } catch (Exception e) {
             if (e instanceof UnexpectedTypeException) {
                 throw new UnexpectedTypeException(e.getMessage(), this.getMetadata());
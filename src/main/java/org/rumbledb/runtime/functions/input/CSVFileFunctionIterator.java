@@ -32,7 +32,6 @@ import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.ObjectItem;
 import org.rumbledb.items.structured.JSoundDataFrame;
-import org.rumbledb.runtime.DataFrameRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 
 import sparksoniq.spark.SparkSessionManager;
@@ -40,7 +39,7 @@ import sparksoniq.spark.SparkSessionManager;
 import java.net.URI;
 import java.util.List;
 
-public class CSVFileFunctionIterator extends DataFrameRuntimeIterator {
+public class CSVFileFunctionIterator extends DataFrameFileFunctionIterator {
 
     private static final long serialVersionUID = 1L;
 
@@ -91,7 +90,7 @@ public class CSVFileFunctionIterator extends DataFrameRuntimeIterator {
                 }
             }
             Dataset<Row> dataFrame = dfr.csv(uri.toString());
-            return new JSoundDataFrame(dataFrame);
+            return new JSoundDataFrame(applyScanPushdown(dataFrame));
         } catch (Exception e) {
             if (e instanceof AnalysisException || e instanceof IllegalArgumentException) {
                 throw new CannotRetrieveResourceException("File " + url + " not found.", getMetadata());
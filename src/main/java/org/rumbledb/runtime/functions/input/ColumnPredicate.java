@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.input;
+
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.BooleanType;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DateType;
+import org.apache.spark.sql.types.DecimalType;
+import org.apache.spark.sql.types.FloatType;
+import org.apache.spark.sql.types.NumericType;
+import org.apache.spark.sql.types.StringType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A filter on the rows of a DataFrame, made of comparisons between (possibly nested) columns and literals combined
+ * with and and or. It is built from a where clause and translated to a Spark column once the schema is known, so
+ * that Spark can push it into the scan of the data source.
+ *
+ * Comparisons are only translated if the type of the column matches that of the literal (string, numeric, boolean or
+ * date), so that the Spark semantics coincide with those of JSONiq, in which a null column is absent and fails all
+ * comparisons.
+ */
+public class ColumnPredicate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private enum Kind {
+        AND,
+        OR,
+        COMPARISON
+    }
+
+    private final Kind kind;
+    private final ColumnPredicate left;
+    private final ColumnPredicate right;
+    private final List<String> path;
+    private final ComparisonOperator operator;
+    // a String, a BigDecimal, a Double, a Boolean or a Date.
+    private final Object value;
+
+    private ColumnPredicate(
+            Kind kind,
+            ColumnPredicate left,
+            ColumnPredicate right,
+            List<String> path,
+            ComparisonOperator operator,
+            Object value
+    ) {
+        this.kind = kind;
+        this.left = left;
+        this.right = right;
+        this.path = path;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public static ColumnPredicate and(ColumnPredicate left, ColumnPredicate right) {
+        return new ColumnPredicate(Kind.AND, left, right, null, null, null);
+    }
+
+    public static ColumnPredicate or(ColumnPredicate left, ColumnPredicate right) {
+        return new ColumnPredicate(Kind.OR, left, right, null, null, null);
+    }
+
+    /**
+     * Builds a comparison of a column with a literal, in this order.
+     *
+     * @param path the column, followed by the fields of nested structures if any.
+     * @param operator the comparison operator.
+     * @param value the literal, as a String, a BigDecimal, a Double, a Boolean or a Date.
+     * @return the predicate.
+     */
+    public static ColumnPredicate comparison(List<String> path, ComparisonOperator operator, Object value) {
+        if (
+            !(value instanceof String
+                || value instanceof BigDecimal
+                || value instanceof Double
+                || value instanceof Boolean
+                || value instanceof Date)
+        ) {
+            throw new OurBadException("Unexpected literal in a column predicate: " + value);
+        }
+        return new ColumnPredicate(Kind.COMPARISON, null, null, path, operator, value);
+    }
+
+    /**
+     * Translates the predicate to a Spark column.
+     *
+     * @param schema the schema of the DataFrame to filter.
+     * @return the column, or null if the predicate cannot be translated for this schema.
+     */
+    public Column toColumn(StructType schema) {
+        switch (this.kind) {
+            case AND: {
+                Column leftColumn = this.left.toColumn(schema);
+                Column rightColumn = this.right.toColumn(schema);
+                // each side of a conjunction alone is still a necessary condition.
+                if (leftColumn == null) {
+                    return rightColumn;
+                }
+                if (rightColumn == null) {
+                    return leftColumn;
+                }
+                return leftColumn.and(rightColumn);
+            }
+            case OR: {
+                Column leftColumn = this.left.toColumn(schema);
+                Column rightColumn = this.right.toColumn(schema);
+                if (leftColumn == null || rightColumn == null) {
+                    return null;
+                }
+                return leftColumn.or(rightColumn);
+            }
+            default:
+                return comparisonToColumn(schema);
+        }
+    }
+
+    private Column comparisonToColumn(StructType schema) {
+        DataType type = schema;
+        Column column = null;
+        for (String field : this.path) {
+            if (!(type instanceof StructType)) {
+                return null;
+            }
+            StructField structField = getField((StructType) type, field);
+            if (structField == null) {
+                return null;
+            }
+            type = structField.dataType();
+            column = column == null ? functions.col("`" + field.replace("`", "``") + "`") : column.getField(field);
+        }
+        boolean isMatchingType = (this.value instanceof String && type instanceof StringType)
+            || ((this.value instanceof BigDecimal || this.value instanceof Double) && type instanceof NumericType)
+            || (this.value instanceof Boolean && type instanceof BooleanType)
+            || (this.value instanceof Date && type instanceof DateType);
+        if (column == null || !isMatchingType) {
+            return null;
+        }
+        if (this.value instanceof BigDecimal && !fitsInSparkDecimal((BigDecimal) this.value)) {
+            // Spark cannot represent the literal, so the comparison is only evaluated by the where clause.
+            return null;
+        }
+        Object literal = this.value;
+        if (type instanceof FloatType && this.value instanceof BigDecimal) {
+            // JSONiq casts decimals to float when comparing them with floats, whereas Spark would widen the column
+            // to double, under which a float such as 4.2f is not equal to 4.2.
+            literal = functions.lit(((BigDecimal) this.value).floatValue());
+        }
+        switch (this.operator) {
+            case VC_EQ:
+            case GC_EQ:
+                return column.equalTo(literal);
+            case VC_NE:
+            case GC_NE:
+                return column.notEqual(literal);
+            case VC_LT:
+            case GC_LT:
+                return column.lt(literal);
+            case VC_LE:
+            case GC_LE:
+                return column.leq(literal);
+            case VC_GT:
+            case GC_GT:
+                return column.gt(literal);
+            case VC_GE:
+            case GC_GE:
+                return column.geq(literal);
+            default:
+                return null;
+        }
+    }
+
+    private static boolean fitsInSparkDecimal(BigDecimal decimal) {
+        if (decimal.scale() < 0) {
+            decimal = decimal.setScale(0);
+        }
+        return Math.max(decimal.precision(), decimal.scale()) <= DecimalType.MAX_PRECISION();
+    }
+
+    /**
+     * Evaluates the predicate against the known values of some top-level columns, e.g., those of a partition, to
+     * find out whether rows with these values may satisfy it.
+     *
+     * @param values the values of the known columns, as a String, a BigDecimal, a Double or a Date, or null if the
+     *        column is absent.
+     * @return false if no row with these values satisfies the predicate, true if all of them do, or null if it
+     *         depends on the other columns.
+     */
+    public Boolean evaluate(Map<String, Object> values) {
+        switch (this.kind) {
+            case AND: {
+                Boolean leftValue = this.left.evaluate(values);
+                Boolean rightValue = this.right.evaluate(values);
+                if (Boolean.FALSE.equals(leftValue) || Boolean.FALSE.equals(rightValue)) {
+                    return false;
+                }
+                if (Boolean.TRUE.equals(leftValue) && Boolean.TRUE.equals(rightValue)) {
+                    return true;
+                }
+                return null;
+            }
+            case OR: {
+                Boolean leftValue = this.left.evaluate(values);
+                Boolean rightValue = this.right.evaluate(values);
+                if (Boolean.TRUE.equals(leftValue) || Boolean.TRUE.equals(rightValue)) {
+                    return true;
+                }
+                if (Boolean.FALSE.equals(leftValue) && Boolean.FALSE.equals(rightValue)) {
+                    return false;
+                }
+                return null;
+            }
+            default:
+                return evaluateComparison(values);
+        }
+    }
+
+    private Boolean evaluateComparison(Map<String, Object> values) {
+        if (this.path.size() != 1 || !values.containsKey(this.path.get(0))) {
+            return null;
+        }
+        Object columnValue = values.get(this.path.get(0));
+        if (columnValue == null) {
+            // absent values fail all comparisons.
+            return false;
+        }
+        Integer comparison = compare(columnValue, this.value);
+        if (comparison == null) {
+            return null;
+        }
+        switch (this.operator) {
+            case VC_EQ:
+            case GC_EQ:
+                return comparison == 0;
+            case VC_NE:
+            case GC_NE:
+                return comparison != 0;
+            case VC_LT:
+            case GC_LT:
+                return comparison < 0;
+            case VC_LE:
+            case GC_LE:
+                return comparison <= 0;
+            case VC_GT:
+            case GC_GT:
+                return comparison > 0;
+            case VC_GE:
+            case GC_GE:
+                return comparison >= 0;
+            default:
+                return null;
+        }
+    }
+
+    private static Integer compare(Object left, Object right) {
+        if (left instanceof String && right instanceof String) {
+            return compareCodepoints((String) left, (String) right);
+        }
+        if (left instanceof Double || right instanceof Double) {
+            if (!(left instanceof Number && right instanceof Number)) {
+                return null;
+            }
+            double leftDouble = ((Number) left).doubleValue();
+            double rightDouble = ((Number) right).doubleValue();
+            return leftDouble < rightDouble ? -1 : (leftDouble > rightDouble ? 1 : 0);
+        }
+        if (left instanceof BigDecimal && right instanceof BigDecimal) {
+            return ((BigDecimal) left).compareTo((BigDecimal) right);
+        }
+        if (left instanceof Date && right instanceof Date) {
+            return ((Date) left).compareTo((Date) right);
+        }
+        return null;
+    }
+
+    // strings are compared by codepoint in JSONiq, unlike String.compareTo which compares UTF-16 units.
+    private static int compareCodepoints(String left, String right) {
+        int leftIndex = 0;
+        int rightIndex = 0;
+        while (leftIndex < left.length() && rightIndex < right.length()) {
+            int leftCodepoint = left.codePointAt(leftIndex);
+            int rightCodepoint = right.codePointAt(rightIndex);
+            if (leftCodepoint != rightCodepoint) {
+                return Integer.compare(leftCodepoint, rightCodepoint);
+            }
+            leftIndex += Character.charCount(leftCodepoint);
+            rightIndex += Character.charCount(rightCodepoint);
+        }
+        return Integer.compare(left.length() - leftIndex, right.length() - rightIndex);
+    }
+
+    // JSONiq lookups are case-sensitive, unlike the default resolution of Spark.
+    private static StructField getField(StructType type, String name) {
+        for (StructField field : type.fields()) {
+            if (field.name().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.kind) {
+            case AND:
+                return "(" + this.left + " and " + this.right + ")";
+            case OR:
+                return "(" + this.left + " or " + this.right + ")";
+            default:
+                return String.join(".", this.path) + " " + this.operator + " " + this.value;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.input;
+
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.expressions.ExecutionMode;
+import org.rumbledb.runtime.DataFrameRuntimeIterator;
+import org.rumbledb.runtime.RuntimeIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A function that reads files as a DataFrame, to which the columns and filters needed by the rest of the query can be
+ * applied right when reading. Spark then pushes them into the scan of the files, e.g., to only read the needed
+ * columns of Parquet files and skip their row groups that cannot match.
+ */
+public abstract class DataFrameFileFunctionIterator extends DataFrameRuntimeIterator {
+
+    private static final long serialVersionUID = 1L;
+    private Set<String> projectedColumns;
+    private List<ColumnPredicate> predicates;
+
+    protected DataFrameFileFunctionIterator(
+            List<RuntimeIterator> arguments,
+            ExecutionMode executionMode,
+            ExceptionMetadata iteratorMetadata
+    ) {
+        super(arguments, executionMode, iteratorMetadata);
+        this.projectedColumns = null;
+        this.predicates = Collections.emptyList();
+    }
+
+    /**
+     * Sets the columns and filters to apply when reading.
+     *
+     * @param projectedColumns the columns needed, or null if all of them are.
+     * @param predicates necessary conditions for rows to be needed.
+     */
+    public void setScanPushdown(Set<String> projectedColumns, List<ColumnPredicate> predicates) {
+        this.projectedColumns = projectedColumns == null ? null : new HashSet<>(projectedColumns);
+        this.predicates = new ArrayList<>(predicates);
+    }
+
+    /**
+     * Applies the columns and filters needed by the query to a freshly read DataFrame.
+     *
+     * @param dataFrame the DataFrame of the files.
+     * @return the filtered and projected DataFrame.
+     */
+    protected Dataset<Row> applyScanPushdown(Dataset<Row> dataFrame) {
+        StructType schema = dataFrame.schema();
+        for (ColumnPredicate predicate : this.predicates) {
+            Column filter = predicate.toColumn(schema);
+            if (filter != null) {
+                System.err.println("[INFO] Rumble pushed the filter " + predicate + " into the scan of the input.");
+                dataFrame = dataFrame.filter(filter);
+            }
+        }
+        if (this.projectedColumns == null) {
+            return dataFrame;
+        }
+        List<Column> columns = new ArrayList<>();
+        for (String field : schema.fieldNames()) {
+            if (this.projectedColumns.contains(field)) {
+                columns.add(functions.col("`" + field.replace("`", "``") + "`"));
+            }
+        }
+        if (columns.size() == schema.fields().length) {
+            return dataFrame;
+        }
+        if (columns.isEmpty()) {
+            // none of the columns are looked up, but the rows still need to be counted.
+            columns.add(functions.col("`" + schema.fieldNames()[0].replace("`", "``") + "`"));
+        }
+        return dataFrame.select(columns.toArray(new Column[0]));
+    }
+}
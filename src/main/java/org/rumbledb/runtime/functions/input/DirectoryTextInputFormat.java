@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+
+package org.rumbledb.runtime.functions.input;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.TextInputFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the lines of the files directly in a list of directories, like TextInputFormat, but takes the directories
+ * literally: characters such as commas, braces or brackets in their names are neither separators nor glob patterns.
+ * The directories are set with FileInputFormat.setInputPaths, which escapes them.
+ */
+public class DirectoryTextInputFormat extends TextInputFormat {
+
+    @Override
+    protected FileStatus[] listStatus(JobConf job) throws IOException {
+        List<FileStatus> result = new ArrayList<>();
+        for (Path directory : FileInputFormat.getInputPaths(job)) {
+            FileSystem fileSystem = directory.getFileSystem(job);
+            for (FileStatus status : fileSystem.listStatus(directory)) {
+                String name = status.getPath().getName();
+                if (status.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+                    result.add(status);
+                }
+            }
+        }
+        return result.toArray(new FileStatus[0]);
+    }
+}
@@ -4,7 +4,10 @@ import org.apache.hadoop.HadoopIllegalArgumentException;
 import org.apache.hadoop.fs.CreateFlag;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocatedFileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.fs.UnsupportedFileSystemException;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.ClientProtocolException;
@@ -22,9 +25,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -141,6 +146,56 @@ public class FileSystemUtil {
         }
     }
 
+    /**
+     * Lists the files and directories directly contained in a directory.
+     *
+     * @param locator the directory.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the statuses of the files and directories, or an empty array if the locator is not a directory.
+     */
+    public static FileStatus[] listStatus(URI locator, RumbleRuntimeConfiguration conf, ExceptionMetadata metadata) {
+        checkForAbsoluteAndNoWildcards(locator, metadata);
+        checkAllowed(locator, conf, metadata);
+        try {
+            FileContext fileContext = FileContext.getFileContext();
+            Path path = new Path(locator);
+            if (!fileContext.getFileStatus(path).isDirectory()) {
+                return new FileStatus[0];
+            }
+            return fileContext.util().listStatus(path);
+        } catch (Exception e) {
+            handleException(e, locator, metadata);
+            return null;
+        }
+    }
+
+    /**
+     * Lists the files contained in a directory and its subdirectories, or the file itself if the locator is a file.
+     *
+     * @param locator the directory or file.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the statuses of the files.
+     */
+    public static List<FileStatus> listFiles(URI locator, RumbleRuntimeConfiguration conf, ExceptionMetadata metadata) {
+        checkForAbsoluteAndNoWildcards(locator, metadata);
+        checkAllowed(locator, conf, metadata);
+        try {
+            FileContext fileContext = FileContext.getFileContext();
+            Path path = new Path(locator);
+            RemoteIterator<LocatedFileStatus> iterator = fileContext.util().listFiles(path, true);
+            List<FileStatus> result = new ArrayList<>();
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+            return result;
+        } catch (Exception e) {
+            handleException(e, locator, metadata);
+            return null;
+        }
+    }
+
     public static InputStream getDataInputStream(
             URI locator,
             RumbleRuntimeConfiguration conf,
@@ -235,6 +290,34 @@ public class FileSystemUtil {
         }
     }
 
+    /**
+     * Creates (or overwrites) a file and opens it for writing.
+     *
+     * @param locator the location of the file.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the output stream, which must be closed by the caller.
+     */
+    public static OutputStream create(
+            URI locator,
+            RumbleRuntimeConfiguration conf,
+            ExceptionMetadata metadata
+    ) {
+        checkForAbsoluteAndNoWildcards(locator, metadata);
+        checkAllowed(locator, conf, metadata);
+        try {
+            FileContext fileContext = FileContext.getFileContext();
+            Path path = new Path(locator);
+            return fileContext.create(
+                path,
+                EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE)
+            );
+        } catch (Exception e) {
+            handleException(e, locator, metadata);
+            return null;
+        }
+    }
+
     public static void append(
             URI locator,
             List<String> content,
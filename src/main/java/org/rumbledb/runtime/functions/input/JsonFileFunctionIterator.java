@@ -20,13 +20,24 @@
 
 package org.rumbledb.runtime.functions.input;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.apache.spark.api.java.JavaHadoopRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.exceptions.CannotRetrieveResourceException;
 import org.rumbledb.exceptions.ExceptionMetadata;
 import org.rumbledb.expressions.ExecutionMode;
+import org.rumbledb.items.parsing.JSONLinesToItemMapper;
 import org.rumbledb.items.parsing.JSONSyntaxToItemMapper;
+import org.rumbledb.items.parsing.ObjectProjection;
+import org.rumbledb.items.parsing.PartitionedJSONLinesToItemMapper;
 import org.rumbledb.runtime.RDDRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 
@@ -43,6 +54,8 @@ import java.util.List;
 public class JsonFileFunctionIterator extends RDDRuntimeIterator {
 
     private static final long serialVersionUID = 1L;
+    private ObjectProjection projection;
+    private List<ColumnPredicate> predicates;
 
     public JsonFileFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -50,6 +63,27 @@ public class JsonFileFunctionIterator extends RDDRuntimeIterator {
             ExceptionMetadata iteratorMetadata
     ) {
         super(arguments, executionMode, iteratorMetadata);
+        this.projection = null;
+        this.predicates = null;
+    }
+
+    /**
+     * Restricts the objects read to the parts needed by the query, which allows skipping the rest while parsing.
+     *
+     * @param projection the projection, or null if objects are needed entirely.
+     */
+    public void setProjection(ObjectProjection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Sets the predicates that the objects read must satisfy, which allows pruning the partitions of a directory
+     * partitioned in the Hive style before reading them.
+     *
+     * @param predicates the predicates, or null if there are none.
+     */
+    public void setPredicates(List<ColumnPredicate> predicates) {
+        this.predicates = predicates == null ? null : new ArrayList<>(predicates);
     }
 
     @Override
@@ -63,7 +97,6 @@ public class JsonFileFunctionIterator extends RDDRuntimeIterator {
             partitions = this.children.get(1).materializeFirstItemOrNull(context).getIntValue();
         }
 
-        JavaRDD<String> strings;
         if (uri.getScheme().equals("http") || uri.getScheme().equals("https")) {
             InputStream is = FileSystemUtil.getDataInputStream(
                 uri,
@@ -80,6 +113,7 @@ public class JsonFileFunctionIterator extends RDDRuntimeIterator {
             } catch (IOException e) {
                 throw new CannotRetrieveResourceException("Cannot read " + uri, getMetadata());
             }
+            JavaRDD<String> strings;
             if (partitions == -1) {
                 strings = SparkSessionManager.getInstance()
                     .getJavaSparkContext()
@@ -92,29 +126,55 @@ public class JsonFileFunctionIterator extends RDDRuntimeIterator {
                         partitions
                     );
             }
-        } else {
-            if (!FileSystemUtil.exists(uri, context.getRumbleRuntimeConfiguration(), getMetadata())) {
-                throw new CannotRetrieveResourceException("File " + uri + " not found.", getMetadata());
-            }
+            return strings.mapPartitions(new JSONSyntaxToItemMapper(getMetadata()));
+        }
 
-            String path = uri.toString();
-            if (uri.getScheme().contentEquals("file")) {
-                path = path.replaceAll("%20", " ");
-            }
+        if (!FileSystemUtil.exists(uri, context.getRumbleRuntimeConfiguration(), getMetadata())) {
+            throw new CannotRetrieveResourceException("File " + uri + " not found.", getMetadata());
+        }
 
-            if (partitions == -1) {
-                strings = SparkSessionManager.getInstance()
-                    .getJavaSparkContext()
-                    .textFile(path);
-            } else {
-                strings = SparkSessionManager.getInstance()
-                    .getJavaSparkContext()
-                    .textFile(
-                        path,
-                        partitions
-                    );
+        String path = uri.toString();
+        if (uri.getScheme().contentEquals("file")) {
+            path = path.replaceAll("%20", " ");
+        }
+
+        // the lines are read as raw bytes (as textFile does, but without decoding them) and parsed from there.
+        JavaSparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext();
+        PartitionedDirectory directory = PartitionedDirectory.discover(
+            uri,
+            this.predicates,
+            context.getRumbleRuntimeConfiguration(),
+            getMetadata()
+        );
+        if (directory != null) {
+            List<Path> directories = directory.getDirectories();
+            if (directories.isEmpty()) {
+                return sparkContext.emptyRDD();
             }
+            // the directories are passed as paths rather than as a single string, in which commas in partition
+            // values or in the base path would separate paths, and braces or brackets would be glob patterns.
+            JobConf jobConf = new JobConf(sparkContext.hadoopConfiguration());
+            FileInputFormat.setInputPaths(jobConf, directories.toArray(new Path[0]));
+            JavaHadoopRDD<LongWritable, Text> partitionedLines = (JavaHadoopRDD<LongWritable, Text>) sparkContext
+                .hadoopRDD(
+                    jobConf,
+                    DirectoryTextInputFormat.class,
+                    LongWritable.class,
+                    Text.class,
+                    partitions == -1 ? sparkContext.defaultMinPartitions() : partitions
+                );
+            return partitionedLines.mapPartitionsWithInputSplit(
+                new PartitionedJSONLinesToItemMapper(getMetadata(), this.projection, directory),
+                false
+            );
         }
-        return strings.mapPartitions(new JSONSyntaxToItemMapper(getMetadata()));
+        JavaRDD<Text> lines = sparkContext.hadoopFile(
+            path,
+            TextInputFormat.class,
+            LongWritable.class,
+            Text.class,
+            partitions == -1 ? sparkContext.defaultMinPartitions() : partitions
+        ).values();
+        return lines.mapPartitions(new JSONLinesToItemMapper(getMetadata(), this.projection));
     }
 }
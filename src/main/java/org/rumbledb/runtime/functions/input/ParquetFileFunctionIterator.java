@@ -28,7 +28,6 @@ import org.rumbledb.exceptions.CannotRetrieveResourceException;
 import org.rumbledb.exceptions.ExceptionMetadata;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.structured.JSoundDataFrame;
-import org.rumbledb.runtime.DataFrameRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 
 import sparksoniq.spark.SparkSessionManager;
@@ -36,7 +35,7 @@ import sparksoniq.spark.SparkSessionManager;
 import java.net.URI;
 import java.util.List;
 
-public class ParquetFileFunctionIterator extends DataFrameRuntimeIterator {
+public class ParquetFileFunctionIterator extends DataFrameFileFunctionIterator {
 
     private static final long serialVersionUID = 1L;
 
@@ -63,7 +62,7 @@ public class ParquetFileFunctionIterator extends DataFrameRuntimeIterator {
                 .getOrCreateSession()
                 .read()
                 .parquet(uri.toString());
-            return new JSoundDataFrame(dataFrame);
+            return new JSoundDataFrame(applyScanPushdown(dataFrame));
         } catch (Exception e) {
             if (e instanceof AnalysisException) {
                 throw new CannotRetrieveResourceException("File " + uri + " not found.", getMetadata());
@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.input;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.rumbledb.api.Item;
+import org.rumbledb.config.RumbleRuntimeConfiguration;
+import org.rumbledb.exceptions.CannotRetrieveResourceException;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.items.ItemFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A directory partitioned in the Hive style, i.e., in which the files are stored in nested directories named after
+ * the values of the partition columns, such as logs/tenant=42/dt=2026-10-14/part-00000.json.
+ *
+ * The partitions are discovered on the driver, one partition column at a time, and pruned with column predicates as
+ * soon as the values they depend on are known, so that the subdirectories of pruned partitions are never listed. The
+ * type of a partition column is inferred from its values in the partitions that remain: integer, then double, then
+ * date, then string. The values of the partition columns of a file are added to the objects read from it.
+ *
+ * Hidden files and directories (starting with _ or .) are ignored. Otherwise, a partition directory contains either
+ * only partition directories of the next column, or only files: other entries are reported as errors rather than
+ * silently skipped.
+ */
+public class PartitionedDirectory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    // the name Hive and Spark give to the partitions in which a column is null.
+    private static final String nullPartitionValue = "__HIVE_DEFAULT_PARTITION__";
+    private static final Pattern integerPattern = Pattern.compile("-?[0-9]{1,18}");
+    private static final Pattern doublePattern = Pattern.compile("-?[0-9]+(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+    private static final Pattern datePattern = Pattern.compile("[0-9]{4}-[0-9]{2}-[0-9]{2}");
+
+    private enum ColumnType {
+        INTEGER,
+        DOUBLE,
+        DATE,
+        STRING
+    }
+
+    private final List<String> columnNames;
+    private final List<ColumnType> columnTypes;
+    // the leaf directories of the partitions that were not pruned, only needed on the driver.
+    private final transient List<Path> partitionDirectories;
+
+    private PartitionedDirectory(
+            List<String> columnNames,
+            List<ColumnType> columnTypes,
+            List<Path> partitionDirectories
+    ) {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.partitionDirectories = partitionDirectories;
+    }
+
+    /**
+     * Discovers the partitions of a directory that may contain objects satisfying the predicates.
+     *
+     * @param uri the directory.
+     * @param predicates the predicates, or null if there are none.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the partitioned directory, or null if the locator is not a directory partitioned in the Hive style.
+     */
+    public static PartitionedDirectory discover(
+            URI uri,
+            List<ColumnPredicate> predicates,
+            RumbleRuntimeConfiguration conf,
+            ExceptionMetadata metadata
+    ) {
+        if (uri.toString().contains("*")) {
+            return null;
+        }
+        List<String> columnNames = new ArrayList<>();
+        List<ColumnType> columnTypes = new ArrayList<>();
+        // the partitions of the current level, with the raw values of their partition columns.
+        List<Path> directories = Collections.singletonList(new Path(uri));
+        List<List<String>> directoryValues = Collections.singletonList(Collections.emptyList());
+        while (true) {
+            int depth = columnNames.size();
+            String columnName = null;
+            Path leaf = null;
+            List<Path> subdirectories = new ArrayList<>();
+            List<List<String>> subdirectoryValues = new ArrayList<>();
+            for (int i = 0; i < directories.size(); i++) {
+                List<Path> partitions = listPartitions(directories.get(i), depth > 0, conf, metadata);
+                if (partitions.isEmpty()) {
+                    leaf = directories.get(i);
+                }
+                for (Path partition : partitions) {
+                    String name = partition.getName();
+                    String partitionColumnName = unescape(name.substring(0, name.indexOf('=')));
+                    if (columnName == null) {
+                        columnName = partitionColumnName;
+                    } else if (!columnName.equals(partitionColumnName)) {
+                        throw new CannotRetrieveResourceException(
+                                "The partition directory "
+                                    + partition
+                                    + " is not named after the partition column "
+                                    + columnName
+                                    + ".",
+                                metadata
+                        );
+                    }
+                    List<String> values = new ArrayList<>(directoryValues.get(i));
+                    values.add(unescape(name.substring(name.indexOf('=') + 1)));
+                    subdirectories.add(partition);
+                    subdirectoryValues.add(values);
+                }
+            }
+            if (columnName == null) {
+                break;
+            }
+            if (leaf != null) {
+                throw new CannotRetrieveResourceException(
+                        "The partition directory "
+                            + leaf
+                            + " does not have a value for the partition column "
+                            + columnName
+                            + ".",
+                        metadata
+                );
+            }
+            List<String> columnValues = new ArrayList<>();
+            for (List<String> values : subdirectoryValues) {
+                columnValues.add(values.get(depth));
+            }
+            columnNames.add(columnName);
+            columnTypes.add(inferType(columnValues));
+            directories = new ArrayList<>();
+            directoryValues = new ArrayList<>();
+            for (int i = 0; i < subdirectories.size(); i++) {
+                if (!isPruned(predicates, columnNames, columnTypes, subdirectoryValues.get(i))) {
+                    directories.add(subdirectories.get(i));
+                    directoryValues.add(subdirectoryValues.get(i));
+                }
+            }
+        }
+        if (columnNames.isEmpty()) {
+            return null;
+        }
+        return new PartitionedDirectory(columnNames, columnTypes, directories);
+    }
+
+    /**
+     * Lists the partition directories (named key=value) in a directory.
+     *
+     * @param directory the directory.
+     * @param isPartition true if the directory is itself a partition, in which it may only contain files otherwise.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the partition directories, or an empty list if the directory only contains files.
+     */
+    private static List<Path> listPartitions(
+            Path directory,
+            boolean isPartition,
+            RumbleRuntimeConfiguration conf,
+            ExceptionMetadata metadata
+    ) {
+        List<Path> partitions = new ArrayList<>();
+        List<FileStatus> others = new ArrayList<>();
+        for (FileStatus status : FileSystemUtil.listStatus(directory.toUri(), conf, metadata)) {
+            String name = status.getPath().getName();
+            if (isHidden(name)) {
+                continue;
+            }
+            if (status.isDirectory() && name.indexOf('=') > 0) {
+                partitions.add(status.getPath());
+            } else {
+                others.add(status);
+            }
+        }
+        if (!isPartition && partitions.isEmpty()) {
+            // not a partitioned directory.
+            return partitions;
+        }
+        for (FileStatus other : others) {
+            if (!partitions.isEmpty() || other.isDirectory()) {
+                throw new CannotRetrieveResourceException(
+                        "The "
+                            + (other.isDirectory() ? "directory " : "file ")
+                            + other.getPath()
+                            + " is not a partition directory (named key=value), but is in "
+                            + (partitions.isEmpty() ? "the partition directory " : "a directory of partitions ")
+                            + directory
+                            + ".",
+                        metadata
+                );
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean isPruned(
+            List<ColumnPredicate> predicates,
+            List<String> columnNames,
+            List<ColumnType> columnTypes,
+            List<String> rawValues
+    ) {
+        if (predicates == null) {
+            return false;
+        }
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < rawValues.size(); i++) {
+            values.put(columnNames.get(i), getValue(rawValues.get(i), columnTypes.get(i)));
+        }
+        for (ColumnPredicate predicate : predicates) {
+            if (Boolean.FALSE.equals(predicate.evaluate(values))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHidden(String name) {
+        return name.startsWith("_") || name.startsWith(".");
+    }
+
+    // Hive escapes special characters in partition directory names as %XX, in UTF-8.
+    private static String unescape(String name) {
+        if (name.indexOf('%') < 0) {
+            return name;
+        }
+        StringBuilder result = new StringBuilder();
+        ByteArrayOutputStream escapedBytes = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < name.length()) {
+            if (
+                name.charAt(i) == '%'
+                    && i + 2 < name.length()
+                    && isHexDigit(name.charAt(i + 1))
+                    && isHexDigit(name.charAt(i + 2))
+            ) {
+                escapedBytes.write(Integer.parseInt(name.substring(i + 1, i + 3), 16));
+                i += 3;
+            } else {
+                result.append(new String(escapedBytes.toByteArray(), StandardCharsets.UTF_8));
+                escapedBytes.reset();
+                result.append(name.charAt(i));
+                i++;
+            }
+        }
+        result.append(new String(escapedBytes.toByteArray(), StandardCharsets.UTF_8));
+        return result.toString();
+    }
+
+    private static boolean isHexDigit(char c) {
+        return Character.digit(c, 16) >= 0;
+    }
+
+    private static ColumnType inferType(List<String> values) {
+        boolean allIntegers = true;
+        boolean allDoubles = true;
+        boolean allDates = true;
+        for (String value : values) {
+            if (value.equals(nullPartitionValue)) {
+                continue;
+            }
+            allIntegers = allIntegers && integerPattern.matcher(value).matches();
+            allDoubles = allDoubles && doublePattern.matcher(value).matches();
+            allDates = allDates && isDate(value);
+        }
+        if (allIntegers) {
+            return ColumnType.INTEGER;
+        }
+        if (allDoubles) {
+            return ColumnType.DOUBLE;
+        }
+        if (allDates) {
+            return ColumnType.DATE;
+        }
+        return ColumnType.STRING;
+    }
+
+    private static boolean isDate(String value) {
+        if (!datePattern.matcher(value).matches()) {
+            return false;
+        }
+        try {
+            LocalDate.parse(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    public List<String> getColumnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * Returns the leaf directories of the partitions that were not pruned.
+     *
+     * @return the directories.
+     */
+    public List<Path> getDirectories() {
+        if (this.partitionDirectories == null) {
+            throw new OurBadException("The partitions of a directory are only known where they were discovered.");
+        }
+        return this.partitionDirectories;
+    }
+
+    private static Object getValue(String value, ColumnType type) {
+        if (value.equals(nullPartitionValue)) {
+            return null;
+        }
+        switch (type) {
+            case INTEGER:
+                return new BigDecimal(value);
+            case DOUBLE:
+                return Double.parseDouble(value);
+            case DATE:
+                return Date.valueOf(LocalDate.parse(value));
+            default:
+                return value;
+        }
+    }
+
+    private Item getItem(String value, int column) {
+        if (value.equals(nullPartitionValue)) {
+            return null;
+        }
+        switch (this.columnTypes.get(column)) {
+            case INTEGER:
+                return ItemFactory.getInstance().createLongItem(Long.parseLong(value));
+            case DOUBLE:
+                return ItemFactory.getInstance().createDoubleItem(Double.parseDouble(value));
+            case DATE:
+                return ItemFactory.getInstance().createDateItem(value);
+            default:
+                return ItemFactory.getInstance().createStringItem(value);
+        }
+    }
+
+    /**
+     * Returns the values of the partition columns of a file, read from the names of its parent directories.
+     *
+     * @param file a file in a leaf directory of the partitions.
+     * @return the values of the partition columns, in order, without the null ones.
+     */
+    public Map<String, Item> getFields(Path file) {
+        Item[] items = new Item[this.columnNames.size()];
+        Path directory = file.getParent();
+        for (int i = this.columnNames.size() - 1; i >= 0; i--) {
+            String name = directory.getName();
+            int separator = name.indexOf('=');
+            if (separator <= 0 || !unescape(name.substring(0, separator)).equals(this.columnNames.get(i))) {
+                throw new OurBadException("The file " + file + " is not in a partition directory.");
+            }
+            items[i] = getItem(unescape(name.substring(separator + 1)), i);
+            directory = directory.getParent();
+        }
+        Map<String, Item> result = new LinkedHashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null) {
+                result.put(this.columnNames.get(i), items[i]);
+            }
+        }
+        return result;
+    }
+}
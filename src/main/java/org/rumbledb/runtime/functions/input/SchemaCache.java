@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.input;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.config.RumbleRuntimeConfiguration;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.exceptions.RumbleException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the schemas inferred from JSON Lines inputs, so that the same input is only scanned again for inference once
+ * its files change.
+ *
+ * A schema is keyed by the input, the options of the inference, and the path, length and modification time of every
+ * file of the input. The schemas are kept in memory for the lifetime of the process and, if a schema cache path is
+ * configured, in files in that directory so that they survive across runs. At most 100 schemas are kept in memory, the
+ * least recently used ones being evicted first.
+ */
+public class SchemaCache {
+
+    private static final int maxSchemasInMemory = 100;
+    private static final Map<String, StructType> schemas = Collections.synchronizedMap(
+        new LinkedHashMap<String, StructType>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StructType> eldest) {
+                return size() > maxSchemasInMemory;
+            }
+        }
+    );
+
+    /**
+     * Computes the key of an input in the cache, which requires listing its files.
+     *
+     * @param uri the input.
+     * @param inferenceOptions the options that influence the inference, serialized.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the key, or null if the input cannot be cached, e.g., because it is a pattern.
+     */
+    public static String getKey(
+            URI uri,
+            String inferenceOptions,
+            RumbleRuntimeConfiguration conf,
+            ExceptionMetadata metadata
+    ) {
+        if (uri.toString().contains("*")) {
+            return null;
+        }
+        List<FileStatus> files = FileSystemUtil.listFiles(uri, conf, metadata);
+        files.sort(Comparator.comparing(file -> file.getPath().toString()));
+        StringBuilder description = new StringBuilder();
+        description.append(uri).append('\n').append(inferenceOptions).append('\n');
+        for (FileStatus file : files) {
+            description.append(file.getPath())
+                .append('\t')
+                .append(file.getLen())
+                .append('\t')
+                .append(file.getModificationTime())
+                .append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new OurBadException("SHA-256 is not available.");
+        }
+    }
+
+    /**
+     * Looks up a schema, first in memory, then in the schema cache directory if any.
+     *
+     * @param key the key of the input.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     * @return the schema, or null if it is not in the cache.
+     */
+    public static StructType get(String key, RumbleRuntimeConfiguration conf, ExceptionMetadata metadata) {
+        StructType schema = schemas.get(key);
+        if (schema != null || conf.getSchemaCachePath() == null) {
+            return schema;
+        }
+        URI file = getFile(key, conf, metadata);
+        if (!FileSystemUtil.exists(file, conf, metadata)) {
+            return null;
+        }
+        try {
+            DataType dataType = DataType.fromJson(FileSystemUtil.readContent(file, conf, metadata).trim());
+            if (!(dataType instanceof StructType)) {
+                return null;
+            }
+            schemas.put(key, (StructType) dataType);
+            return (StructType) dataType;
+        } catch (RuntimeException e) {
+            // an unreadable entry is only a cache miss, and is overwritten after the inference.
+            System.err.println("[WARNING] Ignoring the unreadable cached schema " + file + ".");
+            return null;
+        }
+    }
+
+    /**
+     * Adds a schema to the cache.
+     *
+     * @param key the key of the input.
+     * @param schema the schema.
+     * @param conf the configuration.
+     * @param metadata the metadata for errors.
+     */
+    public static void put(String key, StructType schema, RumbleRuntimeConfiguration conf, ExceptionMetadata metadata) {
+        schemas.put(key, schema);
+        if (conf.getSchemaCachePath() == null) {
+            return;
+        }
+        URI file = getFile(key, conf, metadata);
+        try (OutputStream outputStream = FileSystemUtil.create(file, conf, metadata)) {
+            outputStream.write(schema.json().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RumbleException e) {
+            System.err.println("[WARNING] Could not write the schema to the schema cache at " + file + ".");
+        }
+    }
+
+    private static URI getFile(String key, RumbleRuntimeConfiguration conf, ExceptionMetadata metadata) {
+        String path = conf.getSchemaCachePath();
+        return FileSystemUtil.resolveURIAgainstWorkingDirectory(
+            (path.endsWith("/") ? path : path + "/") + key + ".json",
+            conf,
+            metadata
+        );
+    }
+}
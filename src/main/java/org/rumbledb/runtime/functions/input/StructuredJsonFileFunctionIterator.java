@@ -21,26 +21,50 @@
 package org.rumbledb.runtime.functions.input;
 
 import org.apache.spark.SparkException;
+import org.apache.spark.api.java.function.FilterFunction;
 import org.apache.spark.sql.AnalysisException;
+import org.apache.spark.sql.DataFrameReader;
 import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
 import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.types.StructType;
+import org.rumbledb.api.Item;
+import org.rumbledb.config.RumbleRuntimeConfiguration;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.exceptions.CannotRetrieveResourceException;
 import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.InvalidSchemaException;
 import org.rumbledb.exceptions.RumbleException;
+import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.DataFrameRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
+import org.rumbledb.runtime.typing.ValidateTypeIterator;
+import org.rumbledb.types.ItemType;
+import org.rumbledb.types.ItemTypeFactory;
 
 import sparksoniq.spark.SparkSessionManager;
 
 import java.net.URI;
 import java.util.List;
+import java.util.TreeMap;
 
+/**
+ * Reads JSON Lines files into a DataFrame, the schema of which is inferred by Spark.
+ *
+ * Inferring the schema requires a full pass over the input before the query runs. The options of the second
+ * parameter allow avoiding it: a JSound schema ("schema") skips the inference, and a sample size ("sampleSize")
+ * restricts it to the first lines of the input. The other options are passed to the Spark JSON reader, e.g.,
+ * "samplingRatio". Inferred schemas are kept in the schema cache, so that they are only inferred again once the
+ * files change.
+ */
 public class StructuredJsonFileFunctionIterator extends DataFrameRuntimeIterator {
 
     private static final long serialVersionUID = 1L;
+    private static final String schemaOption = "schema";
+    private static final String sampleSizeOption = "sampleSize";
 
     public StructuredJsonFileFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -57,15 +81,49 @@ public class StructuredJsonFileFunctionIterator extends DataFrameRuntimeIterator
         String url = urlIterator.next().getStringValue();
         urlIterator.close();
         URI uri = FileSystemUtil.resolveURI(this.staticURI, url, getMetadata());
-        if (!FileSystemUtil.exists(uri, context.getRumbleRuntimeConfiguration(), getMetadata())) {
+        RumbleRuntimeConfiguration configuration = context.getRumbleRuntimeConfiguration();
+        if (!FileSystemUtil.exists(uri, configuration, getMetadata())) {
             throw new CannotRetrieveResourceException("File " + uri + " not found.", getMetadata());
         }
+        Item options = this.children.size() > 1 ? this.children.get(1).materializeFirstItemOrNull(context) : null;
         try {
-            Dataset<Row> dataFrame = SparkSessionManager.getInstance()
-                .getOrCreateSession()
-                .read()
-                .option("mode", "FAILFAST")
-                .json(uri.toString());
+            SparkSession session = SparkSessionManager.getInstance().getOrCreateSession();
+            DataFrameReader reader = session.read().option("mode", "FAILFAST");
+            Item schemaItem = null;
+            int sampleSize = -1;
+            // the options that influence the inference, in a canonical order, as part of the key of the schema cache.
+            TreeMap<String, String> inferenceOptions = new TreeMap<>();
+            if (options != null) {
+                List<String> keys = options.getKeys();
+                List<Item> values = options.getValues();
+                for (int i = 0; i < keys.size(); i++) {
+                    if (keys.get(i).equals(schemaOption)) {
+                        schemaItem = values.get(i);
+                    } else if (keys.get(i).equals(sampleSizeOption)) {
+                        sampleSize = getSampleSize(values.get(i));
+                    } else {
+                        setOption(reader, keys.get(i), values.get(i));
+                    }
+                    inferenceOptions.put(keys.get(i), values.get(i).serialize());
+                }
+            }
+
+            StructType schema;
+            if (schemaItem != null) {
+                schema = getSchema(schemaItem, context);
+            } else {
+                String key = SchemaCache.getKey(uri, inferenceOptions.toString(), configuration, getMetadata());
+                schema = key == null ? null : SchemaCache.get(key, configuration, getMetadata());
+                if (schema == null) {
+                    schema = inferSchema(session, reader, uri, sampleSize);
+                    if (key != null) {
+                        SchemaCache.put(key, schema, configuration, getMetadata());
+                    }
+                } else {
+                    System.err.println("[INFO] Rumble reused the cached schema of " + uri + ".");
+                }
+            }
+            Dataset<Row> dataFrame = reader.schema(schema).json(uri.toString());
             return new JSoundDataFrame(dataFrame);
         } catch (Exception e) {
             if (e instanceof AnalysisException) {
@@ -82,4 +140,61 @@ public class StructuredJsonFileFunctionIterator extends DataFrameRuntimeIterator
             throw e;
         }
     }
+
+    private int getSampleSize(Item value) {
+        if (!value.isInt() || value.getIntValue() <= 0) {
+            throw new UnexpectedTypeException(
+                    "The sample size of structured-json-file() must be a positive integer.",
+                    getMetadata()
+            );
+        }
+        return value.getIntValue();
+    }
+
+    private void setOption(DataFrameReader reader, String key, Item value) {
+        if (value.isBoolean()) {
+            reader.option(key, value.getBooleanValue());
+        } else if (value.isString()) {
+            reader.option(key, value.getStringValue());
+        } else if (value.isInt()) {
+            reader.option(key, value.getIntValue());
+        } else if (value.isInteger()) {
+            reader.option(key, value.getIntegerValue().doubleValue());
+        } else if (value.isDecimal()) {
+            reader.option(key, value.getDecimalValue().doubleValue());
+        } else if (value.isDouble()) {
+            reader.option(key, value.getDoubleValue());
+        } else {
+            throw new UnexpectedTypeException(
+                    "Only boolean, string, and numeric types allowed as values",
+                    getMetadata()
+            );
+        }
+    }
+
+    private StructType getSchema(Item schemaItem, DynamicContext context) {
+        ItemType schemaType = ItemTypeFactory.createItemTypeFromJSoundCompactItem(null, schemaItem, null);
+        schemaType.resolve(context, getMetadata());
+        if (!schemaType.isObjectItemType() || !schemaType.isCompatibleWithDataFrames()) {
+            throw new InvalidSchemaException(
+                    "The schema of structured-json-file() must be an object type compatible with DataFrames.",
+                    getMetadata()
+            );
+        }
+        return ValidateTypeIterator.convertToDataFrameSchema(schemaType);
+    }
+
+    private static StructType inferSchema(SparkSession session, DataFrameReader reader, URI uri, int sampleSize) {
+        if (sampleSize == -1) {
+            return reader.json(uri.toString()).schema();
+        }
+        // only the first partitions of the input are read, as far as needed to get the sample, and the sample is
+        // collected so that the inference does not read them again.
+        List<String> lines = session.read()
+            .textFile(uri.toString())
+            .filter((FilterFunction<String>) line -> !line.trim().isEmpty())
+            .takeAsList(sampleSize);
+        Dataset<String> sample = session.createDataset(lines, Encoders.STRING());
+        return reader.json(sample).schema();
+    }
 }
@@ -53,6 +53,21 @@ public class AvgFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
 
     @Override
     public Item materializeFirstItemOrNull(DynamicContext context) {
+        RuntimeIterator iterator = this.children.get(0);
+        if (iterator.isRDDOrDataFrame() && !iterator.isDataFrame()) {
+            // count and sum in a single pass
+            SequenceStatistics statistics = SequenceStatistics.of(iterator.getRDD(context), context);
+            if (statistics.getCount() == 0) {
+                return null;
+            }
+            this.item = MultiplicativeOperationIterator.processItem(
+                statistics.getSum(ItemFactory.getInstance().createIntegerItem(BigInteger.ZERO), getMetadata()),
+                ItemFactory.getInstance().createLongItem(statistics.getCount()),
+                MultiplicativeExpression.MultiplicativeOperator.DIV,
+                getMetadata()
+            );
+            return this.item;
+        }
         Item count = CountFunctionIterator.computeCount(
             this.children.get(0),
             context,
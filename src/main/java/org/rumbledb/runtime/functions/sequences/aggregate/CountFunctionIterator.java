@@ -118,7 +118,7 @@ public class CountFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
             DynamicContext context,
             ExceptionMetadata metadata
     ) {
-        long count = iterator.getRDD(context).count();
+        long count = SequenceStatistics.count(iterator.getRDD(context), context);
         if (count > (long) Integer.MAX_VALUE) {
             throw new OurBadException("The count value is too big to convert to integer type.");
         } else {
@@ -29,7 +29,6 @@ import org.rumbledb.context.DynamicContext;
 import org.rumbledb.context.Name;
 import org.rumbledb.exceptions.*;
 import org.rumbledb.expressions.ExecutionMode;
-import org.rumbledb.items.ItemComparator;
 import org.rumbledb.items.ItemFactory;
 import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.AtMostOneItemLocalRuntimeIterator;
@@ -68,7 +67,6 @@ public class MaxFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
     private transient byte activeType = 0;
     private transient ItemType returnType;
     private transient Item result;
-    private ItemComparator comparator;
 
 
     public MaxFunctionIterator(
@@ -78,13 +76,6 @@ public class MaxFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
     ) {
         super(arguments, executionMode, iteratorMetadata);
         this.iterator = this.children.get(0);
-        this.comparator = new ItemComparator(
-                false,
-                new InvalidArgumentTypeException(
-                        "Max expression input error. Input has to be non-null atomics of matching types",
-                        getMetadata()
-                )
-        );
     }
 
     @Override
@@ -485,10 +476,7 @@ public class MaxFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
         }
 
         JavaRDD<Item> rdd = this.iterator.getRDD(context);
-        if (rdd.isEmpty()) {
-            return null;
-        }
-        this.result = rdd.max(this.comparator);
+        this.result = SequenceStatistics.of(rdd, context).getMax(getMetadata());
         return this.result;
 
     }
@@ -29,7 +29,6 @@ import org.rumbledb.context.DynamicContext;
 import org.rumbledb.context.Name;
 import org.rumbledb.exceptions.*;
 import org.rumbledb.expressions.ExecutionMode;
-import org.rumbledb.items.ItemComparator;
 import org.rumbledb.items.ItemFactory;
 import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.AtMostOneItemLocalRuntimeIterator;
@@ -67,7 +66,6 @@ public class MinFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
     private transient byte activeType = 0;
     private transient ItemType returnType;
     private transient Item result;
-    private ItemComparator comparator;
 
 
     public MinFunctionIterator(
@@ -77,13 +75,6 @@ public class MinFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
     ) {
         super(arguments, executionMode, iteratorMetadata);
         this.iterator = this.children.get(0);
-        this.comparator = new ItemComparator(
-                true,
-                new InvalidArgumentTypeException(
-                        "Min expression input error. Input has to be non-null atomics of matching types",
-                        getMetadata()
-                )
-        );
     }
 
     @Override
@@ -479,10 +470,7 @@ public class MinFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
         }
 
         JavaRDD<Item> rdd = this.iterator.getRDD(context);
-        if (rdd.isEmpty()) {
-            return null;
-        }
-        this.result = rdd.min(this.comparator);
+        this.result = SequenceStatistics.of(rdd, context).getMin(getMetadata());
         return this.result;
     }
 
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.sequences.aggregate;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.rumbledb.api.Item;
+import org.rumbledb.context.DynamicContext;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.exceptions.InvalidArgumentTypeException;
+import org.rumbledb.exceptions.RumbleException;
+import org.rumbledb.items.ItemComparator;
+import org.rumbledb.runtime.arithmetics.AdditiveOperationIterator;
+import sparksoniq.spark.QueryCacheManager;
+
+import java.io.Serializable;
+
+/**
+ * The count, sum, minimum and maximum of a sequence of items, computed together in a single pass over an RDD, so
+ * that sum(), avg(), min() and max() on the same RDD (e.g., a variable bound to a big sequence) trigger a single
+ * Spark job rather than one or two each. The statistics are kept by the query cache manager until the query is over,
+ * and count() only uses them if they were already computed. The minimum and maximum are always computed, even for
+ * sum() or avg(), as which statistics later calls need is not known when the first one runs: two comparisons per item
+ * are cheaper than a second pass over the RDD.
+ *
+ * A statistic that is not defined on the sequence (e.g., the sum of strings) is only reported as an error when it
+ * is requested, so that computing it along with the others never makes the other ones fail.
+ */
+public class SequenceStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+    private Item sum;
+    private String sumError;
+    private Item min;
+    private boolean isMinDefined;
+    private Item max;
+    private boolean isMaxDefined;
+
+    private SequenceStatistics() {
+        this.count = 0;
+        this.sum = null;
+        this.sumError = null;
+        this.min = null;
+        this.isMinDefined = true;
+        this.max = null;
+        this.isMaxDefined = true;
+    }
+
+    /**
+     * Returns the statistics of an RDD, computing them with a single tree aggregation if they were not computed yet
+     * by the current query.
+     *
+     * @param rdd the RDD.
+     * @param context the dynamic context of the query.
+     * @return its statistics.
+     */
+    public static SequenceStatistics of(JavaRDD<Item> rdd, DynamicContext context) {
+        QueryCacheManager cacheManager = context.getCacheManager();
+        SequenceStatistics statistics = cacheManager.getStatistics(rdd);
+        if (statistics != null) {
+            return statistics;
+        }
+        statistics = rdd.treeAggregate(
+            new SequenceStatistics(),
+            SequenceStatistics::add,
+            SequenceStatistics::merge
+        );
+        cacheManager.putStatistics(rdd, statistics);
+        return statistics;
+    }
+
+    /**
+     * Counts the items of an RDD, reusing its statistics if the current query already computed them, and otherwise
+     * with a plain count, which is cheaper than computing all the statistics.
+     *
+     * @param rdd the RDD.
+     * @param context the dynamic context of the query.
+     * @return the number of items.
+     */
+    public static long count(JavaRDD<Item> rdd, DynamicContext context) {
+        SequenceStatistics statistics = context.getCacheManager().getStatistics(rdd);
+        if (statistics != null) {
+            return statistics.getCount();
+        }
+        return rdd.count();
+    }
+
+    private SequenceStatistics add(Item item) {
+        ++this.count;
+        if (this.sumError == null) {
+            this.sum = this.sum == null ? item : addToSum(this.sum, item);
+        }
+        if (this.isMinDefined) {
+            Integer comparison = this.min == null
+                ? Integer.valueOf(-1)
+                : ItemComparator.tryCompare(item, this.min, true);
+            if (comparison == null) {
+                this.isMinDefined = false;
+                this.min = null;
+            } else if (comparison < 0) {
+                this.min = item;
+            }
+        }
+        if (this.isMaxDefined) {
+            Integer comparison = this.max == null
+                ? Integer.valueOf(1)
+                : ItemComparator.tryCompare(item, this.max, false);
+            if (comparison == null) {
+                this.isMaxDefined = false;
+                this.max = null;
+            } else if (comparison > 0) {
+                this.max = item;
+            }
+        }
+        return this;
+    }
+
+    private SequenceStatistics merge(SequenceStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (this.count == 0) {
+            return other;
+        }
+        this.count += other.count;
+        if (this.sumError == null) {
+            this.sumError = other.sumError;
+        }
+        if (this.sumError == null) {
+            this.sum = addToSum(this.sum, other.sum);
+        }
+        this.isMinDefined = this.isMinDefined && other.isMinDefined;
+        if (this.isMinDefined) {
+            Integer comparison = ItemComparator.tryCompare(other.min, this.min, true);
+            if (comparison == null) {
+                this.isMinDefined = false;
+            } else if (comparison < 0) {
+                this.min = other.min;
+            }
+        }
+        this.isMaxDefined = this.isMaxDefined && other.isMaxDefined;
+        if (this.isMaxDefined) {
+            Integer comparison = ItemComparator.tryCompare(other.max, this.max, false);
+            if (comparison == null) {
+                this.isMaxDefined = false;
+            } else if (comparison > 0) {
+                this.max = other.max;
+            }
+        }
+        return this;
+    }
+
+    private Item addToSum(Item left, Item right) {
+        Item result = null;
+        try {
+            result = AdditiveOperationIterator.processItem(left, right, false);
+        } catch (RumbleException e) {
+            result = null;
+        }
+        if (result == null) {
+            this.sumError = " \"+\": operation not possible with parameters of type \""
+                + left.getDynamicType().toString()
+                + "\" and \""
+                + right.getDynamicType().toString()
+                + "\"";
+            this.sum = null;
+        }
+        return result;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the sum of the sequence, added to a zero element, like sum($sequence, $zero).
+     *
+     * @param zeroElement the zero element, returned for an empty sequence.
+     * @param metadata the metadata of the calling expression.
+     * @return the sum.
+     */
+    public Item getSum(Item zeroElement, ExceptionMetadata metadata) {
+        if (this.sumError != null) {
+            throw new InvalidArgumentTypeException(this.sumError, metadata);
+        }
+        if (this.count == 0) {
+            return zeroElement;
+        }
+        Item result = AdditiveOperationIterator.processItem(zeroElement, this.sum, false);
+        if (result == null) {
+            throw new InvalidArgumentTypeException(
+                    " \"+\": operation not possible with parameters of type \""
+                        + zeroElement.getDynamicType().toString()
+                        + "\" and \""
+                        + this.sum.getDynamicType().toString()
+                        + "\"",
+                    metadata
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the minimum of the sequence.
+     *
+     * @param metadata the metadata of the calling expression.
+     * @return the minimum, or null if the sequence is empty.
+     */
+    public Item getMin(ExceptionMetadata metadata) {
+        if (!this.isMinDefined) {
+            throw new InvalidArgumentTypeException(
+                    "Min expression input error. Input has to be non-null atomics of matching types",
+                    metadata
+            );
+        }
+        return this.min;
+    }
+
+    /**
+     * Returns the maximum of the sequence.
+     *
+     * @param metadata the metadata of the calling expression.
+     * @return the maximum, or null if the sequence is empty.
+     */
+    public Item getMax(ExceptionMetadata metadata) {
+        if (!this.isMaxDefined) {
+            throw new InvalidArgumentTypeException(
+                    "Max expression input error. Input has to be non-null atomics of matching types",
+                    metadata
+            );
+        }
+        return this.max;
+    }
+}
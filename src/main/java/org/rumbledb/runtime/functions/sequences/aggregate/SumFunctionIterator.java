@@ -143,8 +143,7 @@ public class SumFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
             ExceptionMetadata metadata
     ) {
         JavaRDD<Item> rdd = iterator.getRDD(context);
-        Item result = rdd.fold(zeroElement, new SumClosure(metadata));
-        return result;
+        return SequenceStatistics.of(rdd, context).getSum(zeroElement, metadata);
     }
 
     private static Item computeDataFrame(
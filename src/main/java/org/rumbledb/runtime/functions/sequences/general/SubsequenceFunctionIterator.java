@@ -116,7 +116,8 @@ public class SubsequenceFunctionIterator extends HybridRuntimeIterator {
         Dataset<Row> ds = FlworDataFrameUtils.zipWithIndex(
             df.getDataFrame(),
             1L,
-            SparkSessionManager.temporaryColumnName
+            SparkSessionManager.temporaryColumnName,
+            dynamicContext
         );
 
         String inputds = FlworDataFrameUtils.createTempView(ds);
@@ -21,26 +21,35 @@
 package org.rumbledb.runtime.functions.sequences.value;
 
 import org.apache.spark.api.java.JavaRDD;
+import org.joda.time.Instant;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.exceptions.DefaultCollationException;
 import org.rumbledb.exceptions.ExceptionMetadata;
 import org.rumbledb.exceptions.IteratorFlowException;
 import org.rumbledb.expressions.ExecutionMode;
+import org.rumbledb.items.ItemHashing;
 import org.rumbledb.items.structured.JSoundDataFrame;
 import org.rumbledb.runtime.HybridRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 
     private static final long serialVersionUID = 1L;
     private RuntimeIterator sequenceIterator;
     private Item nextResult;
-    private List<Item> prevResults;
+    // atomic values returned so far, by lookup key (see ItemHashing).
+    private Map<Integer, List<Item>> keyedResults;
+    // other values returned so far, looked up by comparison.
+    private List<Item> otherResults;
+    // the instant from which the lengths of durations are measured.
+    private Instant reference;
 
     public DistinctValuesFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -78,6 +87,9 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 
     @Override
     protected void resetLocal() {
+        this.keyedResults = new HashMap<>();
+        this.otherResults = new ArrayList<>();
+        this.reference = new Instant();
         checkCollation(this.currentDynamicContextForLocalExecution);
         this.sequenceIterator.reset(this.currentDynamicContextForLocalExecution);
         setNextResult();
@@ -91,7 +103,9 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 
     @Override
     public void openLocal() {
-        this.prevResults = new ArrayList<>();
+        this.keyedResults = new HashMap<>();
+        this.otherResults = new ArrayList<>();
+        this.reference = new Instant();
         checkCollation(this.currentDynamicContextForLocalExecution);
         this.sequenceIterator.open(this.currentDynamicContextForLocalExecution);
         setNextResult();
@@ -102,8 +116,7 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
 
         while (this.sequenceIterator.hasNext()) {
             Item item = this.sequenceIterator.next();
-            if (!this.prevResults.contains(item)) {
-                this.prevResults.add(item);
+            if (isNewValue(item)) {
                 this.nextResult = item;
                 break;
             }
@@ -117,6 +130,46 @@ public class DistinctValuesFunctionIterator extends HybridRuntimeIterator {
         }
     }
 
+    /**
+     * Records a value, unless an equal value was already seen.
+     *
+     * Atomic values are looked up under their keys, which equal values share, and compared with the values found
+     * there only. Decimals, integers and ints are also recorded under the key of the float they are rounded to, under
+     * which the floats they are equal to are found.
+     *
+     * @param item the value.
+     * @return true if no equal value was seen before.
+     */
+    private boolean isNewValue(Item item) {
+        if (this.otherResults.contains(item)) {
+            return false;
+        }
+        if (!ItemHashing.hasLookupKey(item)) {
+            for (List<Item> results : this.keyedResults.values()) {
+                if (results.contains(item)) {
+                    return false;
+                }
+            }
+            this.otherResults.add(item);
+            return true;
+        }
+        int key = ItemHashing.getLookupKey(item, this.reference);
+        int floatKey = ItemHashing.hasFloatLookupKey(item) ? ItemHashing.getFloatLookupKey(item) : key;
+        if (containsEqualValue(key, item) || (floatKey != key && containsEqualValue(floatKey, item))) {
+            return false;
+        }
+        this.keyedResults.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+        if (floatKey != key) {
+            this.keyedResults.computeIfAbsent(floatKey, k -> new ArrayList<>()).add(item);
+        }
+        return true;
+    }
+
+    private boolean containsEqualValue(int key, Item item) {
+        List<Item> results = this.keyedResults.get(key);
+        return results != null && results.contains(item);
+    }
+
     @Override
     public JavaRDD<Item> getRDDAux(DynamicContext dynamicContext) {
         checkCollation(dynamicContext);
@@ -24,25 +24,44 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
+import org.rumbledb.context.Name;
+import org.rumbledb.context.VariableValues;
 import org.rumbledb.exceptions.*;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
 import org.rumbledb.items.ItemFactory;
+import org.rumbledb.items.ItemHashing;
 import org.rumbledb.runtime.HybridRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.runtime.misc.ComparisonIterator;
+import org.rumbledb.runtime.primary.VariableReferenceIterator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class IndexOfFunctionIterator extends HybridRuntimeIterator {
 
 
     private static final long serialVersionUID = 1L;
+    // below this size, a sequence searched repeatedly is scanned every time rather than indexed.
+    private static final int MIN_INDEXED_SEQUENCE_SIZE = 32;
     private RuntimeIterator sequenceIterator;
     private RuntimeIterator searchIterator;
     private Item search;
     private Item nextResult;
     private int currentIndex;
+    // the value of the searched variable, if the sequence is a local variable reference.
+    private List<Item> sequence;
+    // the positions of the search item in the sequence, if looked up in the position index.
+    private Iterator<Integer> indexedPositions;
+    // the last variable value searched, the number of searches in a row on it, and its positions by value.
+    private transient List<Item> lastSequence;
+    private transient int lastSequenceSearches;
+    private transient Map<Item, List<Integer>> positionIndex;
 
     public IndexOfFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -78,10 +97,9 @@ public class IndexOfFunctionIterator extends HybridRuntimeIterator {
 
     @Override
     protected void openLocal() {
-        this.currentIndex = 0;
-        checkCollation(this.currentDynamicContextForLocalExecution);
-        this.sequenceIterator.open(this.currentDynamicContextForLocalExecution);
-        this.search = this.searchIterator.materializeFirstItemOrNull(this.currentDynamicContextForLocalExecution);
+        if (!startSearch(this.currentDynamicContextForLocalExecution)) {
+            this.sequenceIterator.open(this.currentDynamicContextForLocalExecution);
+        }
         setNextResult();
     }
 
@@ -92,12 +110,72 @@ public class IndexOfFunctionIterator extends HybridRuntimeIterator {
 
     @Override
     protected void resetLocal() {
-        this.currentIndex = 0;
-        checkCollation(this.currentDynamicContextForLocalExecution);
-        this.sequenceIterator.reset(this.currentDynamicContextForLocalExecution);
+        if (!startSearch(this.currentDynamicContextForLocalExecution)) {
+            this.sequenceIterator.reset(this.currentDynamicContextForLocalExecution);
+        }
         setNextResult();
     }
 
+    /**
+     * Prepares a local search. If the sequence is the value of a local variable, it is searched directly, and, from
+     * the second search in a row on the same value (e.g., in the return clause of a FLWOR expression), the positions
+     * are looked up in an index built once for that value.
+     *
+     * @param context the dynamic context.
+     * @return true if the sequence iterator is not needed.
+     */
+    private boolean startSearch(DynamicContext context) {
+        this.currentIndex = 0;
+        this.sequence = null;
+        this.indexedPositions = null;
+        checkCollation(context);
+        this.search = this.searchIterator.materializeFirstItemOrNull(context);
+        if (!(this.sequenceIterator instanceof VariableReferenceIterator) || this.sequenceIterator.isRDDOrDataFrame()) {
+            return false;
+        }
+        Name variableName = ((VariableReferenceIterator) this.sequenceIterator).getVariableName();
+        VariableValues values = context.getVariableValues();
+        if (!values.contains(variableName) || values.isRDD(variableName, getMetadata())) {
+            return false;
+        }
+        this.sequence = values.getLocalVariableValue(variableName, getMetadata());
+        if (this.sequence != this.lastSequence) {
+            this.lastSequence = this.sequence;
+            this.lastSequenceSearches = 0;
+            this.positionIndex = null;
+        }
+        this.lastSequenceSearches++;
+        if (this.lastSequenceSearches == 2 && this.sequence.size() >= MIN_INDEXED_SEQUENCE_SIZE) {
+            this.positionIndex = buildPositionIndex(this.sequence);
+        }
+        if (this.positionIndex != null && this.search != null && ItemHashing.isHashConsistent(this.search)) {
+            List<Integer> positions = this.positionIndex.get(this.search);
+            this.indexedPositions = positions == null
+                ? Collections.emptyIterator()
+                : positions.iterator();
+        }
+        return true;
+    }
+
+    /**
+     * Builds the positions (starting at 1) of the values of a sequence, keyed by value.
+     *
+     * @param sequence the sequence.
+     * @return the index, or null if some values cannot be hashed consistently with eq.
+     */
+    private static Map<Item, List<Integer>> buildPositionIndex(List<Item> sequence) {
+        Map<Item, List<Integer>> result = new HashMap<>();
+        int position = 0;
+        for (Item item : sequence) {
+            ++position;
+            if (!item.isAtomic() || !ItemHashing.isHashConsistent(item)) {
+                return null;
+            }
+            result.computeIfAbsent(item, k -> new ArrayList<>(1)).add(position);
+        }
+        return result;
+    }
+
     @Override
     protected boolean hasNextLocal() {
         return this.hasNext;
@@ -116,23 +194,24 @@ public class IndexOfFunctionIterator extends HybridRuntimeIterator {
     public void setNextResult() {
         this.nextResult = null;
 
-        while (this.sequenceIterator.hasNext()) {
-            this.currentIndex += 1;
-            Item item = this.sequenceIterator.next();
-            if (!item.isAtomic()) {
-                throw new NonAtomicKeyException(
-                        "Invalid args. index-of can't be performed with a non-atomic in the input sequence",
-                        getMetadata()
-                );
-            } else {
-                long c = ComparisonIterator.compareItems(
-                    item,
-                    this.search,
-                    ComparisonOperator.VC_EQ,
-                    ExceptionMetadata.EMPTY_METADATA
-                );
-
-                if (c == 0) {
+        if (this.indexedPositions != null) {
+            if (this.indexedPositions.hasNext()) {
+                this.nextResult = ItemFactory.getInstance().createIntItem(this.indexedPositions.next());
+            }
+        } else if (this.sequence != null) {
+            while (this.currentIndex < this.sequence.size()) {
+                Item item = this.sequence.get(this.currentIndex);
+                this.currentIndex += 1;
+                if (isMatch(item)) {
+                    this.nextResult = ItemFactory.getInstance().createIntItem(this.currentIndex);
+                    break;
+                }
+            }
+        } else {
+            while (this.sequenceIterator.hasNext()) {
+                this.currentIndex += 1;
+                Item item = this.sequenceIterator.next();
+                if (isMatch(item)) {
                     this.nextResult = ItemFactory.getInstance().createIntItem(this.currentIndex);
                     break;
                 }
@@ -145,4 +224,20 @@ public class IndexOfFunctionIterator extends HybridRuntimeIterator {
             this.hasNext = true;
         }
     }
+
+    private boolean isMatch(Item item) {
+        if (!item.isAtomic()) {
+            throw new NonAtomicKeyException(
+                    "Invalid args. index-of can't be performed with a non-atomic in the input sequence",
+                    getMetadata()
+            );
+        }
+        long c = ComparisonIterator.compareItems(
+            item,
+            this.search,
+            ComparisonOperator.VC_EQ,
+            ExceptionMetadata.EMPTY_METADATA
+        );
+        return c == 0;
+    }
 }
@@ -35,6 +35,8 @@ import java.util.regex.Pattern;
 public class MatchesFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
 
     private static final long serialVersionUID = 1L;
+    // compiled at construction if the pattern is a literal.
+    private final Pattern literalPattern;
 
     public MatchesFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -42,19 +44,24 @@ public class MatchesFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
             ExceptionMetadata iteratorMetadata
     ) {
         super(arguments, executionMode, iteratorMetadata);
+        this.literalPattern = PatternCache.getLiteralPattern(this.children.get(1));
     }
 
     @Override
     public Item materializeFirstItemOrNull(DynamicContext context) {
-        Item regexpItem = this.children.get(1)
-            .materializeFirstItemOrNull(context);
+        Pattern pattern = this.literalPattern;
+        if (pattern == null) {
+            Item regexpItem = this.children.get(1)
+                .materializeFirstItemOrNull(context);
+            pattern = PatternCache.getPattern(regexpItem.getStringValue());
+        }
         Item stringItem = this.children.get(0)
             .materializeFirstItemOrNull(context);
         if (stringItem == null) {
             stringItem = ItemFactory.getInstance().createStringItem("");
         }
 
-        Matcher matcher = Pattern.compile(regexpItem.getStringValue()).matcher(stringItem.getStringValue());
+        Matcher matcher = pattern.matcher(stringItem.getStringValue());
         boolean result = matcher.find();
         return ItemFactory.getInstance().createBooleanItem(result);
 
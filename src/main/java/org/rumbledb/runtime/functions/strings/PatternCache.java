@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package org.rumbledb.runtime.functions.strings;
+
+import org.rumbledb.api.Item;
+import org.rumbledb.runtime.RuntimeIterator;
+import org.rumbledb.runtime.primary.StringRuntimeIterator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The compiled regular expressions used by the string functions (matches, replace, tokenize), shared by all
+ * iterators and threads of a JVM (e.g., all tasks of an executor), so that a pattern that is the same on every row
+ * is compiled once rather than once per call.
+ *
+ * The cache is bounded and evicts the least recently used patterns first.
+ */
+public class PatternCache {
+
+    public static final int CAPACITY = 512;
+
+    private static final Map<Key, Pattern> patterns = new LinkedHashMap<Key, Pattern>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Pattern> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * Returns a compiled regular expression, compiling it if it is not in the cache.
+     *
+     * @param regex the regular expression.
+     * @param flags the flags, as in {@link Pattern#compile(String, int)}.
+     * @return the compiled pattern.
+     * @throws PatternSyntaxException if the regular expression is invalid.
+     */
+    public static Pattern getPattern(String regex, int flags) {
+        Key key = new Key(regex, flags);
+        synchronized (patterns) {
+            Pattern pattern = patterns.get(key);
+            if (pattern != null) {
+                return pattern;
+            }
+        }
+        // Compiled outside of the lock: two threads may occasionally compile the same pattern.
+        Pattern pattern = Pattern.compile(regex, flags);
+        synchronized (patterns) {
+            patterns.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    public static Pattern getPattern(String regex) {
+        return getPattern(regex, 0);
+    }
+
+    /**
+     * Compiles a regular expression ahead of time, if it is given as a string literal.
+     *
+     * @param iterator the iterator of the regular expression argument.
+     * @return the compiled pattern, or null if the argument is not a literal or not a valid regular expression (the
+     *         error is then raised when the function is called).
+     */
+    public static Pattern getLiteralPattern(RuntimeIterator iterator) {
+        if (!(iterator instanceof StringRuntimeIterator)) {
+            return null;
+        }
+        Item literal = iterator.materializeFirstItemOrNull(null);
+        try {
+            return getPattern(literal.getStringValue());
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static class Key {
+        private final String regex;
+        private final int flags;
+
+        Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return this.flags == otherKey.flags && this.regex.equals(otherKey.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.regex, this.flags);
+        }
+    }
+}
@@ -39,6 +39,9 @@ import java.util.regex.PatternSyntaxException;
 public class ReplaceFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
 
     private static final long serialVersionUID = 1L;
+    private static final Pattern digitPattern = Pattern.compile("\\d");
+    // compiled at construction if the pattern is a literal.
+    private final Pattern literalPattern;
 
     public ReplaceFunctionIterator(
             List<RuntimeIterator> arguments,
@@ -46,32 +49,33 @@ public class ReplaceFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
             ExceptionMetadata iteratorMetadata
     ) {
         super(arguments, executionMode, iteratorMetadata);
+        this.literalPattern = PatternCache.getLiteralPattern(this.children.get(1));
     }
 
     @Override
     public Item materializeFirstItemOrNull(DynamicContext context) {
         Item stringItem = this.children.get(0)
             .materializeFirstItemOrNull(context);
-        Item patternStringItem = this.children.get(1)
-            .materializeFirstItemOrNull(context);
-
-        if (patternStringItem == null) {
-            return null;
-        }
-        String pattern = patternStringItem.getStringValue();
-        Pattern p;
+        Pattern p = this.literalPattern;
+        if (p == null) {
+            Item patternStringItem = this.children.get(1)
+                .materializeFirstItemOrNull(context);
 
-        try {
-            p = Pattern.compile(pattern);
-        } catch (PatternSyntaxException e) {
-            throw new InvalidRegexPatternException(
-                    e.getDescription(),
-                    getMetadata()
-            );
+            if (patternStringItem == null) {
+                return null;
+            }
+            try {
+                p = PatternCache.getPattern(patternStringItem.getStringValue());
+            } catch (PatternSyntaxException e) {
+                throw new InvalidRegexPatternException(
+                        e.getDescription(),
+                        getMetadata()
+                );
+            }
         }
-        if ("".matches(pattern)) {
+        if (p.matcher("").matches()) {
             throw new MatchesEmptyStringException(
-                    "'" + pattern + "' matches empty string",
+                    "'" + p.pattern() + "' matches empty string",
                     getMetadata()
             );
         }
@@ -100,7 +104,6 @@ public class ReplaceFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
 
     private static boolean checkReplacementStringForValidity(String repl) {
         int i = 0;
-        Pattern p = Pattern.compile("\\d");
 
         while (i < repl.length()) {
             if (repl.charAt(i) == '\\') { // '\' must be followed by another '\' or '$'
@@ -109,7 +112,7 @@ public class ReplaceFunctionIterator extends AtMostOneItemLocalRuntimeIterator {
                 }
                 i += 2;
             } else if (repl.charAt(i) == '$') { // '$' must always be followed by a digit
-                if ((i + 1 >= repl.length()) || !(p.matcher(String.valueOf(repl.charAt(i + 1))).matches())) {
+                if ((i + 1 >= repl.length()) || !(digitPattern.matcher(String.valueOf(repl.charAt(i + 1))).matches())) {
                     return false;
                 }
                 i += 2;
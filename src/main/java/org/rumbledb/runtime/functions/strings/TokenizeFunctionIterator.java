@@ -31,10 +31,16 @@ import org.rumbledb.runtime.RuntimeIterator;
 import org.rumbledb.runtime.functions.base.LocalFunctionCallIterator;
 
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
 
     private static final long serialVersionUID = 1L;
+    private static final Pattern whitespacePattern = Pattern.compile("\\s+");
+    // compiled at construction if the separator is a literal.
+    private final Pattern literalSeparatorPattern;
+    private final Pattern literalTrailingSeparatorPattern;
     private String[] results;
     private Item nextResult;
     private int currentPosition;
@@ -46,6 +52,24 @@ public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
             ExceptionMetadata iteratorMetadata
     ) {
         super(arguments, executionMode, iteratorMetadata);
+        Pattern separatorPattern = null;
+        Pattern trailingSeparatorPattern = null;
+        if (this.children.size() == 2) {
+            separatorPattern = PatternCache.getLiteralPattern(this.children.get(1));
+            try {
+                trailingSeparatorPattern = separatorPattern == null
+                    ? null
+                    : getTrailingSeparatorPattern(separatorPattern.pattern());
+            } catch (PatternSyntaxException e) {
+                separatorPattern = null;
+            }
+        }
+        this.literalSeparatorPattern = separatorPattern;
+        this.literalTrailingSeparatorPattern = trailingSeparatorPattern;
+    }
+
+    private static Pattern getTrailingSeparatorPattern(String separator) {
+        return PatternCache.getPattern(".*" + separator + "$");
     }
 
     @Override
@@ -71,7 +95,8 @@ public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
             // Getting first parameter
             RuntimeIterator stringIterator = this.children.get(0);
             String input = null;
-            String separator = null;
+            Pattern separatorPattern = null;
+            Pattern trailingSeparatorPattern = null;
             Item stringItem = stringIterator.materializeFirstItemOrNull(this.currentDynamicContextForLocalExecution);
             if (stringItem == null) {
                 this.hasNext = false;
@@ -81,7 +106,10 @@ public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
 
             // Getting second parameter
             if (this.children.size() == 1) {
-                separator = "\\s+";
+                separatorPattern = whitespacePattern;
+            } else if (this.literalSeparatorPattern != null) {
+                separatorPattern = this.literalSeparatorPattern;
+                trailingSeparatorPattern = this.literalTrailingSeparatorPattern;
             } else {
                 RuntimeIterator separatorIterator = this.children.get(1);
                 separatorIterator.open(this.currentDynamicContextForLocalExecution);
@@ -96,18 +124,21 @@ public class TokenizeFunctionIterator extends LocalFunctionCallIterator {
                 if (!stringItem.isString()) {
                     throw new UnexpectedTypeException("Second parameter of tokenize must be a string.", getMetadata());
                 }
+                String separator;
                 try {
                     separator = stringItem.getStringValue();
                 } catch (Exception e) {
                     throw new UnexpectedTypeException("Second parameter of tokenize must be a string.", getMetadata());
                 }
+                separatorPattern = PatternCache.getPattern(separator);
+                trailingSeparatorPattern = getTrailingSeparatorPattern(separator);
             }
-            this.results = input.split(separator);
+            this.results = separatorPattern.split(input);
             this.currentPosition = 0;
             if (this.children.size() == 1 && this.results.length != 0 && this.results[0].equals("")) {
                 this.currentPosition++;
             }
-            this.lastEmptyString = this.children.size() == 2 && input.matches(".*" + separator + "$");
+            this.lastEmptyString = this.children.size() == 2 && trailingSeparatorPattern.matcher(input).matches();
         }
         if (this.currentPosition < this.results.length) {
             this.nextResult = ItemFactory.getInstance().createStringItem(this.results[this.currentPosition]);
@@ -22,6 +22,10 @@ package org.rumbledb.runtime.misc;
 
 import java.util.Arrays;
 
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
 import org.rumbledb.api.Item;
 import org.rumbledb.context.DynamicContext;
 import org.rumbledb.exceptions.ExceptionMetadata;
@@ -29,10 +33,14 @@ import org.rumbledb.exceptions.IteratorFlowException;
 import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.ExecutionMode;
 import org.rumbledb.items.ItemFactory;
-import org.rumbledb.runtime.LocalRuntimeIterator;
+import org.rumbledb.items.structured.JSoundDataFrame;
+import org.rumbledb.runtime.HybridRuntimeIterator;
 import org.rumbledb.runtime.RuntimeIterator;
+import org.rumbledb.types.BuiltinTypesCatalogue;
 
-public class RangeOperationIterator extends LocalRuntimeIterator {
+import sparksoniq.spark.SparkSessionManager;
+
+public class RangeOperationIterator extends HybridRuntimeIterator {
 
 
     private static final long serialVersionUID = 1L;
@@ -53,12 +61,13 @@ public class RangeOperationIterator extends LocalRuntimeIterator {
         this.rightIterator = rightiterator;
     }
 
-    public boolean hasNext() {
+    @Override
+    protected boolean hasNextLocal() {
         return this.hasNext;
     }
 
     @Override
-    public Item next() {
+    protected Item nextLocal() {
         if (this.hasNext) {
             if (this.index == this.right) {
                 this.hasNext = false;
@@ -68,12 +77,65 @@ public class RangeOperationIterator extends LocalRuntimeIterator {
         throw new IteratorFlowException("Invalid next call in Range Operation", getMetadata());
     }
 
-    public void open(DynamicContext context) {
-        super.open(context);
-
+    @Override
+    protected void openLocal() {
         this.index = 0;
-        this.leftIterator.open(this.currentDynamicContextForLocalExecution);
-        this.rightIterator.open(this.currentDynamicContextForLocalExecution);
+        if (computeBounds(this.currentDynamicContextForLocalExecution)) {
+            this.index = this.left;
+            this.hasNext = true;
+        } else {
+            this.hasNext = false;
+        }
+    }
+
+    @Override
+    protected void resetLocal() {
+        openLocal();
+    }
+
+    @Override
+    protected void closeLocal() {
+    }
+
+    @Override
+    protected JavaRDD<Item> getRDDAux(DynamicContext context) {
+        return dataFrameToRDDOfItems(getDataFrame(context), getMetadata());
+    }
+
+    /**
+     * Generates the range on the executors with Spark's range, so that it is never materialized on the driver. The
+     * integers are kept in a native long column, which can be used as such in native SQL queries.
+     */
+    @Override
+    public JSoundDataFrame getDataFrame(DynamicContext context) {
+        SparkSession session = SparkSessionManager.getInstance().getOrCreateSession();
+        Dataset<Row> range;
+        if (!computeBounds(context)) {
+            range = session.range(0).toDF();
+        } else if (this.right == Long.MAX_VALUE) {
+            // The end of Spark's range is exclusive and cannot go beyond the largest long.
+            range = session.range(this.left, this.right)
+                .toDF()
+                .union(session.range(this.right - 1, this.right).selectExpr("id + 1 AS id"));
+        } else {
+            range = session.range(this.left, this.right + 1).toDF();
+        }
+        return new JSoundDataFrame(
+                range.toDF(SparkSessionManager.atomicJSONiqItemColumnName),
+                BuiltinTypesCatalogue.integerItem
+        );
+    }
+
+    /**
+     * Evaluates the bounds of the range into left and right.
+     *
+     * @param context the dynamic context in which to evaluate them.
+     * @return false if the range is empty.
+     */
+    private boolean computeBounds(DynamicContext context) {
+        boolean nonEmpty = false;
+        this.leftIterator.open(context);
+        this.rightIterator.open(context);
         if (this.leftIterator.hasNext() && this.rightIterator.hasNext()) {
             Item left = this.leftIterator.next();
             Item right = this.rightIterator.next();
@@ -99,18 +161,11 @@ public class RangeOperationIterator extends LocalRuntimeIterator {
             } catch (IteratorFlowException e) {
                 throw new IteratorFlowException(e.getJSONiqErrorMessage(), getMetadata());
             }
-            if (this.right < this.left) {
-                this.hasNext = false;
-            } else {
-                this.index = this.left;
-                this.hasNext = true;
-            }
-        } else {
-            this.hasNext = false;
+            nonEmpty = this.right >= this.left;
         }
 
         this.leftIterator.close();
         this.rightIterator.close();
-
+        return nonEmpty;
     }
 }
@@ -276,7 +276,8 @@ public class PredicateIterator extends HybridRuntimeIterator {
             } else {
                 JSoundDataFrame zippedChildDataFrame = FlworDataFrameUtils.zipWithIndex(
                     childDataFrame,
-                    1L
+                    1L,
+                    context
                 );
                 String left = FlworDataFrameUtils.createTempView(zippedChildDataFrame.getDataFrame());
                 List<String> UDFcolumns = FlworDataFrameUtils.getColumnNames(
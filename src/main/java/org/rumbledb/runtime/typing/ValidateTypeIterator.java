@@ -119,7 +119,7 @@ public class ValidateTypeIterator extends HybridRuntimeIterator {
         );
     }
 
-    private static StructType convertToDataFrameSchema(ItemType itemType) {
+    public static StructType convertToDataFrameSchema(ItemType itemType) {
         if (itemType.isAtomicItemType()) {
             List<StructField> fields = new ArrayList<>();
             String columnName = SparkSessionManager.atomicJSONiqItemColumnName;
@@ -163,7 +163,7 @@ public class ValidateTypeIterator extends HybridRuntimeIterator {
         return DataTypes.createStructField(columnName, type, nullable);
     }
 
-    private static DataType convertToDataType(ItemType itemType) {
+    public static DataType convertToDataType(ItemType itemType) {
         if (itemType.isArrayItemType()) {
             ItemType arrayContentsTypeItemType = itemType.getArrayContentFacet();
             DataType arrayContentsType = convertToDataType(arrayContentsTypeItemType);
@@ -226,7 +226,7 @@ public class ValidateTypeIterator extends HybridRuntimeIterator {
         );
     }
 
-    private static Object getRowColumnFromItemUsingDataType(Item item, DataType dataType) {
+    public static Object getRowColumnFromItemUsingDataType(Item item, DataType dataType) {
         if (item == null) {
             return null;
         }
@@ -0,0 +1,81 @@
+package org.rumbledb.serialization;
+
+import org.rumbledb.api.Item;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes serialized items one after the other, separated by the item separator of the serializer, directly into a
+ * writer. Each item is serialized into a buffer that is reused for the next items, so that no string is built for the
+ * items nor for the whole output.
+ */
+public class ItemWriter implements Closeable, Flushable {
+
+    // buffers grown beyond this size by a large item are released rather than kept for the next items.
+    private static final int maximumRetainedBufferSize = 1 << 20;
+
+    private final Serializer serializer;
+    private final Writer writer;
+    private final StringBuilder buffer;
+    private final char[] chunk;
+    private long numberOfItems;
+
+    public ItemWriter(Serializer serializer, Writer writer) {
+        this.serializer = serializer;
+        this.writer = writer;
+        this.buffer = new StringBuilder();
+        this.chunk = new char[8192];
+        this.numberOfItems = 0;
+    }
+
+    /**
+     * Serializes an item into the writer, after the item separator if it is not the first one.
+     *
+     * @param item the item.
+     * @throws IOException if the writer fails.
+     */
+    public void write(Item item) throws IOException {
+        this.buffer.setLength(0);
+        if (this.numberOfItems > 0) {
+            this.buffer.append(this.serializer.getItemSeparator());
+        }
+        this.serializer.serialize(item, this.buffer);
+        for (int start = 0; start < this.buffer.length(); start += this.chunk.length) {
+            int end = Math.min(start + this.chunk.length, this.buffer.length());
+            this.buffer.getChars(start, end, this.chunk, 0);
+            this.writer.write(this.chunk, 0, end - start);
+        }
+        if (this.buffer.capacity() > maximumRetainedBufferSize) {
+            this.buffer.setLength(0);
+            this.buffer.trimToSize();
+        }
+        this.numberOfItems++;
+    }
+
+    /**
+     * Writes a string as is into the writer, e.g., to terminate the output.
+     *
+     * @param string the string.
+     * @throws IOException if the writer fails.
+     */
+    public void writeRaw(String string) throws IOException {
+        this.writer.write(string);
+    }
+
+    public long getNumberOfItems() {
+        return this.numberOfItems;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
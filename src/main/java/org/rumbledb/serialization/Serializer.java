@@ -4,6 +4,10 @@ import org.apache.commons.text.StringEscapeUtils;
 import org.rumbledb.api.Item;
 import org.rumbledb.exceptions.FunctionsNonSerializableException;
 
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
 public class Serializer {
     public enum Method {
         JSON,
@@ -40,12 +44,48 @@ public class Serializer {
     }
 
     public String serialize(Item i) {
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
         serialize(i, sb, "", true);
         return sb.toString();
     }
 
+    /**
+     * Serializes an item at the end of a buffer, without clearing it first. This allows reusing the same buffer for
+     * many items.
+     *
+     * @param item the item to serialize.
+     * @param sb the buffer.
+     */
+    public void serialize(Item item, StringBuilder sb) {
+        serialize(item, sb, "", true);
+    }
+
+    /**
+     * Creates a writer that serializes items one after the other into an output stream, in the encoding of this
+     * serializer.
+     *
+     * @param outputStream the output stream.
+     * @return the item writer.
+     */
+    public ItemWriter createItemWriter(OutputStream outputStream) {
+        return new ItemWriter(this, new OutputStreamWriter(outputStream, Charset.forName(this.encoding)));
+    }
+
+    /**
+     * Kept for callers that still serialize into a StringBuffer.
+     *
+     * @param item the item to serialize.
+     * @param sb the buffer.
+     * @param indent the current indentation.
+     * @param isTopLevel whether the item is a top-level item of the output.
+     */
     public void serialize(Item item, StringBuffer sb, String indent, boolean isTopLevel) {
+        StringBuilder builder = new StringBuilder();
+        serialize(item, builder, indent, isTopLevel);
+        sb.append(builder);
+    }
+
+    public void serialize(Item item, StringBuilder sb, String indent, boolean isTopLevel) {
         if (item.isFunction()) {
             throw new FunctionsNonSerializableException();
         }
@@ -140,7 +180,7 @@ public class Serializer {
         }
     }
 
-    private void appendJSONAtomicItem(Item item, StringBuffer sb) {
+    private void appendJSONAtomicItem(Item item, StringBuilder sb) {
         boolean isStringValue = item.isAtomic() && !item.isNumeric() && !item.isBoolean() && !item.isNull();
         if (item.isDouble()) {
             if (Double.isNaN(item.getDoubleValue()) || Double.isInfinite(item.getDoubleValue())) {
@@ -10,10 +10,10 @@ import java.net.URI;
 import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javassist.CannotCompileException;
+import org.apache.commons.text.StringEscapeUtils;
 import org.apache.spark.SparkException;
 import org.rumbledb.api.Item;
 import org.rumbledb.cli.JsoniqQueryExecutor;
@@ -22,6 +22,8 @@ import org.rumbledb.errorcodes.ErrorCode;
 import org.rumbledb.exceptions.OurBadException;
 import org.rumbledb.exceptions.RumbleException;
 import org.rumbledb.items.ItemFactory;
+import org.rumbledb.serialization.ItemWriter;
+import org.rumbledb.serialization.Serializer;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -32,6 +34,20 @@ import sparksoniq.spark.SparkSessionManager;
 public class RumbleHttpHandler implements HttpHandler {
 
     private RumbleRuntimeConfiguration rumbleRuntimeConfiguration;
+    // same serialization as Item.serialize().
+    private static final Serializer responseSerializer = new Serializer(
+            "UTF-8",
+            Serializer.Method.XML_JSON_HYBRID,
+            false,
+            "\n"
+    );
+    // same serialization as responseSerializer within the values array of the response.
+    private static final Serializer valuesSerializer = new Serializer(
+            "UTF-8",
+            Serializer.Method.JSON,
+            false,
+            ", "
+    );
 
     private enum StatusCode {
         SUCCESS(200),
@@ -60,6 +76,56 @@ public class RumbleHttpHandler implements HttpHandler {
         stream.close();
     }
 
+    private void sendResponse(HttpExchange exchange, StatusCode code, Item response) throws IOException {
+        // The length is not known in advance, so the response is sent in chunks while it is serialized.
+        exchange.sendResponseHeaders(code.getCode(), 0);
+        ItemWriter writer = responseSerializer.createItemWriter(exchange.getResponseBody());
+        writer.write(response);
+        writer.close();
+    }
+
+    /**
+     * Sends the values of the query in the response, serialized directly into it. The fields that depend on the
+     * outcome of the query follow the values. The headers are only sent once the query is compiled and its first items
+     * computed, so that most errors are reported as usual. An error raised after that is reported in the fields
+     * following the values.
+     */
+    private void sendValues(
+            HttpExchange exchange,
+            RumbleRuntimeConfiguration configuration,
+            JsoniqQueryExecutor translator,
+            String query
+    )
+            throws IOException {
+        ItemWriter[] writer = new ItemWriter[1];
+        Item fields;
+        try {
+            long count = translator.runStreaming(query, () -> {
+                exchange.sendResponseHeaders(StatusCode.SUCCESS.getCode(), 0);
+                writer[0] = valuesSerializer.createItemWriter(exchange.getResponseBody());
+                writer[0].writeRaw("{ \"values\" : [ ");
+                return writer[0];
+            });
+            fields = assembleResponse(configuration, count);
+        } catch (Exception e) {
+            if (writer[0] == null) {
+                throw e;
+            }
+            fields = handleException(e);
+        }
+        if (writer[0].getNumberOfItems() > 0) {
+            writer[0].writeRaw(" ]");
+        } else {
+            writer[0].writeRaw("]");
+        }
+        for (String key : fields.getKeys()) {
+            writer[0].writeRaw(", \"" + StringEscapeUtils.escapeJson(key) + "\" : ");
+            writer[0].writeRaw(valuesSerializer.serialize(fields.getItemByKey(key)));
+        }
+        writer[0].writeRaw(" }");
+        writer[0].close();
+    }
+
     private String[] getCLIArguments(String query) throws UnsupportedEncodingException {
         Map<String, String> queryParameters = new HashMap<String, String>();
         if (query == null) {
@@ -97,11 +163,8 @@ public class RumbleHttpHandler implements HttpHandler {
             SparkSessionManager.COLLECT_ITEM_LIMIT = configuration.getResultSizeCap();
 
             JsoniqQueryExecutor translator = new JsoniqQueryExecutor(configuration);
-            List<Item> items = null;
-            long count = -1;
-            if (configuration.getQueryPath() != null) {
-                items = translator.runQuery();
-            } else {
+            String JSONiqQuery = null;
+            if (configuration.getQueryPath() == null) {
                 InputStreamReader r = new InputStreamReader(exchange.getRequestBody());
                 BufferedReader r2 = new BufferedReader(r);
                 StringBuilder sb = new StringBuilder();
@@ -110,17 +173,30 @@ public class RumbleHttpHandler implements HttpHandler {
                     sb.append(s);
                     sb.append("\n");
                 }
-                String JSONiqQuery = sb.toString();
-                items = new ArrayList<Item>();
-                count = translator.runInteractive(JSONiqQuery, items);
+                JSONiqQuery = sb.toString();
             }
 
-            Item output = assembleResponse(configuration, items, count);
+            if (configuration.getOutputPath() == null) {
+                this.sendValues(exchange, configuration, translator, JSONiqQuery);
+                return;
+            }
+            long count = -1;
+            if (JSONiqQuery == null) {
+                translator.runQuery();
+            } else {
+                count = translator.runInteractive(JSONiqQuery, new ArrayList<Item>());
+            }
+            Item output = assembleResponse(configuration, count);
 
-            this.sendResponse(exchange, StatusCode.SUCCESS, output.serialize());
+            this.sendResponse(exchange, StatusCode.SUCCESS, output);
         } catch (Exception e) {
+            if (exchange.getResponseCode() != -1) {
+                // The response could not be completed (e.g., the client went away), so the error cannot be reported.
+                exchange.close();
+                return;
+            }
             Item output = handleException(e);
-            this.sendResponse(exchange, StatusCode.SUCCESS, output.serialize());
+            this.sendResponse(exchange, StatusCode.SUCCESS, output);
         }
     }
 
@@ -146,18 +222,13 @@ public class RumbleHttpHandler implements HttpHandler {
         }
     }
 
-    private static Item assembleResponse(RumbleRuntimeConfiguration configuration, List<Item> results, long count) {
+    private static Item assembleResponse(RumbleRuntimeConfiguration configuration, long count) {
         Item output = ItemFactory.getInstance().createObjectItem();
         if (configuration.getOutputPath() != null) {
             output.putItemByKey(
                 "output-path",
                 ItemFactory.getInstance().createStringItem(configuration.getOutputPath())
             );
-        } else {
-            if (results != null) {
-                Item values = ItemFactory.getInstance().createArrayItem(results);
-                output.putItemByKey("values", values);
-            }
         }
         if (configuration.getLogPath() != null) {
             output.putItemByKey("log-path", ItemFactory.getInstance().createStringItem(configuration.getLogPath()));
@@ -168,8 +239,8 @@ public class RumbleHttpHandler implements HttpHandler {
                 ItemFactory.getInstance()
                     .createStringItem(
                         "Warning! The output sequence contains "
-                            + count
-                            + " items but its materialization was capped at "
+                            + (count == Long.MAX_VALUE ? "too many items and" : count + " items but")
+                            + " its materialization was capped at "
                             + SparkSessionManager.COLLECT_ITEM_LIMIT
                             + " items. This value can be configured with the result-size parameter in the query string of the HTTP request."
                     )
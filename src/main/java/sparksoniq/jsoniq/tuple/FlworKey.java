@@ -30,6 +30,7 @@ import org.rumbledb.exceptions.OurBadException;
 import org.rumbledb.exceptions.UnexpectedTypeException;
 import org.rumbledb.expressions.comparison.ComparisonExpression.ComparisonOperator;
 import org.rumbledb.expressions.flowr.OrderByClauseSortingKey.EMPTY_ORDER;
+import org.rumbledb.items.ItemHashing;
 import org.rumbledb.runtime.flwor.expression.OrderByClauseAnnotatedChildIterator;
 import org.rumbledb.runtime.misc.ComparisonIterator;
 
@@ -52,11 +53,13 @@ public class FlworKey implements KryoSerializable {
 
     @Override
     public int hashCode() {
-        StringBuilder result = new StringBuilder();
-        for (Item key : this.keyItems) {
-            result.append(key.hashCode());
+        // consistent with equalFlworKey, as item hash codes are consistent with eq across numeric types
+        int result = 1;
+        for (int i = 0; i < this.keyItems.size(); ++i) {
+            Item key = this.keyItems.get(i);
+            result = ItemHashing.combine(result, key == null ? 0 : ItemHashing.mix(key.hashCode()));
         }
-        return result.toString().hashCode();
+        return result;
     }
 
     @Override
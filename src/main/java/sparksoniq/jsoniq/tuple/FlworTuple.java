@@ -47,17 +47,21 @@ public class FlworTuple implements Serializable, KryoSerializable {
     private LinkedHashMap<Name, List<Item>> localVariables;
     private LinkedHashMap<Name, JavaRDD<Item>> rddVariables;
     private LinkedHashMap<Name, JSoundDataFrame> dataFrameVariables;
+    // variables for which only the count is available, e.g., after a group by clause.
+    private LinkedHashMap<Name, Item> countVariables;
 
     public FlworTuple() {
         this.localVariables = new LinkedHashMap<>(1, 1);
         this.rddVariables = new LinkedHashMap<>(1, 1);
         this.dataFrameVariables = new LinkedHashMap<>(1, 1);
+        this.countVariables = new LinkedHashMap<>(1, 1);
     }
 
     public FlworTuple(int nb) {
         this.localVariables = new LinkedHashMap<>(nb, 1);
         this.rddVariables = new LinkedHashMap<>(nb, 1);
         this.dataFrameVariables = new LinkedHashMap<>(nb, 1);
+        this.countVariables = new LinkedHashMap<>(1, 1);
     }
 
     /**
@@ -67,6 +71,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
         this.localVariables = new LinkedHashMap<>(toCopy.localVariables.size(), 1);
         this.rddVariables = new LinkedHashMap<>(toCopy.rddVariables.size(), 1);
         this.dataFrameVariables = new LinkedHashMap<>(toCopy.dataFrameVariables.size(), 1);
+        this.countVariables = new LinkedHashMap<>(toCopy.countVariables);
         for (Name key : toCopy.localVariables.keySet()) {
             this.putValue(key, toCopy.localVariables.get(key));
         }
@@ -90,10 +95,15 @@ public class FlworTuple implements Serializable, KryoSerializable {
         return this.dataFrameVariables.keySet();
     }
 
+    public Set<Name> getCountKeys() {
+        return this.countVariables.keySet();
+    }
+
     public boolean contains(Name key) {
         return this.localVariables.containsKey(key)
             || this.rddVariables.containsKey(key)
-            || this.dataFrameVariables.containsKey(key);
+            || this.dataFrameVariables.containsKey(key)
+            || this.countVariables.containsKey(key);
     }
 
     public boolean isRDD(Name key, ExceptionMetadata metadata) {
@@ -142,6 +152,21 @@ public class FlworTuple implements Serializable, KryoSerializable {
         throw new OurBadException("Undeclared FLOWR variable", metadata);
     }
 
+    public Item getCount(Name key, ExceptionMetadata metadata) {
+        if (this.countVariables.containsKey(key)) {
+            return this.countVariables.get(key);
+        }
+        throw new OurBadException("Undeclared FLOWR variable", metadata);
+    }
+
+    public FlworTuple putCount(Name key, Item count) {
+        this.localVariables.remove(key);
+        this.rddVariables.remove(key);
+        this.dataFrameVariables.remove(key);
+        this.countVariables.put(key, count);
+        return this;
+    }
+
     public void putValue(Name key, Item value) {
         List<Item> itemList = new ArrayList<>(1);
         itemList.add(value);
@@ -149,6 +174,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
     }
 
     public FlworTuple putValue(Name key, List<Item> value) {
+        this.countVariables.remove(key);
         this.rddVariables.remove(key);
         this.dataFrameVariables.remove(key);
         this.localVariables.put(key, value);
@@ -156,6 +182,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
     }
 
     public FlworTuple putValue(Name key, JavaRDD<Item> value) {
+        this.countVariables.remove(key);
         this.localVariables.remove(key);
         this.dataFrameVariables.remove(key);
         this.rddVariables.put(key, value);
@@ -163,6 +190,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
     }
 
     public FlworTuple putValue(Name key, JSoundDataFrame value) {
+        this.countVariables.remove(key);
         this.localVariables.remove(key);
         this.rddVariables.remove(key);
         this.dataFrameVariables.put(key, value);
@@ -174,6 +202,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
         kryo.writeObject(output, this.localVariables);
         kryo.writeObject(output, this.rddVariables);
         kryo.writeObject(output, this.dataFrameVariables);
+        kryo.writeObject(output, this.countVariables);
     }
 
     @SuppressWarnings("unchecked")
@@ -182,6 +211,7 @@ public class FlworTuple implements Serializable, KryoSerializable {
         this.localVariables = kryo.readObject(input, LinkedHashMap.class);
         this.rddVariables = kryo.readObject(input, LinkedHashMap.class);
         this.dataFrameVariables = kryo.readObject(input, LinkedHashMap.class);
+        this.countVariables = kryo.readObject(input, LinkedHashMap.class);
     }
 
     @Override
@@ -202,6 +232,11 @@ public class FlworTuple implements Serializable, KryoSerializable {
             sb.append("    ");
             sb.append(s);
         }
+        sb.append("\n  Count:\n");
+        for (Name s : this.countVariables.keySet()) {
+            sb.append("    ");
+            sb.append(s);
+        }
         return sb.toString();
     }
 }
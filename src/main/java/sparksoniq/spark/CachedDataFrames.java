@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.execution.CachedData;
+import scala.Option;
+
+/**
+ * Finds the RDD in which Spark SQL caches the rows of a persisted data frame. This is the only place where Rumble
+ * relies on internal APIs of Spark SQL (its cache manager and in-memory relation), which may change between Spark
+ * versions.
+ *
+ * They are needed because the public API exposes the storage taken on the executors per RDD only, and the RDD that
+ * holds a persisted data frame is internal to Spark SQL. Persisting the data frame through its public RDD of rows
+ * instead would avoid them, but the rows would then be converted from and back to the internal format of Spark SQL
+ * on each use, and the columnar cache with its compression and statistics would be lost, only to measure them.
+ *
+ * As the storage size is only reported, it is considered unknown if these APIs are not available.
+ */
+final class CachedDataFrames {
+
+    private CachedDataFrames() {
+    }
+
+    /**
+     * Returns the id of the RDD in which the rows of a persisted data frame are cached.
+     *
+     * @param dataset the data frame.
+     * @return the id, or -1 if it is not persisted or the cache of Spark SQL cannot be inspected.
+     */
+    static int getCachedRDDId(Dataset<Row> dataset) {
+        try {
+            Option<CachedData> cachedData = dataset.sparkSession()
+                .sharedState()
+                .cacheManager()
+                .lookupCachedData(dataset);
+            if (cachedData.isEmpty()) {
+                return -1;
+            }
+            return cachedData.get().cachedRepresentation().cacheBuilder().cachedColumnBuffers().id();
+        } catch (LinkageError e) {
+            return -1;
+        }
+    }
+}
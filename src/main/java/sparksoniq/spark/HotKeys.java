@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The hot keys detected in a join or group by clause, i.e., the keys shared by at least the configured fraction of a
+ * sample of its tuples (see --skew-salt-buckets and --skew-hot-key-fraction), with the fraction of the sample they
+ * make up.
+ *
+ * The keys of a group by clause are the values of its grouping variables, and those of a join are the hash codes of
+ * the values of the left-hand side of its equality criteria, on which the tuples are shuffled.
+ */
+public class HotKeys {
+
+    private final String clause;
+    private final Map<String, Double> fractions;
+
+    /**
+     * Builds the hot keys of a clause.
+     *
+     * @param clause the kind of clause, "join" or "group by".
+     * @param fractions the hot keys, with the fraction of the sampled tuples that have them, in decreasing order.
+     */
+    public HotKeys(String clause, Map<String, Double> fractions) {
+        this.clause = clause;
+        this.fractions = Collections.unmodifiableMap(new LinkedHashMap<>(fractions));
+    }
+
+    public String getClause() {
+        return this.clause;
+    }
+
+    public Map<String, Double> getFractions() {
+        return this.fractions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(this.fractions.size()).append(" hot key(s) in a ").append(this.clause).append(":");
+        for (Map.Entry<String, Double> entry : this.fractions.entrySet()) {
+            result.append(" ")
+                .append(entry.getKey())
+                .append(" (")
+                .append(String.format(Locale.ROOT, "%.1f", 100 * entry.getValue()))
+                .append("%)");
+        }
+        return result.toString();
+    }
+}
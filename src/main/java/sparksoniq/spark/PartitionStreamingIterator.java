@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.rumbledb.exceptions.OurBadException;
+import org.rumbledb.exceptions.RumbleException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over the elements of an RDD on the driver, one partition at a time, so that only a few partitions are
+ * held in memory at any time rather than the whole collected RDD.
+ *
+ * Each partition is computed by its own Spark job. While the elements of a partition are consumed, the jobs for the
+ * next few partitions already run in the background, so that the next elements are ready when needed. If the RDD is
+ * the result of a shuffle, the shuffle itself is only computed once.
+ *
+ * @param <T> the type of the elements.
+ */
+public class PartitionStreamingIterator<T> implements Iterator<T> {
+
+    private final JavaRDD<T> rdd;
+    private final int numberOfPartitions;
+    private final int numberOfPrefetchedPartitions;
+    private final ExecutorService executor;
+    // the Spark job group of the jobs fetching the partitions, so that they can be cancelled on the cluster.
+    private final String jobGroup;
+    private final Deque<Future<List<T>>> prefetchedPartitions;
+    private int nextPartitionToFetch;
+    private Iterator<T> currentPartition;
+
+    /**
+     * Starts fetching the first partitions of an RDD.
+     *
+     * @param rdd the RDD.
+     * @param numberOfPrefetchedPartitions how many partitions are fetched in advance, at least 1.
+     */
+    public PartitionStreamingIterator(JavaRDD<T> rdd, int numberOfPrefetchedPartitions) {
+        if (numberOfPrefetchedPartitions < 1) {
+            throw new OurBadException("At least one partition must be prefetched.");
+        }
+        this.rdd = rdd;
+        this.numberOfPartitions = rdd.getNumPartitions();
+        this.numberOfPrefetchedPartitions = numberOfPrefetchedPartitions;
+        this.executor = Executors.newFixedThreadPool(numberOfPrefetchedPartitions, runnable -> {
+            Thread thread = new Thread(runnable, "rumble-partition-streaming");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.jobGroup = "rumble-partition-streaming-" + UUID.randomUUID();
+        this.prefetchedPartitions = new ArrayDeque<>();
+        this.nextPartitionToFetch = 0;
+        this.currentPartition = Collections.emptyIterator();
+        prefetch();
+    }
+
+    private void prefetch() {
+        while (
+            this.prefetchedPartitions.size() < this.numberOfPrefetchedPartitions
+                && this.nextPartitionToFetch < this.numberOfPartitions
+        ) {
+            int[] partition = new int[] { this.nextPartitionToFetch++ };
+            this.prefetchedPartitions.add(this.executor.submit(() -> {
+                // the job group is a property of the thread submitting the jobs.
+                this.rdd.context().setJobGroup(this.jobGroup, "Fetching a partition of the results", true);
+                return this.rdd.collectPartitions(partition)[0];
+            }));
+        }
+        if (this.prefetchedPartitions.isEmpty()) {
+            this.executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.currentPartition.hasNext()) {
+            if (this.prefetchedPartitions.isEmpty()) {
+                return false;
+            }
+            Future<List<T>> partition = this.prefetchedPartitions.poll();
+            try {
+                this.currentPartition = partition.get().iterator();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new OurBadException("Interrupted while waiting for a partition of the results.");
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw RumbleException.unnestException(e.getCause());
+            }
+            prefetch();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.currentPartition.next();
+    }
+
+    /**
+     * Cancels the jobs of the partitions fetched in advance, if the remaining elements are not needed, including the
+     * tasks already running on the executors.
+     */
+    public void close() {
+        for (Future<List<T>> partition : this.prefetchedPartitions) {
+            partition.cancel(true);
+        }
+        this.rdd.context().cancelJobGroup(this.jobGroup);
+        this.prefetchedPartitions.clear();
+        this.nextPartitionToFetch = this.numberOfPartitions;
+        this.currentPartition = Collections.emptyIterator();
+        this.executor.shutdownNow();
+    }
+}
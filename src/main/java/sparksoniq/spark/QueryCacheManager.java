@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Authors: Stefan Irimescu, Can Berker Cikis
+ *
+ */
+
+package sparksoniq.spark;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.storage.RDDInfo;
+import org.apache.spark.storage.StorageLevel;
+import org.rumbledb.api.Item;
+import org.rumbledb.runtime.functions.sequences.aggregate.SequenceStatistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the RDDs persisted while executing a query, so that they are unpersisted once they are consumed, or
+ * at the latest once the query is over, rather than staying in the storage memory of the executors for the lifetime
+ * of the session, as well as of the statistics computed on RDDs by the query and of the hot keys it detected.
+ *
+ * Data frames are persisted as such, in the columnar cache of Spark SQL. The storage they take is looked up with the
+ * storage information of the Spark context, for the RDD in which Spark SQL caches their rows, which is only found with
+ * internal APIs of Spark SQL (see CachedDataFrames).
+ *
+ * There is one manager per query, found in the module dynamic context.
+ */
+public class QueryCacheManager {
+
+    private final List<JavaRDD<?>> rdds;
+    private final List<Dataset<Row>> datasets;
+    // the number of RDDs and data frames persisted so far when each one still persisted was persisted, see mark().
+    private final Map<Object, Long> persistMarks;
+    private long numberOfPersistedDatasets;
+    // statistics of the RDDs aggregated by the query, so that several aggregates on the same RDD share a single job.
+    private final Map<RDD<Item>, SequenceStatistics> statistics;
+    // storage size of the RDDs already unpersisted, measured just before.
+    private long releasedStorageSize;
+    private final List<HotKeys> hotKeys;
+
+    public QueryCacheManager() {
+        this.rdds = new ArrayList<>();
+        this.persistMarks = new HashMap<>();
+        this.datasets = new ArrayList<>();
+        this.numberOfPersistedDatasets = 0;
+        this.statistics = new HashMap<>();
+        this.releasedStorageSize = 0;
+        this.hotKeys = new ArrayList<>();
+    }
+
+    /**
+     * Persists a data frame in memory and on disk, until it is unpersisted or the query is over.
+     *
+     * @param dataset the data frame.
+     * @return the same data frame.
+     */
+    public synchronized Dataset<Row> persist(Dataset<Row> dataset) {
+        dataset.persist(StorageLevel.MEMORY_AND_DISK());
+        this.datasets.add(dataset);
+        this.persistMarks.put(dataset, this.numberOfPersistedDatasets++);
+        return dataset;
+    }
+
+    /**
+     * Persists an RDD in memory, until it is unpersisted or the query is over.
+     *
+     * @param rdd the RDD.
+     * @param <T> the type of the elements.
+     * @return the same RDD.
+     */
+    public synchronized <T> JavaRDD<T> persist(JavaRDD<T> rdd) {
+        rdd.persist(StorageLevel.MEMORY_ONLY());
+        this.rdds.add(rdd);
+        this.persistMarks.put(rdd, this.numberOfPersistedDatasets++);
+        return rdd;
+    }
+
+    /**
+     * Unpersists a data frame persisted with this manager as soon as it is not needed anymore, before the end of the
+     * query.
+     *
+     * @param dataset a data frame returned by persist().
+     */
+    public synchronized void unpersist(Dataset<Row> dataset) {
+        if (this.datasets.remove(dataset)) {
+            this.persistMarks.remove(dataset);
+            this.releasedStorageSize += getStorageSize(dataset);
+            dataset.unpersist(false);
+        }
+    }
+
+    /**
+     * Unpersists an RDD as soon as it is not needed anymore, before the end of the query.
+     *
+     * @param rdd an RDD persisted with this manager.
+     */
+    public synchronized void unpersist(JavaRDD<?> rdd) {
+        for (JavaRDD<?> persistedRDD : this.rdds) {
+            if (persistedRDD.id() == rdd.id()) {
+                this.rdds.remove(persistedRDD);
+                this.persistMarks.remove(persistedRDD);
+                this.releasedStorageSize += getStorageSize(persistedRDD.id());
+                persistedRDD.unpersist(false);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a mark of what is persisted so far, so that what gets persisted afterwards can be unpersisted with
+     * unpersistSince(). This is used around the evaluation of a sequence that is then consumed by a single action:
+     * what is persisted to evaluate it is only used by this action.
+     *
+     * @return the mark.
+     */
+    public synchronized long mark() {
+        return this.numberOfPersistedDatasets;
+    }
+
+    /**
+     * Unpersists everything persisted since a mark.
+     *
+     * @param mark a mark returned by mark().
+     */
+    public synchronized void unpersistSince(long mark) {
+        for (JavaRDD<?> rdd : new ArrayList<>(this.rdds)) {
+            if (this.persistMarks.get(rdd) >= mark) {
+                unpersist(rdd);
+            }
+        }
+        for (Dataset<Row> dataset : new ArrayList<>(this.datasets)) {
+            if (this.persistMarks.get(dataset) >= mark) {
+                unpersist(dataset);
+            }
+        }
+    }
+
+    /**
+     * Unpersists everything still persisted, once the query is over.
+     */
+    public synchronized void unpersistAll() {
+        unpersistSince(0);
+        this.statistics.clear();
+    }
+
+    /**
+     * Returns the statistics of an RDD computed earlier in the query.
+     *
+     * @param rdd the RDD.
+     * @return the statistics, or null if they were not computed.
+     */
+    public synchronized SequenceStatistics getStatistics(JavaRDD<Item> rdd) {
+        return this.statistics.get(rdd.rdd());
+    }
+
+    /**
+     * Keeps the statistics of an RDD until the query is over.
+     *
+     * @param rdd the RDD.
+     * @param statistics its statistics.
+     */
+    public synchronized void putStatistics(JavaRDD<Item> rdd, SequenceStatistics statistics) {
+        this.statistics.put(rdd.rdd(), statistics);
+    }
+
+    /**
+     * Records the hot keys detected in a clause, and reports them on the standard error.
+     *
+     * @param keys the hot keys.
+     */
+    public synchronized void reportHotKeys(HotKeys keys) {
+        this.hotKeys.add(keys);
+        System.err.println("[INFO] Rumble detected " + keys + ".");
+    }
+
+    /**
+     * Returns the hot keys detected so far by the query, clause by clause.
+     *
+     * @return the hot keys.
+     */
+    public synchronized List<HotKeys> getHotKeys() {
+        return new ArrayList<>(this.hotKeys);
+    }
+
+    /**
+     * Returns the storage (memory and disk) taken on the executors by what this query currently has persisted.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getPersistedStorageSize() {
+        long result = 0;
+        for (JavaRDD<?> rdd : this.rdds) {
+            result += getStorageSize(rdd.id());
+        }
+        for (Dataset<Row> dataset : this.datasets) {
+            result += getStorageSize(dataset);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the storage (memory and disk) taken on the executors by everything this query persisted, including
+     * what was unpersisted since.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getPinnedStorageSize() {
+        return this.releasedStorageSize + getPersistedStorageSize();
+    }
+
+    public synchronized int getNumberOfPersistedDatasets() {
+        return this.rdds.size() + this.datasets.size();
+    }
+
+    /**
+     * Returns the storage (memory and disk) taken on the executors by a persisted data frame, which is only known
+     * once it was computed.
+     *
+     * @param dataset a data frame returned by persist().
+     * @return the size in bytes, or 0 if it is not persisted, was not computed yet or cannot be looked up.
+     */
+    private static long getStorageSize(Dataset<Row> dataset) {
+        int rddId = CachedDataFrames.getCachedRDDId(dataset);
+        if (rddId == -1) {
+            return 0;
+        }
+        return getStorageSize(rddId);
+    }
+
+    private static long getStorageSize(int rddId) {
+        for (RDDInfo info : SparkSessionManager.getInstance().getJavaSparkContext().sc().getRDDStorageInfo()) {
+            if (info.id() == rddId) {
+                return info.memSize() + info.diskSize();
+            }
+        }
+        return 0;
+    }
+}
@@ -88,6 +88,8 @@ public class SparkSessionManager {
     public static String countColumnName = "5af0c0c8-e84c-482a-82ce-1887565cf448";
     public static String rightHandSideHashColumnName = "db273b7d-d927-4c0d-b9c1-665af71faa2b ";
     public static String leftHandSideHashColumnName = "171bdb70-7400-48ed-a105-d132f4e38a2d";
+    public static String rightHandSideSaltColumnName = "9b7e2c41-d3a8-4f6e-a152-6c0e8f4b9d17";
+    public static String leftHandSideSaltColumnName = "e1f05a3c-7b24-49d8-8c6f-2a9d4e7b13f0";
 
     private SparkSessionManager() {
     }
@@ -20,19 +20,46 @@
 
 package iq;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerJobStart;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.rumbledb.api.Item;
 import org.rumbledb.api.Rumble;
 import org.rumbledb.api.SequenceOfItems;
+import org.rumbledb.cli.JsoniqQueryExecutor;
 import org.rumbledb.config.RumbleRuntimeConfiguration;
+import org.rumbledb.exceptions.ExceptionMetadata;
+import org.rumbledb.items.parsing.ItemParser;
+import org.rumbledb.runtime.functions.input.SchemaCache;
+import org.rumbledb.server.RumbleHttpHandler;
 
+import sparksoniq.spark.HotKeys;
 import sparksoniq.spark.SparkSessionManager;
 
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class JavaAPITest {
 
@@ -122,4 +149,363 @@ public class JavaAPITest {
             Assert.assertTrue(value.getIntValue() == i);
         }
     }
+
+    @Test(timeout = 1000000)
+    public void testStreaming() throws Throwable {
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        SequenceOfItems iterator = rumble.runQuery("for $i in parallelize(1 to 1000, 10) return $i");
+        Assert.assertTrue(iterator.availableAsRDD());
+        iterator.openStreaming(2);
+        Assert.assertTrue(iterator.isOpen());
+        for (int i = 1; i <= 1000; ++i) {
+            Assert.assertTrue(iterator.hasNext());
+            Item item = iterator.next();
+            Assert.assertTrue(item.isInteger());
+            Assert.assertTrue(item.getIntValue() == i);
+        }
+        Assert.assertTrue(!iterator.hasNext());
+        iterator.close();
+        Assert.assertTrue(!iterator.isOpen());
+    }
+
+    @Test(timeout = 1000000)
+    public void testRelease() throws Throwable {
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        SequenceOfItems iterator = rumble.runQuery("for $i in parallelize(1 to 5) count $c return $c");
+        int persistedBefore = SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size();
+        List<Item> list = iterator.getAsRDD().collect();
+        Assert.assertTrue(list.size() == 5);
+        Assert.assertTrue(
+            SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size() > persistedBefore
+        );
+        iterator.release();
+        Assert.assertTrue(
+            SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size() == persistedBefore
+        );
+    }
+
+    @Test(timeout = 1000000)
+    public void testReleaseOnceConsumed() throws Throwable {
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        SequenceOfItems iterator = rumble.runQuery("for $i in parallelize(1 to 5) count $c return $c");
+        int persistedBefore = SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size();
+        iterator.open();
+        for (int i = 1; i <= 5; ++i) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertTrue(iterator.next().getIntValue() == i);
+        }
+        Assert.assertTrue(!iterator.hasNext());
+        iterator.close();
+        Assert.assertTrue(
+            SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size() == persistedBefore
+        );
+        Assert.assertTrue(iterator.getPinnedStorageSize() > 0);
+    }
+
+    @Test(timeout = 1000000)
+    public void testOrderByReleasesKeys() throws Throwable {
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        SequenceOfItems iterator = rumble.runQuery("for $i in parallelize((3, 1, 2)) order by $i return $i");
+        int persistedBefore = SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size();
+        iterator.open();
+        for (int i = 1; i <= 3; ++i) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertTrue(iterator.next().getIntValue() == i);
+        }
+        Assert.assertTrue(!iterator.hasNext());
+        Assert.assertTrue(
+            SparkSessionManager.getInstance().getJavaSparkContext().getPersistentRDDs().size() == persistedBefore
+        );
+        iterator.close();
+    }
+
+    @Test(timeout = 1000000)
+    public void testBroadcastJoin() throws Throwable {
+        String query = "for $event in parallelize(({ \"k\" : 1, \"v\" : \"a\" }, { \"k\" : 2, \"v\" : \"b\" })) "
+            + "for $meta in parallelize(({ \"k\" : 1, \"n\" : \"one\" }, { \"k\" : 3, \"n\" : \"three\" }))"
+            + "[$$.k eq $event.k] "
+            + "return $event.v || \"-\" || $meta.n";
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        SequenceOfItems iterator = rumble.runQuery(query);
+        Assert.assertTrue(iterator.availableAsDataFrame());
+        Dataset<Row> joined = iterator.getAsDataFrame();
+        Assert.assertTrue(joined.queryExecution().executedPlan().toString().contains("Broadcast"));
+        Assert.assertTrue(joined.count() == 1);
+
+        Rumble rumbleWithoutBroadcast = new Rumble(
+                new RumbleRuntimeConfiguration(new String[] { "--broadcast-join-threshold", "0" })
+        );
+        iterator = rumbleWithoutBroadcast.runQuery(query);
+        Assert.assertTrue(iterator.availableAsDataFrame());
+        joined = iterator.getAsDataFrame();
+        Assert.assertTrue(!joined.queryExecution().executedPlan().toString().contains("Broadcast"));
+        Assert.assertTrue(joined.count() == 1);
+    }
+
+    @Test(timeout = 1000000)
+    public void testHotKeys() throws Throwable {
+        Rumble rumble = new Rumble(
+                new RumbleRuntimeConfiguration(
+                        new String[] {
+                            "--skew-salt-buckets",
+                            "4",
+                            "--skew-hot-key-fraction",
+                            "0.1",
+                            "--broadcast-join-threshold",
+                            "-1" }
+                )
+        );
+        // 90% of the tuples share a key in both queries.
+        String joinQuery = "count("
+            + "for $e in parallelize(for $i in 1 to 20000 return { \"k\" : if ($i mod 10 eq 0) then $i else 1 }, 4) "
+            + "for $m in parallelize(({ \"k\" : 1 }, { \"k\" : 10 }))[$$.k eq $e.k] "
+            + "return $m)";
+        String groupByQuery = "count("
+            + "for $i in parallelize(1 to 20000, 4) "
+            + "let $k := if ($i mod 10 eq 0) then string($i) else \"hot\" "
+            + "group by $k "
+            + "return $k)";
+        String[][] cases = { { joinQuery, "join", "18001" }, { groupByQuery, "group by", "2001" } };
+        for (String[] testCase : cases) {
+            SequenceOfItems sequence = rumble.runQuery(testCase[0]);
+            List<Item> items = new ArrayList<>();
+            sequence.populateList(items);
+            Assert.assertEquals(testCase[2], items.get(0).serialize());
+            List<HotKeys> hotKeys = sequence.getHotKeys();
+            Assert.assertEquals(1, hotKeys.size());
+            Assert.assertEquals(testCase[1], hotKeys.get(0).getClause());
+            Assert.assertEquals(1, hotKeys.get(0).getFractions().size());
+            double fraction = hotKeys.get(0).getFractions().values().iterator().next();
+            Assert.assertTrue(hotKeys.get(0).toString(), fraction > 0.75 && fraction <= 1);
+            if (testCase[1].equals("group by")) {
+                Assert.assertTrue(hotKeys.get(0).getFractions().containsKey("hot"));
+            }
+            sequence.release();
+        }
+    }
+
+    @Test(timeout = 1000000)
+    public void testPartialGroupByAggregates() throws Throwable {
+        // the where clause only needs the aggregate of $d, and the grouping key is returned natively
+        String[][] cases = {
+            { "sum($d) gt 5", "partial_sum", "true" },
+            { "avg($d) gt 2", "partial_avg", "true" },
+            { "min($d) ge 3", "partial_min", "true" },
+            { "max($d) lt 3", "partial_max", "false" } };
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        for (String[] testCase : cases) {
+            String query = "for $d in parallelize((1e0, 2e0, 3e0, 4e0, 5e0), 2) "
+                + "group by $k := $d ge 3 "
+                + "where "
+                + testCase[0]
+                + " return $k";
+            SequenceOfItems iterator = rumble.runQuery(query);
+            Assert.assertTrue(iterator.availableAsDataFrame());
+            Dataset<Row> grouped = iterator.getAsDataFrame();
+            String plan = grouped.queryExecution().executedPlan().toString();
+            Assert.assertTrue(plan, plan.contains(testCase[1]));
+            Assert.assertTrue(plan, !plan.contains("collect_list"));
+            List<Row> rows = grouped.collectAsList();
+            Assert.assertEquals(1, rows.size());
+            Assert.assertEquals(testCase[2], rows.get(0).get(0).toString());
+        }
+    }
+
+    @Test(timeout = 1000000)
+    public void testNativeColumnsForVariables() throws Throwable {
+        Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+        String prolog = "declare type local:point as { \"x\" : \"int\", \"tags\" : [ \"string\" ] }; "
+            + "declare type local:vector as [ \"int\" ]; ";
+
+        // a serialized column would be returned with the schema of xs:int, which is an integer column.
+        SequenceOfItems iterator = rumble.runQuery(
+            "for $i in parallelize(for $x in (2, 1) return $x cast as int) treat as int* order by $i return $i"
+        );
+        Assert.assertTrue(iterator.availableAsDataFrame());
+        Dataset<Row> ints = iterator.getAsDataFrame();
+        Assert.assertEquals(DataTypes.LongType, ints.schema().fields()[0].dataType());
+        Assert.assertEquals(1L, ints.collectAsList().get(0).getLong(0));
+
+        iterator = rumble.runQuery(
+            prolog
+                + "for $p in parallelize(validate type local:point* { "
+                + "{ \"x\" : 1, \"tags\" : [ \"a\" ] }, { \"x\" : 2 } }) treat as local:point* "
+                + "where $p.x gt 1 "
+                + "return $p"
+        );
+        Assert.assertTrue(iterator.availableAsDataFrame());
+        StructType points = iterator.getAsDataFrame().schema();
+        Assert.assertEquals(2, points.fields().length);
+        Assert.assertEquals(DataTypes.IntegerType, points.apply("x").dataType());
+        Assert.assertEquals(DataTypes.createArrayType(DataTypes.StringType), points.apply("tags").dataType());
+
+        // arrays cannot be returned as a DataFrame from serialized columns.
+        iterator = rumble.runQuery(
+            prolog
+                + "for $v in parallelize(validate type local:vector* { [ 1, 2 ], [ 3 ] }) treat as local:vector* "
+                + "return $v"
+        );
+        Assert.assertTrue(iterator.availableAsDataFrame());
+        Dataset<Row> vectors = iterator.getAsDataFrame();
+        Assert.assertEquals(1, vectors.schema().fields().length);
+        Assert.assertEquals(DataTypes.createArrayType(DataTypes.IntegerType), vectors.schema().fields()[0].dataType());
+        Assert.assertEquals(2, vectors.count());
+    }
+
+    @Test(timeout = 1000000)
+    public void testSequenceStatisticsInOnePass() throws Throwable {
+        String bind = "let $s := parallelize(1 to 1000, 4) return ";
+        List<Item> items = new ArrayList<>();
+        int jobsForAvg = countJobs(bind + "avg($s)", items);
+        items.clear();
+        int jobsForAll = countJobs(bind + "(avg($s), max($s), count($s), min($s))", items);
+        Assert.assertEquals(4, items.size());
+        Assert.assertEquals(500.5, items.get(0).castToDoubleValue(), 0);
+        Assert.assertEquals(1000, items.get(1).getIntValue());
+        Assert.assertEquals(1000, items.get(2).getIntValue());
+        Assert.assertEquals(1, items.get(3).getIntValue());
+        // max(), count() and min() reuse the statistics computed by avg().
+        Assert.assertEquals(jobsForAvg, jobsForAll);
+    }
+
+    private static int countJobs(String query, List<Item> items) throws Throwable {
+        SparkContext sparkContext = SparkSessionManager.getInstance().getJavaSparkContext().sc();
+        AtomicInteger jobs = new AtomicInteger();
+        SparkListener listener = new SparkListener() {
+            @Override
+            public void onJobStart(SparkListenerJobStart jobStart) {
+                jobs.incrementAndGet();
+            }
+        };
+        sparkContext.listenerBus().waitUntilEmpty(10000);
+        sparkContext.addSparkListener(listener);
+        try {
+            Rumble rumble = new Rumble(RumbleRuntimeConfiguration.getDefaultConfiguration());
+            SequenceOfItems sequence = rumble.runQuery(query);
+            sequence.open();
+            while (sequence.hasNext()) {
+                items.add(sequence.next());
+            }
+            sequence.close();
+            sparkContext.listenerBus().waitUntilEmpty(10000);
+        } finally {
+            sparkContext.removeSparkListener(listener);
+        }
+        return jobs.get();
+    }
+
+    @Test(timeout = 1000000)
+    public void testCachedSchema() throws Throwable {
+        File directory = Files.createTempDirectory("rumble-schema-cache").toFile();
+        File input = new File(directory, "input.jsonl");
+        Files.write(
+            input.toPath(),
+            "{\"id\" : 1}\n{\"id\" : 2, \"extra\" : true}\n".getBytes(StandardCharsets.UTF_8)
+        );
+        RumbleRuntimeConfiguration configuration = new RumbleRuntimeConfiguration(
+                new String[] { "--schema-cache-path", directory.toURI().toString() + "cache" }
+        );
+        String query = "count(for $o in structured-json-file(\""
+            + input.toURI()
+            + "\") where exists($o.extra) return $o)";
+
+        // a schema without the extra field is planted in the cache, so that it is only used if the cache is read.
+        String key = SchemaCache.getKey(input.toURI(), "{}", configuration, ExceptionMetadata.EMPTY_METADATA);
+        File cached = new File(directory, "cache/" + key + ".json");
+        Assert.assertTrue(cached.getParentFile().mkdirs());
+        Files.write(
+            cached.toPath(),
+            new StructType().add("id", DataTypes.LongType).json().getBytes(StandardCharsets.UTF_8)
+        );
+        List<Item> result = new ArrayList<>();
+        for (int run = 0; run < 2; ++run) {
+            new Rumble(configuration).runQuery(query).populateList(result);
+            Assert.assertTrue(result.get(0).getIntValue() == 0);
+        }
+
+        // once the input changes, the schema is inferred again and cached under a new key.
+        Files.write(
+            input.toPath(),
+            "{\"id\" : 3, \"extra\" : false}\n".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND
+        );
+        new Rumble(configuration).runQuery(query).populateList(result);
+        Assert.assertTrue(result.get(0).getIntValue() == 2);
+        String newKey = SchemaCache.getKey(input.toURI(), "{}", configuration, ExceptionMetadata.EMPTY_METADATA);
+        Assert.assertTrue(new File(directory, "cache/" + newKey + ".json").exists());
+    }
+
+    @Test(timeout = 1000000)
+    public void testOutputEncodingAndItemSeparator() throws Throwable {
+        File output = new File(Files.createTempDirectory("rumble-output").toFile(), "output.json");
+        RumbleRuntimeConfiguration configuration = new RumbleRuntimeConfiguration(
+                new String[] {
+                    "--query",
+                    "(1, [ 2 ], \"a\")",
+                    "--output-path",
+                    output.toURI().toString(),
+                    "--output-format-option:encoding",
+                    "UTF-16BE",
+                    "--output-format-option:item-separator",
+                    ";" }
+        );
+        new JsoniqQueryExecutor(configuration).runQuery();
+        String expected = "1;[ 2 ];\"a\"\n";
+        byte[] bytes = Files.readAllBytes(output.toPath());
+        Assert.assertTrue(bytes.length == 2 * expected.length());
+        Assert.assertTrue(new String(bytes, StandardCharsets.UTF_16BE).equals(expected));
+    }
+
+    private static Item postQuery(String query) throws Throwable {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jsoniq")
+            .setHandler(new RumbleHttpHandler(RumbleRuntimeConfiguration.getDefaultConfiguration()));
+        server.start();
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/jsoniq");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(query.getBytes(StandardCharsets.UTF_8));
+            }
+            Assert.assertTrue(connection.getResponseCode() == 200);
+            try (InputStream response = connection.getInputStream()) {
+                String json = IOUtils.toString(response, StandardCharsets.UTF_8);
+                return ItemParser.getItemFromString(json, ExceptionMetadata.EMPTY_METADATA);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(timeout = 1000000)
+    public void testServerValues() throws Throwable {
+        Item response = postQuery("for $i in parallelize(1 to 3) return $i");
+        Assert.assertTrue(response.getItemByKey("values").getSize() == 3);
+        Assert.assertTrue(response.getItemByKey("error-code") == null);
+    }
+
+    @Test(timeout = 1000000)
+    public void testServerSyntaxError() throws Throwable {
+        Item response = postQuery("for $i in return $i");
+        Assert.assertTrue(response.getItemByKey("values") == null);
+        Assert.assertTrue(response.getItemByKey("error-code").getStringValue().equals("XPST0003"));
+    }
+
+    @Test(timeout = 1000000)
+    public void testServerRuntimeError() throws Throwable {
+        Item response = postQuery("1 idiv 0");
+        Assert.assertTrue(response.getItemByKey("values") == null);
+        Assert.assertTrue(response.getItemByKey("error-code").getStringValue().equals("FOAR0001"));
+
+        response = postQuery("for $i in parallelize(1 to 3) return 1 idiv ($i - 2)");
+        Assert.assertTrue(response.getItemByKey("values") == null);
+        Assert.assertTrue(response.getItemByKey("error-code").getStringValue().equals("FOAR0001"));
+
+        // the error is raised after the first value was sent, and follows the values.
+        response = postQuery("for $i in 1 to 3 return 1 idiv ($i - 2)");
+        Assert.assertTrue(response.getItemByKey("values").getSize() <= 1);
+        Assert.assertTrue(response.getItemByKey("error-code").getStringValue().equals("FOAR0001"));
+    }
 }